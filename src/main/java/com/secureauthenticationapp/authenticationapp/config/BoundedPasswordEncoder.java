@@ -0,0 +1,135 @@
+package com.secureauthenticationapp.authenticationapp.config;
+
+import com.secureauthenticationapp.authenticationapp.domain.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every hash and verification of the delegate encoder on a small dedicated pool with a
+ * bounded queue. The request thread still waits for the result, but at most
+ * {@code threads + queueCapacity} requests can be inside the password path at once; the rest are
+ * turned away immediately with {@link PasswordHashingBusyException} instead of occupying another
+ * Tomcat worker, so a login burst cannot starve the rest of the API.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private volatile Timer waitTimer;
+    private volatile Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration retryAfter) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * The wrapped encoder, for batch work that runs on its own threads and must not compete with
+     * interactive logins for this pool.
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.password.hashing.queue", this, BoundedPasswordEncoder::getQueueDepth)
+                .description("Password hashing requests waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("auth.password.hashing.active", this, BoundedPasswordEncoder::getActiveCount)
+                .description("Password hashing threads currently busy")
+                .register(registry);
+        waitTimer = Timer.builder("auth.password.hashing.wait")
+                .description("Time a password hashing request spent queued before it started")
+                .register(registry);
+        rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+                .description("Password hashing requests rejected because the queue was full")
+                .register(registry);
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                Timer timer = waitTimer;
+                if (timer != null) {
+                    timer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            Counter counter = rejectedCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new PasswordHashingBusyException("Too many login requests. Please try again shortly.", retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
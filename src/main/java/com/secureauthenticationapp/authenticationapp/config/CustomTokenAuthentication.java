@@ -1,18 +1,21 @@
 package com.secureauthenticationapp.authenticationapp.config;
 
-import lombok.Getter;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.TokenPrincipal;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
+
 import java.util.Collection;
 
-@Getter
 public class CustomTokenAuthentication extends AbstractAuthenticationToken {
-    private final Object principal;
-    private String token;
-    public CustomTokenAuthentication(String token, Object principal, Collection<? extends GrantedAuthority> authorities) {
+    private final TokenPrincipal principal;
+
+    public CustomTokenAuthentication(TokenPrincipal principal) {
+        this(principal, principal.getAuthorities());
+    }
+
+    public CustomTokenAuthentication(TokenPrincipal principal, Collection<? extends GrantedAuthority> authorities) {
         super(authorities);
         this.principal = principal;
-        this.token = token;
         super.setAuthenticated(true);
     }
 
@@ -22,9 +25,15 @@ public class CustomTokenAuthentication extends AbstractAuthenticationToken {
     }
 
     @Override
-    public Object getPrincipal() {
+    public TokenPrincipal getPrincipal() {
         return this.principal;
     }
 
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (authenticated) {
+            throw new IllegalArgumentException("Token authentications are only created by the token filter");
+        }
+        super.setAuthenticated(false);
+    }
 }
-
@@ -1,75 +1,99 @@
 package com.secureauthenticationapp.authenticationapp.config;
 
-import com.secureauthenticationapp.authenticationapp.domain.exception.TokenValidationException;
 import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.AccessTokenService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.TokenPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.core.Authentication;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.GenericFilterBean;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+/**
+ * Authenticates requests carrying a bearer token. Users named in {@code auth.admin.usernames}
+ * are granted {@link #ADMIN_ROLE}, which the admin endpoints require.
+ */
 @Service
 public class CustomTokenAuthenticationFilter extends GenericFilterBean {
 
-    private final UserService userService;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    public static final String ADMIN_ROLE = "ADMIN";
 
-    public CustomTokenAuthenticationFilter(UserService userService) {
-        this.userService = userService;
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final RouteMatcher EXCLUDED_PATHS = RouteMatcher.compile("/api/v1/users/**", "/api/v1/blog/images/**");
+    private static final byte[] INVALID_TOKEN_RESPONSE =
+            "{\"error\": \"Invalid or expired token.\"}".getBytes(StandardCharsets.UTF_8);
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+            List.of(new SimpleGrantedAuthority("ROLE_" + ADMIN_ROLE));
+
+    private final AccessTokenService accessTokenService;
+    private final Set<String> adminUsernames;
+
+    @Autowired
+    public CustomTokenAuthenticationFilter(UserService userService,
+                                           @Value("${auth.admin.usernames:}") List<String> adminUsernames) {
+        this(userService.getAccessTokenService(), adminUsernames);
+    }
+
+    public CustomTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this(accessTokenService, List.of());
+    }
+
+    public CustomTokenAuthenticationFilter(AccessTokenService accessTokenService, Collection<String> adminUsernames) {
+        this.accessTokenService = accessTokenService;
+        this.adminUsernames = adminUsernames.stream()
+                .map(username -> username.trim().toLowerCase(Locale.ROOT))
+                .filter(username -> !username.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
-        HttpServletResponse httpServletResponse = (HttpServletResponse) response;
-
-        String[] excludePaths = {"/api/v1/users/**"};
-
-        boolean skip = false;
-        for (String path : excludePaths) {
-            if (pathMatcher.match(path, httpServletRequest.getServletPath())) {
-                skip = true;
-                break;
-            }
-        }
 
-        if (!skip) {
-            String header = httpServletRequest.getHeader("Authorization");
+        if (!EXCLUDED_PATHS.matches(httpServletRequest.getServletPath())) {
+            String header = httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION);
 
-            if (header != null && header.startsWith("Bearer ")) {
-                String token = header.substring(7);
-
-                try {
-                    if (userService.isTokenValid(token)) {
-                        String username = userService.getTokenStore().get(token);
-                        if (username != null) {
-                            Authentication authentication = new CustomTokenAuthentication(token, username, null);
-                            SecurityContextHolder.getContext().setAuthentication(authentication);
-                        } else {
-                            throw new TokenValidationException("No user found for this token.");
-                        }
-                    } else {
-                        throw new TokenValidationException("Invalid or expired token.");
-                    }
-                } catch (TokenValidationException e) {
-                    httpServletResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    httpServletResponse.setContentType("application/json");
-                    httpServletResponse.getWriter().write("{\"error\": \"" + e.getMessage() + "\"}");
+            if (header != null && header.startsWith(BEARER_PREFIX)) {
+                TokenPrincipal principal = accessTokenService.resolvePrincipal(header, BEARER_PREFIX.length());
+                if (principal == null) {
+                    writeInvalidToken((HttpServletResponse) response);
                     return;
                 }
+                SecurityContextHolder.getContext().setAuthentication(new CustomTokenAuthentication(principal,
+                        isAdmin(principal) ? ADMIN_AUTHORITIES : principal.getAuthorities()));
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private boolean isAdmin(TokenPrincipal principal) {
+        return !adminUsernames.isEmpty() && adminUsernames.contains(principal.getName().toLowerCase(Locale.ROOT));
+    }
+
+    private static void writeInvalidToken(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(INVALID_TOKEN_RESPONSE.length);
+        response.getOutputStream().write(INVALID_TOKEN_RESPONSE);
+    }
+}
@@ -1,7 +1,7 @@
 package com.secureauthenticationapp.authenticationapp.config;
 
-import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
-import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserCredentials;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserCredentialCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,16 +12,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserCredentialCache userCredentialCache;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public CustomUserDetailsService(UserCredentialCache userCredentialCache) {
+        this.userCredentialCache = userCredentialCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserEntity applicationUser = userRepository.findByUsername(username)
+        UserCredentials applicationUser = userCredentialCache.get(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         return User.builder()
@@ -0,0 +1,65 @@
+package com.secureauthenticationapp.authenticationapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Picks the BCrypt work factor for this machine at startup and builds the encoder around it.
+ * <p>
+ * New hashes are written as {@code {bcrypt}...} at the calibrated cost. Hashes without an id
+ * prefix, as stored before calibration existed, are still verified by a plain BCrypt encoder.
+ * {@link PasswordEncoder#upgradeEncoding(String)} reports both those and bcrypt hashes at a lower
+ * cost as outdated, so they can be re-hashed after the next successful login.
+ */
+@Slf4j
+public final class PasswordEncoderCalibrator {
+
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final int PROBE_STRENGTH = 6;
+    private static final int PROBE_SAMPLES = 7;
+    private static final String PROBE_PASSWORD = "calibration-probe";
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    public static PasswordEncoder calibratedEncoder(int configuredStrength, Duration targetVerificationTime,
+                                                    int minStrength, int maxStrength) {
+        int strength = configuredStrength > 0
+                ? configuredStrength
+                : calibrateStrength(targetVerificationTime, minStrength, maxStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID,
+                Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * Times verifications at a low cost and extrapolates, since every extra BCrypt round doubles
+     * the work. Returns the strength whose estimated median verification time is closest to the
+     * target, clamped to {@code [minStrength, maxStrength]}.
+     */
+    public static int calibrateStrength(Duration targetVerificationTime, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+        String hash = probe.encode(PROBE_PASSWORD);
+        probe.matches(PROBE_PASSWORD, hash);
+        long[] samples = new long[PROBE_SAMPLES];
+        for (int i = 0; i < PROBE_SAMPLES; i++) {
+            long started = System.nanoTime();
+            probe.matches(PROBE_PASSWORD, hash);
+            samples[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(samples);
+        double median = Math.max(1, samples[PROBE_SAMPLES / 2]);
+        int estimated = PROBE_STRENGTH + (int) Math.round(Math.log(targetVerificationTime.toNanos() / median) / Math.log(2));
+        int strength = Math.max(minStrength, Math.min(maxStrength, estimated));
+        log.info("Calibrated BCrypt strength {} for a {} ms target ({} us per verification at strength {})",
+                strength, targetVerificationTime.toMillis(), (long) median / 1000, PROBE_STRENGTH);
+        return strength;
+    }
+}
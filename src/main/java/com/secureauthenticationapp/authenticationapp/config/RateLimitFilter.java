@@ -0,0 +1,386 @@
+package com.secureauthenticationapp.authenticationapp.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserCredentialCache;
+import com.secureauthenticationapp.authenticationapp.utils.RateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.GenericFilterBean;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Sheds excess requests to the credential endpoints before they reach the controller, so a flood of
+ * login attempts costs a counter update instead of a database read and a password hash.
+ * <p>
+ * Each route under {@code auth.rate-limit.routes.<name>} has a method, a path pattern and optional
+ * {@code per-ip} and {@code per-username} limits. The username is read from the JSON body with a
+ * streaming parser and keyed as login looks it up, through {@link UserCredentialCache#normalize},
+ * and the body is replayed to the controller unchanged. On routes with a username limit, bodies
+ * over {@code max-body-size} get 413 and bodies naming the username more than once get 400, so the
+ * limiter always sees the value the controller binds. Client addresses come from
+ * {@link HttpServletRequest#getRemoteAddr()}; behind a proxy enable {@code server.forward-headers-strategy}.
+ * Rejected requests get 429 with {@code Retry-After} and are counted per route in
+ * {@code auth.ratelimit.rejected}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConfigurationProperties(prefix = "auth.rate-limit")
+public class RateLimitFilter extends GenericFilterBean implements MeterBinder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final byte[] TOO_MANY_REQUESTS_RESPONSE =
+            "{\"error\": \"Too many requests, please try again later.\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_RESPONSE =
+            "{\"error\": \"Request body is too large.\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DUPLICATE_USERNAME_RESPONSE =
+            "{\"error\": \"Request body names the username more than once.\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final LongSupplier nanoClock;
+    private volatile List<CompiledRoute> compiledRoutes = List.of();
+
+    @Getter
+    @Setter
+    private boolean enabled = true;
+
+    @Getter
+    @Setter
+    private int maxKeys = 100_000;
+
+    @Getter
+    @Setter
+    private int maxBodySize = 4096;
+
+    @Getter
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+
+    public RateLimitFilter() {
+        this(System::nanoTime);
+    }
+
+    public RateLimitFilter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        routes.put("login", new Route("POST", "/api/v1/users/login",
+                new Limit(20, Duration.ofMinutes(1), 10), new Limit(10, Duration.ofMinutes(1), 5)));
+        routes.put("register", new Route("POST", "/api/v1/users/register",
+                new Limit(10, Duration.ofMinutes(1), 5), null));
+        routes.put("availability", new Route("GET", "/api/v1/users/availability",
+                new Limit(60, Duration.ofMinutes(1), 20), null));
+    }
+
+    @Override
+    protected void initFilterBean() {
+        List<CompiledRoute> compiled = new ArrayList<>();
+        routes.forEach((name, route) -> compiled.add(new CompiledRoute(name, route, maxKeys, nanoClock)));
+        compiledRoutes = List.copyOf(compiled);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+        HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+        CompiledRoute route = enabled ? routeFor(httpServletRequest) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (route.perIp != null) {
+            long waitNanos = route.perIp.tryAcquire(httpServletRequest.getRemoteAddr());
+            if (waitNanos > 0) {
+                route.rejectedByIp.increment();
+                writeTooManyRequests((HttpServletResponse) response, waitNanos);
+                return;
+            }
+        }
+
+        if (route.perUsername != null) {
+            byte[] body = httpServletRequest.getInputStream().readNBytes(maxBodySize + 1);
+            if (body.length > maxBodySize) {
+                route.rejectedByBody.increment();
+                writeError((HttpServletResponse) response, HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE_RESPONSE);
+                return;
+            }
+            String username;
+            try {
+                username = usernameOf(body);
+            } catch (DuplicateUsernameException e) {
+                route.rejectedByBody.increment();
+                writeError((HttpServletResponse) response, HttpStatus.BAD_REQUEST, DUPLICATE_USERNAME_RESPONSE);
+                return;
+            }
+            if (username != null) {
+                long waitNanos = route.perUsername.tryAcquire(UserCredentialCache.normalize(username));
+                if (waitNanos > 0) {
+                    route.rejectedByUsername.increment();
+                    writeTooManyRequests((HttpServletResponse) response, waitNanos);
+                    return;
+                }
+            }
+            request = new BufferedBodyRequest(httpServletRequest, body);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CompiledRoute route : compiledRoutes) {
+            FunctionCounter.builder("auth.ratelimit.rejected", route.rejectedByIp, LongAdder::sum)
+                    .description("Requests rejected by the rate limiter")
+                    .tags("route", route.name, "key", "ip")
+                    .register(registry);
+            FunctionCounter.builder("auth.ratelimit.rejected", route.rejectedByUsername, LongAdder::sum)
+                    .description("Requests rejected by the rate limiter")
+                    .tags("route", route.name, "key", "username")
+                    .register(registry);
+            FunctionCounter.builder("auth.ratelimit.rejected", route.rejectedByBody, LongAdder::sum)
+                    .description("Requests rejected by the rate limiter")
+                    .tags("route", route.name, "key", "body")
+                    .register(registry);
+            if (route.perIp != null) {
+                Gauge.builder("auth.ratelimit.keys", route.perIp, RateLimiter::size)
+                        .description("Keys currently tracked by the rate limiter")
+                        .tags("route", route.name, "key", "ip")
+                        .register(registry);
+            }
+            if (route.perUsername != null) {
+                Gauge.builder("auth.ratelimit.keys", route.perUsername, RateLimiter::size)
+                        .description("Keys currently tracked by the rate limiter")
+                        .tags("route", route.name, "key", "username")
+                        .register(registry);
+            }
+        }
+    }
+
+    private CompiledRoute routeFor(HttpServletRequest request) {
+        for (CompiledRoute route : compiledRoutes) {
+            if ((route.method == null || route.method.equalsIgnoreCase(request.getMethod()))
+                    && route.paths.matches(request.getServletPath())) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the top-level username as Jackson would bind it to a {@code String}, scalars included,
+     * or null if the body has none or is not a JSON object.
+     */
+    private static String usernameOf(byte[] body) throws DuplicateUsernameException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String username = null;
+            boolean seen = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("username".equals(field)) {
+                    if (seen) {
+                        throw new DuplicateUsernameException();
+                    }
+                    seen = true;
+                    username = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return username;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeTooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_RESPONSE);
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, byte[] body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    @Getter
+    @Setter
+    public static class Route {
+        /**
+         * HTTP method to limit, or blank for every method.
+         */
+        private String method;
+        private String path;
+        private Limit perIp;
+        private Limit perUsername;
+
+        public Route() {
+        }
+
+        public Route(String method, String path, Limit perIp, Limit perUsername) {
+            this.method = method;
+            this.path = path;
+            this.perIp = perIp;
+            this.perUsername = perUsername;
+        }
+    }
+
+    /**
+     * {@code permits} requests per {@code period} on average, with up to {@code burst} at once.
+     */
+    @Getter
+    @Setter
+    public static class Limit {
+        private int permits;
+        private Duration period;
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(int permits, Duration period, int burst) {
+            this.permits = permits;
+            this.period = period;
+            this.burst = burst;
+        }
+    }
+
+    private static final class CompiledRoute {
+        private final String name;
+        private final String method;
+        private final RouteMatcher paths;
+        private final RateLimiter perIp;
+        private final RateLimiter perUsername;
+        private final LongAdder rejectedByIp = new LongAdder();
+        private final LongAdder rejectedByUsername = new LongAdder();
+        private final LongAdder rejectedByBody = new LongAdder();
+
+        private CompiledRoute(String name, Route route, int maxKeys, LongSupplier nanoClock) {
+            if (route.path == null || route.path.isBlank()) {
+                throw new IllegalStateException("auth.rate-limit.routes." + name + ".path is required");
+            }
+            this.name = name;
+            this.method = route.method == null || route.method.isBlank() ? null : route.method;
+            this.paths = RouteMatcher.compile(route.path);
+            this.perIp = limiter(route.perIp, maxKeys, nanoClock);
+            this.perUsername = limiter(route.perUsername, maxKeys, nanoClock);
+        }
+
+        private static RateLimiter limiter(Limit limit, int maxKeys, LongSupplier nanoClock) {
+            if (limit == null || limit.permits <= 0) {
+                return null;
+            }
+            return new RateLimiter(limit.permits, limit.period.toNanos(), Math.max(1, limit.burst), maxKeys, nanoClock);
+        }
+    }
+
+    private static final class DuplicateUsernameException extends Exception {
+        private DuplicateUsernameException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Serves the body that was read to inspect the username to the rest of the chain.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final InputStream replay;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.replay = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(replay,
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return replay.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    return replay.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return replay.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body is already in memory, so the listener is told straight away that data is
+                 * available and, once it has read it, that all data has been read.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.secureauthenticationapp.authenticationapp.config;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ant-style path patterns compiled once. Patterns ending in {@code /**} with no other wildcard
+ * become prefix checks and wildcard-free patterns become equality checks, so the common cases
+ * never reach {@link AntPathMatcher}; anything else is still matched by it.
+ */
+public final class RouteMatcher {
+
+    private final String[] exactPaths;
+    private final String[] prefixes;
+    private final String[] patterns;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private RouteMatcher(String[] exactPaths, String[] prefixes, String[] patterns) {
+        this.exactPaths = exactPaths;
+        this.prefixes = prefixes;
+        this.patterns = patterns;
+    }
+
+    public static RouteMatcher compile(String... patterns) {
+        List<String> exactPaths = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        List<String> remaining = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.endsWith("/**") && !hasWildcard(pattern.substring(0, pattern.length() - 3))) {
+                prefixes.add(pattern.substring(0, pattern.length() - 3));
+            } else if (!hasWildcard(pattern)) {
+                exactPaths.add(pattern);
+            } else {
+                remaining.add(pattern);
+            }
+        }
+        return new RouteMatcher(exactPaths.toArray(String[]::new), prefixes.toArray(String[]::new),
+                remaining.toArray(String[]::new));
+    }
+
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        for (String exactPath : exactPaths) {
+            if (exactPath.equals(path)) {
+                return true;
+            }
+        }
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('{') >= 0;
+    }
+}
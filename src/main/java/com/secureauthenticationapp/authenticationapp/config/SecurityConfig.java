@@ -2,12 +2,13 @@ package com.secureauthenticationapp.authenticationapp.config;
 
 import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -15,6 +16,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -25,19 +27,41 @@ public class SecurityConfig {
     private UserService userService;
 
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static BoundedPasswordEncoder passwordEncoder(
+            @Value("${auth.password.hashing.threads:0}") int threads,
+            @Value("${auth.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password.hashing.retry-after:1s}") Duration retryAfter,
+            @Value("${auth.password.bcrypt.strength:0}") int strength,
+            @Value("${auth.password.target-verification-time:50ms}") Duration targetVerificationTime,
+            @Value("${auth.password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${auth.password.bcrypt.max-strength:16}") int maxStrength) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        PasswordEncoder encoder = PasswordEncoderCalibrator.calibratedEncoder(strength, targetVerificationTime,
+                minStrength, maxStrength);
+        return new BoundedPasswordEncoder(encoder, poolSize, queueCapacity, retryAfter);
     }
 
+    /**
+     * Admin endpoints under {@code /api/v1/admin} need a token of a user listed in
+     * {@code auth.admin.usernames}; the rest of the API needs any valid token. Blog images are
+     * public, since browsers cannot attach a bearer token to an {@code <img>} request and their
+     * keys are content hashes that cannot be guessed.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${auth.admin.usernames:}") List<String> adminUsernames) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-                .addFilterBefore(new CustomTokenAuthenticationFilter(userService), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new CustomTokenAuthenticationFilter(userService, adminUsernames),
+                        UsernamePasswordAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/users/**")
                         .permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/blog/images/**")
+                        .permitAll()
+                        .requestMatchers("/api/v1/admin/**")
+                        .hasRole(CustomTokenAuthenticationFilter.ADMIN_ROLE)
                         .anyRequest()
                         .authenticated()
                 );
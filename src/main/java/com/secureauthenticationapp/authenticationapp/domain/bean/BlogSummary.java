@@ -0,0 +1,27 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a blog feed shows. Selected as a projection for listings so the large
+ * {@code content} and {@code conclusion} columns are neither fetched nor serialized.
+ */
+public interface BlogSummary {
+
+    Long getId();
+
+    String getTitle();
+
+    String getIntro();
+
+    LocalDateTime getCreationDate();
+
+    String getImageUrl();
+
+    String getImageVariants();
+
+    @JsonIgnore
+    Long getVersion();
+}
@@ -0,0 +1,33 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.secureauthenticationapp.authenticationapp.utils.EntityTags;
+import lombok.Getter;
+
+/**
+ * A blog serialized to JSON once and written verbatim into every response that includes it.
+ * The UTF-8 bytes are encoded on first use and reused afterwards.
+ */
+@Getter
+public class CachedBlog {
+    private final Long id;
+    private final long version;
+    private final RawValue json;
+
+    public CachedBlog(Long id, long version, String json) {
+        this.id = id;
+        this.version = version;
+        this.json = new RawValue(new SerializedString(json));
+    }
+
+    public String getEtag() {
+        return EntityTags.strong(id, version);
+    }
+
+    @JsonValue
+    public RawValue toJson() {
+        return json;
+    }
+}
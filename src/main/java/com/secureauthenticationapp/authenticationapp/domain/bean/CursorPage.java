@@ -0,0 +1,18 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a keyset listing. {@code nextCursor} is absent on the last page.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+}
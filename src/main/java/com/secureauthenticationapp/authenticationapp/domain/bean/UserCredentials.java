@@ -0,0 +1,32 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * The immutable part of a user row needed to check a login, safe to share between threads and
+ * keep in a cache.
+ */
+@Getter
+@AllArgsConstructor
+public class UserCredentials {
+    private final Long userId;
+    private final String username;
+    private final String password;
+    private final int failedLoginAttempts;
+    private final Date lockTime;
+
+    public static UserCredentials of(UserEntity user) {
+        return new UserCredentials(user.getUserId(), user.getUsername(), user.getPassword(),
+                user.getFailedLoginAttempts() == null ? 0 : user.getFailedLoginAttempts(),
+                user.getLockTime() == null ? null : new Date(user.getLockTime().getTime()));
+    }
+
+    @Override
+    public String toString() {
+        return "UserCredentials(userId=" + userId + ", username=" + username + ")";
+    }
+}
@@ -0,0 +1,12 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserImportError {
+    private long line;
+    private String username;
+    private String message;
+}
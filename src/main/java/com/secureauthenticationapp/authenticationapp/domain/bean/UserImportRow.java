@@ -0,0 +1,15 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import lombok.Data;
+
+/**
+ * One account in a bulk import. Either {@code password} (hashed during the import) or
+ * {@code passwordHash} (an existing BCrypt hash, stored as is) must be present.
+ */
+@Data
+public class UserImportRow {
+    private String username;
+    private String email;
+    private String password;
+    private String passwordHash;
+}
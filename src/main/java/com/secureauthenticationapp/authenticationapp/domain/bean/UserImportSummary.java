@@ -0,0 +1,14 @@
+package com.secureauthenticationapp.authenticationapp.domain.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class UserImportSummary {
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+}
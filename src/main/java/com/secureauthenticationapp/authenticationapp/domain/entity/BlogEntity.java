@@ -1,6 +1,8 @@
 package com.secureauthenticationapp.authenticationapp.domain.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -18,7 +20,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_DEFAULT)
 @Entity
-@Table(name = "BlogEntity")
+@Table(name = "BlogEntity", indexes = @Index(name = "idx_blog_creation_date_id", columnList = "creation_date, blogId"))
 public class BlogEntity {
 
     /**
@@ -75,4 +77,22 @@ public class BlogEntity {
      */
     @Column(name = "image_url")
     private String imageUrl;
+
+    /**
+     * Resized copies of the image as an HTML {@code srcset}, smallest first, e.g.
+     * {@code "https://.../1-a-320w.jpg 320w, https://.../1-a-640w.jpg 640w"}. Filled in by
+     * {@link com.secureauthenticationapp.authenticationapp.domain.service.BlogImageVariants} once
+     * they exist; until then, and for images narrower than every variant, it is empty.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "image_variants", length = 2048)
+    private String imageVariants;
+
+    /**
+     * Incremented on every write; the blog's ETag and the optimistic lock for concurrent edits.
+     */
+    @Version
+    @JsonIgnore
+    @Column(name = "version", nullable = false)
+    private long version;
 }
@@ -0,0 +1,51 @@
+package com.secureauthenticationapp.authenticationapp.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "sessionToken", indexes = {
+        @Index(name = "idx_session_token_expires", columnList = "expiresAt"),
+        @Index(name = "idx_session_token_last_access", columnList = "lastAccess")
+})
+public class SessionTokenEntity {
+
+    /**
+     * Hex SHA-256 of the token's 128 bits. The token itself is never stored, so a copy of the table
+     * cannot be replayed as live sessions.
+     */
+    @Id
+    @Column(name = "tokenHash", length = 64, nullable = false, updatable = false)
+    private String tokenHash;
+
+    /**
+     * The user the session belongs to.
+     */
+    @Column(name = "username", nullable = false, updatable = false)
+    private String username;
+
+    /**
+     * When the session was issued.
+     */
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    /**
+     * Last recorded use of the session, updated at most once per touch interval.
+     */
+    @Column(name = "lastAccess", nullable = false)
+    private Instant lastAccess;
+
+    /**
+     * Absolute expiry of the session regardless of activity.
+     */
+    @Column(name = "expiresAt", nullable = false, updatable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,51 @@
+package com.secureauthenticationapp.authenticationapp.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storageOutbox", indexes = {
+        @Index(name = "idx_storage_outbox_next_attempt", columnList = "nextAttemptAt"),
+        @Index(name = "idx_storage_outbox_object_key", columnList = "objectKey")})
+public class StorageOutboxEntity {
+
+    /**
+     * Unique identifier for the outbox entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    /**
+     * Storage key of the object to release.
+     */
+    @Column(name = "objectKey", nullable = false, updatable = false, length = 1024)
+    private String objectKey;
+
+    /**
+     * When the entry was written.
+     */
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    /**
+     * Earliest time the object may be deleted. For a staged upload this lies past the upload
+     * grace period, so the object survives until its blog commits and removes the entry.
+     */
+    @Column(name = "nextAttemptAt", nullable = false)
+    private Instant nextAttemptAt;
+
+    /**
+     * Failed delete attempts so far, used for back-off.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+}
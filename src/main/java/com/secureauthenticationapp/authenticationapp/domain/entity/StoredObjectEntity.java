@@ -0,0 +1,45 @@
+package com.secureauthenticationapp.authenticationapp.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storedObject")
+public class StoredObjectEntity {
+
+    /**
+     * Storage key of the object, the last segment of its URL. Uploaded images are named after their
+     * content, so blogs with the same image share one object. Keyed by storage key rather than URL
+     * so the count survives a change of {@code auth.storage.public-base-url}.
+     */
+    @Id
+    @Column(name = "objectKey", nullable = false, updatable = false, length = 512)
+    private String objectKey;
+
+    /**
+     * Blogs using the object, plus uploads that have staged it but not yet committed. The object
+     * is deleted when this drops to zero.
+     */
+    @Column(name = "referenceCount", nullable = false)
+    private int referenceCount;
+
+    /**
+     * When the object was first referenced.
+     */
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    /**
+     * When the outbox started deleting the object, which it does outside any transaction; null
+     * otherwise. A row in this state has no references and counts as absent.
+     */
+    @Column(name = "deletingSince")
+    private Instant deletingSince;
+}
@@ -0,0 +1,7 @@
+package com.secureauthenticationapp.authenticationapp.domain.exception;
+
+public class BlogVersionConflictException extends RuntimeException {
+    public BlogVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,7 @@ import com.secureauthenticationapp.authenticationapp.utils.ErrorCodeUtil;
 import jakarta.servlet.ServletException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -128,6 +129,80 @@ public class GlobalExceptionHandler {
         return buildResponseEntity(apiError);
     }
 
+    @ExceptionHandler(ImageNotFoundException.class)
+    public ResponseEntity<Object> handleImageNotFoundException(ImageNotFoundException ex) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.NOT_FOUND)
+                .statusCode(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .errorCode(ErrorCodeUtil.getErrorCodeForException(ex))
+                .build();
+        return buildResponseEntity(apiError);
+    }
+
+    @ExceptionHandler(BlogVersionConflictException.class)
+    public ResponseEntity<Object> handleBlogVersionConflictException(BlogVersionConflictException ex) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .statusCode(HttpStatus.PRECONDITION_FAILED.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .errorCode(ErrorCodeUtil.getErrorCodeForException(ex))
+                .build();
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * A concurrent write committed between our read and our update of a versioned row.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return handleBlogVersionConflictException(
+                new BlogVersionConflictException("The resource was modified by another request"));
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Object> handlePasswordHashingBusyException(PasswordHashingBusyException ex) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .errorCode(ErrorCodeUtil.getErrorCodeForException(ex))
+                .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(apiError, headers, apiError.getStatus());
+    }
+
+    @ExceptionHandler(StorageBusyException.class)
+    public ResponseEntity<Object> handleStorageBusyException(StorageBusyException ex) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .errorCode(ErrorCodeUtil.getErrorCodeForException(ex))
+                .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(apiError, headers, apiError.getStatus());
+    }
+
+    @ExceptionHandler(UserImportInProgressException.class)
+    public ResponseEntity<Object> handleUserImportInProgressException(UserImportInProgressException ex) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.CONFLICT)
+                .statusCode(HttpStatus.CONFLICT.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .errorCode(ErrorCodeUtil.getErrorCodeForException(ex))
+                .build();
+        return buildResponseEntity(apiError);
+    }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleException(Exception ex) {
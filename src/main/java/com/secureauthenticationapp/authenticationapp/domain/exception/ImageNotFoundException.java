@@ -0,0 +1,7 @@
+package com.secureauthenticationapp.authenticationapp.domain.exception;
+
+public class ImageNotFoundException extends RuntimeException {
+    public ImageNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.secureauthenticationapp.authenticationapp.domain.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.secureauthenticationapp.authenticationapp.domain.exception;
+
+import lombok.Getter;
+
+@Getter
+public class StorageBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public StorageBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.secureauthenticationapp.authenticationapp.domain.exception;
+
+public class UserImportInProgressException extends RuntimeException {
+    public UserImportInProgressException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,90 @@
 package com.secureauthenticationapp.authenticationapp.domain.repository;
 
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
 import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BlogRepository extends JpaRepository<BlogEntity, Long> {
+
+    String SELECT_SUMMARY = "select b.id as id, b.title as title, b.intro as intro, "
+            + "b.creationDate as creationDate, b.imageUrl as imageUrl, b.imageVariants as imageVariants, "
+            + "b.version as version from BlogEntity b ";
+
+    String OLDER_THAN = "where b.creationDate <= :creationDate "
+            + "and (b.creationDate < :creationDate or b.id < :id) ";
+
+    String NEWEST_FIRST = "order by b.creationDate desc, b.id desc";
+
+    @Query("select b.version from BlogEntity b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select b from BlogEntity b " + NEWEST_FIRST)
+    List<BlogEntity> findNewest(Pageable limit);
+
+    /**
+     * Blogs strictly older than the given position in {@code (creationDate, id)} order. The
+     * redundant {@code <=} bound lets the database seek on the composite index instead of scanning.
+     */
+    @Query("select b from BlogEntity b " + OLDER_THAN + NEWEST_FIRST)
+    List<BlogEntity> findOlderThan(@Param("creationDate") LocalDateTime creationDate, @Param("id") Long id,
+                                   Pageable limit);
+
+    @Query(value = SELECT_SUMMARY, countQuery = "select count(b) from BlogEntity b")
+    Page<BlogSummary> findSummaries(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "where b.id in :ids")
+    List<BlogSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select coalesce(max(b.id), 0) from BlogEntity b")
+    long findMaxId();
+
+    @Query("select b from BlogEntity b where b.id > :afterId and b.id <= :toId")
+    List<BlogEntity> findByIdRange(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    /**
+     * Totals the search index compares itself against at startup. A missed create or delete
+     * changes the count and the id sum, and a missed update the version sum.
+     */
+    @Query("select count(b) as blogs, coalesce(sum(b.id), 0) as idSum, coalesce(sum(b.version), 0) as versionSum "
+            + "from BlogEntity b")
+    BlogTotals findTotals();
+
+    @Query(SELECT_SUMMARY + NEWEST_FIRST)
+    List<BlogSummary> findNewestSummaries(Pageable limit);
+
+    @Query(SELECT_SUMMARY + OLDER_THAN + NEWEST_FIRST)
+    List<BlogSummary> findSummariesOlderThan(@Param("creationDate") LocalDateTime creationDate,
+                                             @Param("id") Long id, Pageable limit);
+
+    /**
+     * Records the variants of {@code imageUrl} on the blog, unless its image has changed since or
+     * they are already recorded. Bumps the version so cached copies and ETags move on.
+     */
+    @Transactional
+    @Modifying
+    @Query("update BlogEntity b set b.imageVariants = :imageVariants, b.version = b.version + 1 "
+            + "where b.id = :id and b.imageUrl = :imageUrl and b.imageVariants is null")
+    int updateImageVariants(@Param("id") Long id, @Param("imageUrl") String imageUrl,
+                            @Param("imageVariants") String imageVariants);
+
+    interface BlogTotals {
+        Long getBlogs();
+
+        Long getIdSum();
+
+        Long getVersionSum();
+    }
 }
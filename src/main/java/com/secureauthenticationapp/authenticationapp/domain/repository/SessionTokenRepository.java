@@ -0,0 +1,30 @@
+package com.secureauthenticationapp.authenticationapp.domain.repository;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.SessionTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface SessionTokenRepository extends JpaRepository<SessionTokenEntity, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update SessionTokenEntity s set s.lastAccess = :now where s.tokenHash = :tokenHash")
+    int touch(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionTokenEntity s where s.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionTokenEntity s where s.expiresAt <= :now or s.lastAccess <= :idleBefore")
+    int deleteExpired(@Param("now") Instant now, @Param("idleBefore") Instant idleBefore);
+}
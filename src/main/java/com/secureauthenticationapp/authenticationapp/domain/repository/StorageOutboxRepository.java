@@ -0,0 +1,50 @@
+package com.secureauthenticationapp.authenticationapp.domain.repository;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.StorageOutboxEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageOutboxRepository extends JpaRepository<StorageOutboxEntity, Long> {
+
+    @Query("select o from StorageOutboxEntity o where o.nextAttemptAt <= :now order by o.nextAttemptAt")
+    List<StorageOutboxEntity> findDue(@Param("now") Instant now, Pageable limit);
+
+    /**
+     * Locks the entry for {@code objectKey} that is due last, which for a staged upload is its own.
+     * Every entry releases one reference, so any of them may be taken.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StorageOutboxEntity> findFirstByObjectKeyOrderByNextAttemptAtDesc(String objectKey);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StorageOutboxEntity> findFirstByObjectKeyAndNextAttemptAtAfter(String objectKey, Instant now);
+
+    /**
+     * Deletes the entry, returning 0 if another node already processed it.
+     */
+    @Modifying
+    @Query("delete from StorageOutboxEntity o where o.id = :id")
+    int deleteEntry(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update StorageOutboxEntity o set o.nextAttemptAt = :now where o.id = :id")
+    int makeDue(@Param("id") Long id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update StorageOutboxEntity o set o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt where o.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt);
+}
@@ -0,0 +1,44 @@
+package com.secureauthenticationapp.authenticationapp.domain.repository;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.StoredObjectEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObjectEntity, String> {
+
+    /**
+     * Adds a reference to the object, creating its row on first use. A single upsert, so
+     * concurrent first references cannot collide. A row being deleted has no references, so this
+     * revives it with one; it stays marked until the delete finishes.
+     */
+    @Modifying
+    @Query(value = "insert into stored_object (object_key, reference_count, created_at) values (:objectKey, 1, :now) "
+            + "on duplicate key update reference_count = reference_count + 1", nativeQuery = true)
+    int addReference(@Param("objectKey") String objectKey, @Param("now") Instant now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from StoredObjectEntity o where o.objectKey = :objectKey")
+    Optional<StoredObjectEntity> findForUpdate(@Param("objectKey") String objectKey);
+
+    @Query("select o.deletingSince from StoredObjectEntity o where o.objectKey = :objectKey")
+    Optional<Instant> findDeletingSince(@Param("objectKey") String objectKey);
+
+    /**
+     * Rows whose delete started before {@code before} and was never confirmed, because the node
+     * deleting them died.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from StoredObjectEntity o where o.deletingSince < :before")
+    List<StoredObjectEntity> findStaleDeletions(@Param("before") Instant before, Pageable limit);
+}
@@ -1,9 +1,17 @@
 package com.secureauthenticationapp.authenticationapp.domain.repository;
 
 import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +19,73 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByUsername(String lowerCase);
 
     Optional<UserEntity> findByEmail(String lowerCase);
+
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.password = :password where u.userId = :userId")
+    int updatePassword(@Param("userId") Long userId, @Param("password") String password);
+
+    @Query("select u.username from UserEntity u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from UserEntity u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.userId as userId, u.username as username, u.email as email from UserEntity u "
+            + "where u.userId > :afterId order by u.userId")
+    List<UserKeys> findKeysAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Clears the failed-login state after a successful login.
+     */
+    @Modifying
+    @Query("update UserEntity u set u.failedLoginAttempts = 0, u.lockTime = null where u.username in :usernames")
+    int resetLoginState(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Records failed logins without ever lowering the stored count, so a node with an older view
+     * cannot undo failures counted elsewhere.
+     */
+    @Modifying
+    @Query("update UserEntity u "
+            + "set u.failedLoginAttempts = greatest(coalesce(u.failedLoginAttempts, 0), :failedLoginAttempts) "
+            + "where u.username in :usernames")
+    int raiseFailedLoginAttempts(@Param("usernames") Collection<String> usernames,
+                                 @Param("failedLoginAttempts") int failedLoginAttempts);
+
+    /**
+     * Like {@link #raiseFailedLoginAttempts} and also locks the accounts, keeping a newer lock
+     * written by another node.
+     */
+    @Modifying
+    @Query("update UserEntity u "
+            + "set u.failedLoginAttempts = greatest(coalesce(u.failedLoginAttempts, 0), :failedLoginAttempts), "
+            + "u.lockTime = greatest(coalesce(u.lockTime, :lockTime), :lockTime) where u.username in :usernames")
+    int lockAccounts(@Param("usernames") Collection<String> usernames,
+                     @Param("failedLoginAttempts") int failedLoginAttempts,
+                     @Param("lockTime") Date lockTime);
+
+    @Query("select u.username as username, u.failedLoginAttempts as failedLoginAttempts, u.lockTime as lockTime "
+            + "from UserEntity u where u.username in :usernames")
+    List<LoginState> findLoginStates(@Param("usernames") Collection<String> usernames);
+
+    interface UserKeys {
+        Long getUserId();
+
+        String getUsername();
+
+        String getEmail();
+    }
+
+    interface LoginState {
+        String getUsername();
+
+        Integer getFailedLoginAttempts();
+
+        Date getLockTime();
+    }
 }
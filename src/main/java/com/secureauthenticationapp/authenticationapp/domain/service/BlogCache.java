@@ -0,0 +1,109 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CachedBlog;
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.utils.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of blogs by id, holding the serialized JSON rather than the entity so a hit
+ * neither reads the database nor runs the serializer, and no caller can mutate a shared instance.
+ * <p>
+ * Concurrent misses on the same id wait for a single load. Writers call
+ * {@link #invalidateAfterCommit(Long)}, which publishes the id on the
+ * {@link BlogInvalidationBroadcast} once the transaction has committed, so no instance can reload
+ * the old row in between. Invalidating an id blocks until an in-flight load of it finishes and
+ * then discards the result. Entries also expire {@code expire-after-write} after loading, which
+ * bounds staleness if a broadcast is lost.
+ */
+@Slf4j
+@Component
+public class BlogCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "blogs";
+
+    private final Function<Long, Optional<BlogEntity>> loader;
+    private final ObjectMapper objectMapper;
+    private final BlogInvalidationBroadcast broadcast;
+    private final Cache<Long, CachedBlog> cache;
+
+    @Autowired
+    public BlogCache(BlogRepository blogRepository, ObjectMapper objectMapper, BlogInvalidationBroadcast broadcast,
+                     @Value("${auth.blog.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${auth.blog.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this(blogRepository::findById, objectMapper, broadcast, maximumSize, expireAfterWrite);
+    }
+
+    public BlogCache(Function<Long, Optional<BlogEntity>> loader, ObjectMapper objectMapper,
+                     BlogInvalidationBroadcast broadcast, long maximumSize, Duration expireAfterWrite) {
+        this.loader = loader;
+        this.objectMapper = objectMapper;
+        this.broadcast = broadcast;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        broadcast.subscribe(cache::invalidate);
+    }
+
+    public Optional<CachedBlog> get(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).map(this::serialize).orElse(null)));
+    }
+
+    /**
+     * The cached entry for {@code id}, without loading it on a miss.
+     */
+    public Optional<CachedBlog> peek(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Drops {@code id} on every instance after the current transaction commits, or right away
+     * when no transaction is active.
+     */
+    public void invalidateAfterCommit(Long id) {
+        AfterCommit.run(() -> publish(id));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private void publish(Long id) {
+        try {
+            broadcast.publish(id);
+        } catch (RuntimeException e) {
+            cache.invalidate(id);
+            log.warn("Failed to broadcast invalidation of blog {}: {}", id, e.getMessage());
+        }
+    }
+
+    private CachedBlog serialize(BlogEntity blog) {
+        try {
+            return new CachedBlog(blog.getId(), blog.getVersion(), objectMapper.writeValueAsString(blog));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize blog " + blog.getId(), e);
+        }
+    }
+}
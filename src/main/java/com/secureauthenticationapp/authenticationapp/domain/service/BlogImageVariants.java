@@ -0,0 +1,390 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import com.secureauthenticationapp.authenticationapp.utils.AfterCommit;
+import com.secureauthenticationapp.authenticationapp.utils.ImageTypes;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates smaller copies of blog images for responsive pages, in the background.
+ * <p>
+ * {@link BlogService} queues an image once the write that stored it has committed. A worker reads
+ * the image's dimensions from its header, decodes it once and scales it down to each of
+ * {@code auth.images.variants.widths} narrower than the original, halving repeatedly and then
+ * interpolating to the exact width, so every variant is derived from the previous one. JPEGs are
+ * re-encoded at {@code auth.images.variants.jpeg-quality}; PNGs stay PNG to keep transparency.
+ * Variants are stored next to the original through the {@link StorageOutbox}, and recorded on the
+ * blog as an HTML {@code srcset} only if the blog still shows that image; otherwise they are
+ * discarded. Since the original is content addressed, so are its variants: an image another blog
+ * already uses is not decoded at all, and each blog holds a reference to every variant.
+ * <p>
+ * Requests for an image already waiting or being decoded join that work instead of repeating it.
+ * The pool has {@code auth.images.variants.cpu-budget} of the available processors, at least one,
+ * and a queue of {@code auth.images.variants.queue-capacity} images; images that do not fit are
+ * dropped and logged, and the page keeps using the original.
+ */
+@Slf4j
+@Component
+public class BlogImageVariants implements MeterBinder {
+
+    private final StorageService storageService;
+    private final StorageOutbox storageOutbox;
+    private final BlogRepository blogRepository;
+    private final BlogCache blogCache;
+    private final TransactionOperations transactionOperations;
+    private final int[] widths;
+    private final int threads;
+    private final int queueCapacity;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final Map<String, Job> pending = new ConcurrentHashMap<>();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    public BlogImageVariants(StorageService storageService, StorageOutbox storageOutbox, BlogRepository blogRepository,
+                             BlogCache blogCache, TransactionOperations transactionOperations,
+                             @Value("${auth.images.variants.widths:320,640,1280}") int[] widths,
+                             @Value("${auth.images.variants.cpu-budget:0.5}") double cpuBudget,
+                             @Value("${auth.images.variants.queue-capacity:200}") int queueCapacity,
+                             @Value("${auth.images.variants.jpeg-quality:0.82}") float jpegQuality,
+                             @Value("${auth.images.variants.max-pixels:50000000}") long maxPixels) {
+        this(storageService, storageOutbox, blogRepository, blogCache, transactionOperations, widths,
+                (int) (Runtime.getRuntime().availableProcessors() * cpuBudget), queueCapacity, jpegQuality, maxPixels);
+    }
+
+    public BlogImageVariants(StorageService storageService, StorageOutbox storageOutbox, BlogRepository blogRepository,
+                             BlogCache blogCache, TransactionOperations transactionOperations, int[] widths,
+                             int threads, int queueCapacity, float jpegQuality, long maxPixels) {
+        this.storageService = storageService;
+        this.storageOutbox = storageOutbox;
+        this.blogRepository = blogRepository;
+        this.blogCache = blogCache;
+        this.transactionOperations = transactionOperations;
+        this.widths = Arrays.stream(widths).filter(width -> width > 0).sorted().distinct().toArray();
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = queueCapacity;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "blog-image-variants-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues the blog's image once the current transaction has committed.
+     */
+    public void generateAfterCommit(Long blogId, String imageUrl) {
+        if (imageUrl != null && !imageUrl.isEmpty()) {
+            AfterCommit.run(() -> generate(blogId, imageUrl));
+        }
+    }
+
+    /**
+     * Queues the variants of {@code imageUrl} for the blog, joining work already queued for the
+     * same image. The returned future completes once they are recorded.
+     */
+    public CompletableFuture<Void> generate(Long blogId, String imageUrl) {
+        Job[] created = new Job[1];
+        Job job = pending.compute(imageUrl, (url, existing) -> {
+            if (existing != null && existing.add(blogId)) {
+                return existing;
+            }
+            created[0] = new Job(blogId);
+            return created[0];
+        });
+        if (created[0] != null) {
+            try {
+                executor.execute(() -> run(imageUrl, job));
+            } catch (RejectedExecutionException e) {
+                pending.remove(imageUrl, job);
+                rejected.increment();
+                log.warn("Image variant queue is full, skipping {}", imageUrl);
+                job.done.completeExceptionally(e);
+            }
+        }
+        return job.done;
+    }
+
+    /**
+     * The URLs in a {@code srcset} written by this class.
+     */
+    public static List<String> urls(String srcset) {
+        List<String> urls = new ArrayList<>();
+        if (srcset != null) {
+            for (String candidate : srcset.split(",")) {
+                String url = candidate.trim();
+                int space = url.indexOf(' ');
+                if (!url.isEmpty()) {
+                    urls.add(space > 0 ? url.substring(0, space) : url);
+                }
+            }
+        }
+        return urls;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.images.variants.generated", generated, LongAdder::sum)
+                .description("Image variants encoded and stored")
+                .register(registry);
+        FunctionCounter.builder("auth.images.variants.failed", failed, LongAdder::sum)
+                .description("Images whose variants could not be generated")
+                .register(registry);
+        FunctionCounter.builder("auth.images.variants.rejected", rejected, LongAdder::sum)
+                .description("Images skipped because the variant queue was full")
+                .register(registry);
+        Gauge.builder("auth.images.variants.queued", this, variants -> variants.executor.getQueue().size())
+                .description("Images waiting for variants")
+                .register(registry);
+    }
+
+    private void run(String imageUrl, Job job) {
+        try {
+            Rendered rendered = render(imageUrl);
+            List<Long> blogIds = job.close();
+            pending.remove(imageUrl, job);
+            record(imageUrl, rendered, blogIds);
+            job.done.complete(null);
+        } catch (Exception e) {
+            job.close();
+            pending.remove(imageUrl, job);
+            failed.increment();
+            log.warn("Could not generate variants of {}: {}", imageUrl, e.getMessage());
+            job.done.completeExceptionally(e);
+        }
+    }
+
+    private Rendered render(String imageUrl) throws IOException {
+        try (StoredObject original = storageService.openFile(imageUrl);
+             ImageInputStream input = ImageIO.createImageInputStream(original.getContent())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image of " + width + "x" + height + " is too large to decode");
+                }
+                boolean png = "png".equalsIgnoreCase(reader.getFormatName());
+                String extension = png ? "png" : "jpg";
+                Map<Integer, String> variants = new LinkedHashMap<>();
+                for (int target : widths) {
+                    if (target >= width) {
+                        break;
+                    }
+                    variants.put(target, storageService.derivedFileUrl(imageUrl, target + "w", extension));
+                }
+                List<String> staged = new ArrayList<>();
+                try {
+                    stage(reader, width, height, png, variants, staged);
+                } catch (RuntimeException e) {
+                    staged.forEach(storageOutbox::discard);
+                    throw e;
+                }
+                return new Rendered(variants, staged);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Stages every width, largest first, decoding the image the first time one is not stored yet.
+     * A large original is subsampled while decoding to no less than twice that width, which the
+     * halving steps then smooth out.
+     */
+    private void stage(ImageReader reader, int width, int height, boolean png, Map<Integer, String> variants,
+                       List<String> staged) {
+        BufferedImage[] current = new BufferedImage[1];
+        List<Integer> targets = new ArrayList<>(variants.keySet());
+        Collections.reverse(targets);
+        for (int target : targets) {
+            String url = variants.get(target);
+            storageOutbox.stageGenerated(url, png ? ImageTypes.PNG : ImageTypes.JPEG, () -> {
+                try {
+                    if (current[0] == null) {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        int subsampling = Math.max(1, width / (2 * target));
+                        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                        current[0] = reader.read(0, param);
+                    }
+                    boolean alpha = png && current[0].getColorModel().hasAlpha();
+                    current[0] = scale(current[0], target,
+                            Math.max(1, (int) Math.round((double) height * target / width)), alpha);
+                    generated.increment();
+                    return png ? writePng(current[0]) : writeJpeg(current[0]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            staged.add(url);
+        }
+    }
+
+    private void record(String imageUrl, Rendered rendered, List<Long> blogIds) {
+        StringJoiner srcset = new StringJoiner(", ");
+        rendered.variants.forEach((width, url) -> srcset.add(url + " " + width + "w"));
+        List<Long> updated = transactionOperations.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (Long id : blogIds) {
+                if (blogRepository.updateImageVariants(id, imageUrl, srcset.toString()) > 0) {
+                    blogCache.invalidateAfterCommit(id);
+                    ids.add(id);
+                }
+            }
+            for (String url : rendered.variants.values()) {
+                for (int i = 0; i < ids.size(); i++) {
+                    if (i == 0) {
+                        storageOutbox.claim(url);
+                    } else {
+                        storageOutbox.retain(url);
+                    }
+                }
+            }
+            return ids;
+        });
+        if (updated == null || updated.isEmpty()) {
+            rendered.staged.forEach(storageOutbox::discard);
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int targetWidth, int targetHeight, boolean alpha) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        while (width != targetWidth || height != targetHeight) {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private byte[] writeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] writePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private record Rendered(Map<Integer, String> variants, List<String> staged) {
+    }
+
+    /**
+     * The blogs waiting for one image. Closed once the image has been rendered; later requests
+     * start a new job, which finds the variants already stored.
+     */
+    private static final class Job {
+        private final Set<Long> blogIds = new LinkedHashSet<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private boolean closed;
+
+        Job(Long blogId) {
+            blogIds.add(blogId);
+        }
+
+        synchronized boolean add(Long blogId) {
+            if (closed) {
+                return false;
+            }
+            blogIds.add(blogId);
+            return true;
+        }
+
+        synchronized List<Long> close() {
+            closed = true;
+            return List.copyOf(blogIds);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Tells every application instance that a blog was created, changed or deleted, so each can drop
+ * its cached copy and update its search index.
+ * Implementations deliver a published id to all subscribers, including those of the publishing
+ * instance.
+ */
+public interface BlogInvalidationBroadcast {
+
+    void publish(Long blogId);
+
+    void subscribe(Consumer<Long> listener);
+}
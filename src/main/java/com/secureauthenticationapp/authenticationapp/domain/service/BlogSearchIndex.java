@@ -0,0 +1,516 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lucene full-text index over the title, intro, content and conclusion of every blog, kept under
+ * {@code auth.blog.search.index-path}.
+ * <p>
+ * Every id published on the {@link BlogInvalidationBroadcast} once a write has committed, on this
+ * instance or another, is re-read from {@link BlogRepository} and committed to disk straight away;
+ * blog writes are rare next to reads. Ids that fail to index are retried every
+ * {@code auth.blog.search.retry-interval}. Once the application has started the index is rebuilt
+ * when its document count, id sum or version sum does not match the blog table, which also catches
+ * changes missed while the instance was down, reading id ranges on
+ * {@code auth.blog.search.rebuild-threads} threads. Until the rebuild commits, searches see the
+ * previous index; changes made meanwhile are recorded and re-read from the database at the end of
+ * the rebuild. A rebuild that fails is rolled back to the previous index, so a later change never
+ * commits a partial one.
+ */
+@Slf4j
+@Component
+public class BlogSearchIndex implements MeterBinder {
+
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            "title", 3f,
+            "intro", 2f,
+            "content", 1f,
+            "conclusion", 1f);
+    private static final int REBUILD_CHUNK_IDS = 1000;
+
+    private final BlogRepository blogRepository;
+    private final Path indexPath;
+    private final int rebuildThreads;
+    private final Duration retryInterval;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    private final Object rebuildLock = new Object();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+    private final LongAdder queries = new LongAdder();
+
+    private Directory directory;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private ScheduledExecutorService rebuildExecutor;
+    private volatile boolean rebuilding;
+
+    @Autowired
+    public BlogSearchIndex(BlogRepository blogRepository,
+                           BlogInvalidationBroadcast broadcast,
+                           @Value("${auth.blog.search.index-path:data/blog-index}") String indexPath,
+                           @Value("${auth.blog.search.rebuild-threads:0}") int rebuildThreads,
+                           @Value("${auth.blog.search.retry-interval:1m}") Duration retryInterval) {
+        this(blogRepository, broadcast, Path.of(indexPath), rebuildThreads, retryInterval);
+    }
+
+    public BlogSearchIndex(BlogRepository blogRepository, BlogInvalidationBroadcast broadcast, Path indexPath,
+                           int rebuildThreads, Duration retryInterval) {
+        this.blogRepository = blogRepository;
+        this.indexPath = indexPath;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        this.retryInterval = retryInterval;
+        broadcast.subscribe(this::refresh);
+    }
+
+    public void start() throws IOException {
+        open();
+        rebuildIfStale();
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(indexPath);
+        directory = FSDirectory.open(indexPath);
+        writer = newWriter();
+        searcherManager = new SearcherManager(writer, null);
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blog-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = retryInterval.toMillis();
+        rebuildExecutor.scheduleWithFixedDelay(this::retryFailed, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rebuilds the index if it does not hold the current version of every blog. Runs once the
+     * application is ready, because querying repositories while other beans are still being
+     * created can deadlock with the lazily initialized repository metrics.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        BlogRepository.BlogTotals blogs = blogRepository.findTotals();
+        Totals expected = new Totals(blogs.getBlogs(), blogs.getIdSum(), blogs.getVersionSum());
+        Totals indexed;
+        try {
+            indexed = indexedTotals();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!indexed.equals(expected)) {
+            log.info("Blog search index holds {} for {}, rebuilding", indexed, expected);
+            rebuild();
+        }
+    }
+
+    /**
+     * Keeps the last committed index if a rebuild is still running, so the next start rebuilds
+     * again instead of serving a partial one. Threads writing to the index are never interrupted,
+     * because an interrupt during I/O closes the index files under the writer.
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdown();
+        }
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (writer != null) {
+            if (rebuilding) {
+                writer.rollback();
+            } else {
+                writer.close();
+            }
+        }
+        if (directory != null) {
+            directory.close();
+        }
+    }
+
+    /**
+     * Starts a rebuild from the database on the background thread, returning {@code false} if one
+     * is already running.
+     */
+    public boolean rebuild() {
+        synchronized (rebuildLock) {
+            if (rebuilding) {
+                return false;
+            }
+            rebuilding = true;
+        }
+        rebuildExecutor.execute(this::rebuildFromRepository);
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    /**
+     * Re-reads the blog and indexes or removes it. Subscribed to the
+     * {@link BlogInvalidationBroadcast}, so it never throws; a failure is retried later.
+     */
+    public void refresh(Long id) {
+        if (deferredByRebuild(id)) {
+            return;
+        }
+        try {
+            reindex(id);
+            commit();
+        } catch (IOException | RuntimeException e) {
+            failed.add(id);
+            log.error("Failed to index blog {}, retrying later: {}", id, e.getMessage());
+        }
+    }
+
+    public void index(BlogEntity blog) {
+        if (deferredByRebuild(blog.getId())) {
+            return;
+        }
+        try {
+            writer.updateDocument(idTerm(blog.getId()), document(blog));
+            commit();
+        } catch (IOException | RuntimeException e) {
+            failed.add(blog.getId());
+            log.error("Failed to index blog {}, retrying later: {}", blog.getId(), e.getMessage());
+        }
+    }
+
+    public void delete(Long id) {
+        if (deferredByRebuild(id)) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(idTerm(id));
+            commit();
+        } catch (IOException | RuntimeException e) {
+            failed.add(id);
+            log.error("Failed to remove blog {} from the search index, retrying later: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads every blog that failed to index since the last successful retry or rebuild. Left to
+     * a running rebuild, which reads them anyway.
+     */
+    public void retryFailed() {
+        if (failed.isEmpty() || rebuilding) {
+            return;
+        }
+        List<Long> ids = List.copyOf(failed);
+        ids.forEach(failed::remove);
+        try {
+            for (Long id : ids) {
+                reindex(id);
+            }
+            commit();
+            log.info("Indexed {} blogs that failed to index earlier", ids.size());
+        } catch (IOException | RuntimeException e) {
+            failed.addAll(ids);
+            log.error("Failed to retry indexing {} blogs: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Blog ids matching {@code text}, best first. Terms are ANDed; the query accepts quoted
+     * phrases, {@code -term}, {@code |} and {@code prefix*}, and never fails to parse. Title
+     * matches weigh three times and intro matches twice as much as body matches.
+     */
+    public SearchHits search(String text, long offset, int limit) {
+        if (offset + limit > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search results are limited to the first " + MAX_RESULT_WINDOW + " hits");
+        }
+        queries.increment();
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(text);
+        int window = (int) offset + limit;
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query,
+                        TopScoreDocCollector.createSharedManager(window, null, MAX_RESULT_WINDOW));
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(limit);
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = (int) offset; i < scoreDocs.length; i++) {
+                    ids.add(Long.parseLong(storedFields.document(scoreDocs[i].doc, Set.of(ID)).get(ID)));
+                }
+                return new SearchHits(ids, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search blogs", e);
+        }
+    }
+
+    public int documentCount() {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.blog.search.documents", this, BlogSearchIndex::documentCount)
+                .description("Blogs visible to search")
+                .register(registry);
+        FunctionCounter.builder("auth.blog.search.queries", queries, LongAdder::sum)
+                .description("Blog search queries")
+                .register(registry);
+    }
+
+    private void rebuildFromRepository() {
+        long startedAt = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(rebuildThreads, runnable -> {
+            Thread thread = new Thread(runnable, "blog-search-indexer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Workers still running after a failure must hit the rolled back writer, not its replacement.
+        IndexWriter rebuildWriter = writer;
+        Set<Long> coveredFailures = Set.copyOf(failed);
+        List<Future<Integer>> chunks = new ArrayList<>();
+        try {
+            rebuildWriter.deleteAll();
+            long maxId = blogRepository.findMaxId();
+            for (long afterId = 0; afterId < maxId; afterId += REBUILD_CHUNK_IDS) {
+                long from = afterId;
+                long to = Math.min(maxId, afterId + REBUILD_CHUNK_IDS);
+                chunks.add(workers.submit(() -> indexRange(rebuildWriter, from, to)));
+            }
+            long indexed = 0;
+            for (Future<Integer> chunk : chunks) {
+                indexed += chunk.get();
+            }
+            reindexChanged();
+            synchronized (rebuildLock) {
+                reindexChanged();
+                commit();
+                failed.removeAll(coveredFailures);
+                rebuilding = false;
+            }
+            log.info("Rebuilt blog search index with {} blogs in {} ms", indexed,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (AlreadyClosedException e) {
+            log.info("Blog search index closed during rebuild");
+        } catch (Exception e) {
+            log.error("Failed to rebuild blog search index: {}", e.getMessage(), e);
+            chunks.forEach(chunk -> chunk.cancel(false));
+            synchronized (rebuildLock) {
+                discardRebuild();
+                rebuilding = false;
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Rolls the writer back to the last commit, dropping the cleared index and the documents the
+     * failed rebuild added, and reopens it. Changes recorded during the rebuild were never applied
+     * and are handed to the retry.
+     */
+    private void discardRebuild() {
+        int deferred = changedDuringRebuild.size();
+        failed.addAll(changedDuringRebuild);
+        changedDuringRebuild.clear();
+        SearcherManager previous = searcherManager;
+        try {
+            writer.rollback();
+            writer = newWriter();
+            searcherManager = new SearcherManager(writer, null);
+            previous.close();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reopen blog search index after a failed rebuild: {}", e.getMessage(), e);
+            return;
+        }
+        log.warn("Blog search index rolled back to its last commit, {} changes made during the rebuild will be retried",
+                deferred);
+    }
+
+    private IndexWriter newWriter() throws IOException {
+        return new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+    }
+
+    private boolean deferredByRebuild(Long id) {
+        synchronized (rebuildLock) {
+            if (rebuilding) {
+                changedDuringRebuild.add(id);
+            }
+            return rebuilding;
+        }
+    }
+
+    private int indexRange(IndexWriter target, long afterId, long toId) throws IOException {
+        List<BlogEntity> blogs = blogRepository.findByIdRange(afterId, toId);
+        for (BlogEntity blog : blogs) {
+            target.addDocument(document(blog));
+        }
+        return blogs.size();
+    }
+
+    private void reindexChanged() throws IOException {
+        for (Long id : List.copyOf(changedDuringRebuild)) {
+            changedDuringRebuild.remove(id);
+            reindex(id);
+        }
+    }
+
+    private void reindex(Long id) throws IOException {
+        Optional<BlogEntity> blog = blogRepository.findById(id);
+        if (blog.isPresent()) {
+            writer.updateDocument(idTerm(id), document(blog.get()));
+        } else {
+            writer.deleteDocuments(idTerm(id));
+        }
+    }
+
+    /**
+     * Totals over the live documents of the last commit, read from doc values. An index written
+     * before versions were recorded sums to zero and is rebuilt.
+     */
+    private Totals indexedTotals() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            long documents = 0;
+            long idSum = 0;
+            long versionSum = 0;
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                LeafReader reader = leaf.reader();
+                documents += reader.numDocs();
+                idSum += sum(reader.getNumericDocValues(ID), reader.getLiveDocs());
+                versionSum += sum(reader.getNumericDocValues(VERSION), reader.getLiveDocs());
+            }
+            return new Totals(documents, idSum, versionSum);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static long sum(NumericDocValues values, Bits liveDocs) throws IOException {
+        if (values == null) {
+            return 0;
+        }
+        long sum = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                sum += values.longValue();
+            }
+        }
+        return sum;
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, id.toString());
+    }
+
+    private static Document document(BlogEntity blog) {
+        Document document = new Document();
+        document.add(new StringField(ID, blog.getId().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID, blog.getId()));
+        document.add(new NumericDocValuesField(VERSION, blog.getVersion()));
+        addText(document, "title", blog.getTitle());
+        addText(document, "intro", blog.getIntro());
+        addText(document, "content", blog.getContent());
+        addText(document, "conclusion", blog.getConclusion());
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * One page of ranked blog ids. {@code totalHits} is exact up to {@link #MAX_RESULT_WINDOW}
+     * and a lower bound beyond it.
+     */
+    public record SearchHits(List<Long> ids, long totalHits) {
+    }
+
+    private record Totals(long documents, long idSum, long versionSum) {
+    }
+}
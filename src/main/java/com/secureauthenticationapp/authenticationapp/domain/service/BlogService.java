@@ -1,19 +1,35 @@
 package com.secureauthenticationapp.authenticationapp.domain.service;
 
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CachedBlog;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CursorPage;
 import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
 import com.secureauthenticationapp.authenticationapp.domain.exception.BlogNotFoundException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.BlogOperationException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.BlogVersionConflictException;
 import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.utils.EntityTags;
+import com.secureauthenticationapp.authenticationapp.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @Slf4j
@@ -21,46 +37,113 @@ import java.util.Optional;
 public class BlogService {
 
     private final BlogRepository blogRepository;
-    private final StorageService storageService;
+    private final BlogCache blogCache;
+    private final BlogSearchIndex blogSearchIndex;
+    private final StorageOutbox storageOutbox;
+    private final BlogImageVariants blogImageVariants;
+    private final TransactionOperations transactionOperations;
 
-    @Transactional
+    /**
+     * Uploads the image before the transaction starts, so no connection is held during the
+     * upload, and saves the blog in a short transaction that also claims the image from the
+     * {@link StorageOutbox}. An image whose blog never commits is deleted by the outbox. Once it
+     * commits, the image's {@link BlogImageVariants} are generated in the background.
+     */
     public BlogEntity createBlog(BlogEntity blogEntity, MultipartFile imageFile) {
-        try {
-            if (imageFile != null && !imageFile.isEmpty()) {
-                String imageUrl = storageService.uploadFile(imageFile);
-                blogEntity.setImageUrl(imageUrl);
-            }
-        } catch (Exception e) {
-            log.error("Failed to upload image file: {}", e.getMessage());
-            throw new BlogOperationException("Failed to upload image file: " + e.getMessage());
+        String imageUrl = stageImage(imageFile);
+        if (imageUrl != null) {
+            blogEntity.setImageUrl(imageUrl);
         }
-
+        blogEntity.setImageVariants(null);
         blogEntity.setCreationDate(LocalDateTime.now());
-        return blogRepository.save(blogEntity);
+        try {
+            return transactionOperations.execute(status -> {
+                if (imageUrl != null) {
+                    storageOutbox.claim(imageUrl);
+                }
+                BlogEntity saved = blogRepository.save(blogEntity);
+                blogCache.invalidateAfterCommit(saved.getId());
+                blogImageVariants.generateAfterCommit(saved.getId(), imageUrl);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            discardImage(imageUrl);
+            throw e;
+        }
     }
 
-    @Transactional
     public BlogEntity updateBlog(Long id, BlogEntity updatedBlogEntity, MultipartFile imageFile) {
+        return updateBlog(id, updatedBlogEntity, imageFile, null);
+    }
+
+    /**
+     * Updates the blog if {@code ifMatch} is absent or matches its current ETag. A concurrent
+     * update that commits first still fails this one through the version column.
+     * <p>
+     * Like {@link #createBlog(BlogEntity, MultipartFile)}, a new image is uploaded before the
+     * transaction, unless the same image is already stored. The image it replaces, and its
+     * variants, are released on the {@link StorageOutbox} in the same transaction and deleted once
+     * the update has committed, if no other blog uses them.
+     */
+    public BlogEntity updateBlog(Long id, BlogEntity updatedBlogEntity, MultipartFile imageFile, String ifMatch) {
+        String imageUrl = stageImage(imageFile);
         try {
-            return blogRepository.findById(id)
+            return transactionOperations.execute(status -> blogRepository.findById(id)
                     .map(blog -> {
-                        if (imageFile != null && !imageFile.isEmpty()) {
-                            String imageUrl = storageService.uploadFile(imageFile);
-                            blog.setImageUrl(imageUrl);
-                        }
+                        checkIfMatch(blog, ifMatch);
+                        boolean newImage = imageUrl != null && swapImage(blog, imageUrl);
                         blog.setTitle(updatedBlogEntity.getTitle());
                         blog.setIntro(updatedBlogEntity.getIntro());
                         blog.setContent(updatedBlogEntity.getContent());
                         blog.setConclusion(updatedBlogEntity.getConclusion());
-                        return blogRepository.save(blog);
+                        blogCache.invalidateAfterCommit(id);
+                        BlogEntity saved = blogRepository.save(blog);
+                        if (newImage) {
+                            blogImageVariants.generateAfterCommit(id, imageUrl);
+                        }
+                        return saved;
                     })
-                    .orElseThrow(() -> new RuntimeException("Blog not found with id " + id));
+                    .orElseThrow(() -> new RuntimeException("Blog not found with id " + id)));
+        } catch (BlogVersionConflictException | OptimisticLockingFailureException e) {
+            discardImage(imageUrl);
+            throw e;
         } catch (Exception e) {
+            discardImage(imageUrl);
             log.error("Failed to update blog: {}", e.getMessage());
             throw new BlogOperationException("Failed to update blog: " + e.getMessage());
         }
     }
 
+    /**
+     * Replaces the blog's image with one streamed from {@code in}, for images too large to buffer
+     * as a multipart form. The version is checked before anything is uploaded and again in the
+     * short transaction that stores the new URL, which, as in
+     * {@link #updateBlog(Long, BlogEntity, MultipartFile, String)}, runs after the upload.
+     */
+    public BlogEntity replaceBlogImage(Long id, InputStream in, String contentType, String fileName, String ifMatch) {
+        Long version = getBlogVersion(id)
+                .orElseThrow(() -> new BlogNotFoundException("Blog not found with id " + id));
+        if (!EntityTags.ifMatch(ifMatch, EntityTags.strong(id, version))) {
+            throw new BlogVersionConflictException("Blog " + id + " was modified since it was read");
+        }
+        String imageUrl = storageOutbox.stageUpload(in, contentType, fileName);
+        try {
+            return transactionOperations.execute(status -> {
+                BlogEntity blog = blogRepository.findById(id)
+                        .orElseThrow(() -> new BlogNotFoundException("Blog not found with id " + id));
+                checkIfMatch(blog, ifMatch);
+                if (swapImage(blog, imageUrl)) {
+                    blogImageVariants.generateAfterCommit(id, imageUrl);
+                }
+                blogCache.invalidateAfterCommit(id);
+                return blogRepository.save(blog);
+            });
+        } catch (RuntimeException e) {
+            discardImage(imageUrl);
+            throw e;
+        }
+    }
+
     public Optional<BlogEntity> getBlogById(Long id) {
         try {
             return blogRepository.findById(id);
@@ -70,6 +153,30 @@ public class BlogService {
         }
     }
 
+    /**
+     * The blog's current version, from the cache when present and otherwise from the version
+     * column alone, so a revalidation never loads the content.
+     */
+    public Optional<Long> getBlogVersion(Long id) {
+        Optional<CachedBlog> cached = blogCache.peek(id);
+        if (cached.isPresent()) {
+            return Optional.of(cached.get().getVersion());
+        }
+        return blogRepository.findVersionById(id);
+    }
+
+    /**
+     * The blog as JSON from {@link BlogCache}, loading it on a miss.
+     */
+    public Optional<CachedBlog> getCachedBlog(Long id) {
+        try {
+            return blogCache.get(id);
+        } catch (Exception e) {
+            log.error("Failed to retrieve blog: {}", e.getMessage());
+            throw new BlogNotFoundException("Failed to retrieve blog: " + e.getMessage());
+        }
+    }
+
     public Page<BlogEntity> getAllBlogs(Pageable pageable) {
         try {
             return blogRepository.findAll(pageable);
@@ -79,21 +186,146 @@ public class BlogService {
         }
     }
 
+    /**
+     * Like {@link #getAllBlogs(Pageable)} but selects only the {@link BlogSummary} columns.
+     */
+    public Page<BlogSummary> getBlogSummaries(Pageable pageable) {
+        try {
+            return blogRepository.findSummaries(pageable);
+        } catch (Exception e) {
+            log.error("Failed to retrieve blogs: {}", e.getMessage());
+            throw new BlogNotFoundException("Failed to retrieve blogs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Blogs matching {@code query}, best match first, as summaries. Ranking comes from
+     * {@link BlogSearchIndex}; the rows are then read by id in one query.
+     */
+    public Page<BlogSummary> searchBlogs(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        BlogSearchIndex.SearchHits hits = blogSearchIndex.search(query, pageable.getOffset(), pageable.getPageSize());
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.totalHits());
+        }
+        Map<Long, BlogSummary> blogs = new HashMap<>();
+        for (BlogSummary blog : blogRepository.findSummariesByIdIn(hits.ids())) {
+            blogs.put(blog.getId(), blog);
+        }
+        List<BlogSummary> ranked = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            BlogSummary blog = blogs.get(id);
+            if (blog != null) {
+                ranked.add(blog);
+            }
+        }
+        return new PageImpl<>(ranked, pageable, hits.totalHits());
+    }
+
+    /**
+     * Newest blogs first, continuing after {@code cursor} when given. Seeks on
+     * {@code (creationDate, id)} and fetches one extra row to tell whether another page follows, so
+     * no count query runs and the cost does not grow with the depth of the page.
+     */
+    public CursorPage<BlogEntity> getBlogsAfter(String cursor, int size) {
+        return keysetPage(cursor, size, blogRepository::findNewest, blogRepository::findOlderThan,
+                blog -> KeysetCursor.encode(blog.getCreationDate(), blog.getId()));
+    }
+
+    /**
+     * Like {@link #getBlogsAfter(String, int)} but selects only the {@link BlogSummary} columns.
+     */
+    public CursorPage<BlogSummary> getBlogSummariesAfter(String cursor, int size) {
+        return keysetPage(cursor, size, blogRepository::findNewestSummaries, blogRepository::findSummariesOlderThan,
+                blog -> KeysetCursor.encode(blog.getCreationDate(), blog.getId()));
+    }
+
+    private <T> CursorPage<T> keysetPage(String cursor, int size, Function<Pageable, List<T>> newest,
+                                         OlderThanQuery<T> olderThan, Function<T, String> cursorOf) {
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<T> blogs;
+        if (cursor == null || cursor.isEmpty()) {
+            blogs = newest.apply(limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            blogs = olderThan.find(position.getTimestamp(), position.getId(), limit);
+        }
+        if (blogs.size() <= size) {
+            return new CursorPage<>(blogs, null);
+        }
+        List<T> page = blogs.subList(0, size);
+        return new CursorPage<>(page, cursorOf.apply(page.get(size - 1)));
+    }
+
     @Transactional
     public void deleteBlog(Long id) {
+        deleteBlog(id, null);
+    }
+
+    /**
+     * Deletes the blog and releases its image and variants on the {@link StorageOutbox} in the
+     * same transaction, so the objects are deleted in the background once no blog uses them.
+     */
+    @Transactional
+    public void deleteBlog(Long id, String ifMatch) {
         BlogEntity blog = blogRepository.findById(id)
                 .orElseThrow(() -> new BlogOperationException("Blog not found with id " + id));
+        checkIfMatch(blog, ifMatch);
+        if (blog.getImageUrl() != null && !blog.getImageUrl().isEmpty()) {
+            storageOutbox.deleteLater(blog.getImageUrl());
+        }
+        BlogImageVariants.urls(blog.getImageVariants()).forEach(storageOutbox::deleteLater);
+        blogRepository.deleteById(id);
+        blogCache.invalidateAfterCommit(id);
+        log.info("Blog with id: {} deleted, image queued for deletion", id);
+    }
+
+    private String stageImage(MultipartFile imageFile) {
+        if (imageFile == null || imageFile.isEmpty()) {
+            return null;
+        }
         try {
-            if (blog.getImageUrl() != null && !blog.getImageUrl().isEmpty()) {
-                storageService.deleteFile(blog.getImageUrl());
-            }
+            return storageOutbox.stageUpload(imageFile);
         } catch (Exception e) {
-            log.error("Failed to delete image file: {}", e.getMessage());
-            throw new BlogOperationException("Failed to delete image file: " + e.getMessage());
+            log.error("Failed to upload image file: {}", e.getMessage());
+            throw new BlogOperationException("Failed to upload image file: " + e.getMessage());
         }
-        blogRepository.deleteById(id);
-        log.info("Blog with id: {} and associated image deleted successfully", id);
     }
 
-}
+    /**
+     * Claims the staged image for the blog and releases the one it replaces, returning whether
+     * the image changed. Re-uploading the same image keeps its variants.
+     */
+    private boolean swapImage(BlogEntity blog, String imageUrl) {
+        storageOutbox.claim(imageUrl);
+        if (blog.getImageUrl() != null && !blog.getImageUrl().isEmpty()) {
+            storageOutbox.deleteLater(blog.getImageUrl());
+        }
+        if (imageUrl.equals(blog.getImageUrl())) {
+            return false;
+        }
+        BlogImageVariants.urls(blog.getImageVariants()).forEach(storageOutbox::deleteLater);
+        blog.setImageUrl(imageUrl);
+        blog.setImageVariants(null);
+        return true;
+    }
 
+    private void discardImage(String imageUrl) {
+        if (imageUrl != null) {
+            storageOutbox.discard(imageUrl);
+        }
+    }
+
+    private static void checkIfMatch(BlogEntity blog, String ifMatch) {
+        if (!EntityTags.ifMatch(ifMatch, EntityTags.strong(blog.getId(), blog.getVersion()))) {
+            throw new BlogVersionConflictException("Blog " + blog.getId() + " was modified since it was read");
+        }
+    }
+
+    @FunctionalInterface
+    private interface OlderThanQuery<T> {
+        List<T> find(LocalDateTime creationDate, Long id, Pageable limit);
+    }
+}
@@ -0,0 +1,32 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations to subscribers in this JVM only. Enough for a single instance and for
+ * tests that put several caches on one broadcast; deployments with more instances need an
+ * implementation backed by a shared channel.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.blog.cache.broadcast", havingValue = "local", matchIfMissing = true)
+public class LocalBlogInvalidationBroadcast implements BlogInvalidationBroadcast {
+
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long blogId) {
+        for (Consumer<Long> listener : listeners) {
+            listener.accept(blogId);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+}
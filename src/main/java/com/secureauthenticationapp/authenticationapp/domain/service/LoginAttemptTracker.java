@@ -0,0 +1,358 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Failed-login counters and account locks kept in memory and written behind to {@link UserRepository}.
+ * <p>
+ * State lives in striped hash maps, so concurrent attempts for different users rarely share a lock,
+ * and a locked account can be rejected before the user row is read or a password is hashed. The
+ * first attempt for a user seeds the entry from its row. Changes only mark an entry dirty, and a
+ * background task writes all dirty entries in one transaction, with one update statement per
+ * distinct state rather than one per attempt. A successful login for a user with a clean record
+ * writes nothing at all. Entries are keyed by the same normalized username as
+ * {@link UserCredentialCache}.
+ * <p>
+ * Several nodes may track the same user. Failures are written monotonically, so the stored count
+ * never drops and a stored lock is never replaced by an older one or cleared, except by a
+ * successful login. After writing, the flush reads the rows back and adopts locks and counts
+ * written by other nodes, as does seeding from a row that shows a newer lock. Entries with nothing
+ * left to write are dropped once idle for the lock duration.
+ */
+@Slf4j
+@Component
+public class LoginAttemptTracker implements MeterBinder {
+
+    private static final int STRIPE_COUNT = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    private final UserRepository userRepository;
+    private final UserCredentialCache userCredentialCache;
+    private final TransactionOperations transactionOperations;
+    private final int maxFailedAttempts;
+    private final long lockDurationMillis;
+    private final Duration flushInterval;
+    private final Clock clock;
+    private final LongAdder flushedRows = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public LoginAttemptTracker(UserRepository userRepository,
+                               UserCredentialCache userCredentialCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${auth.login.max-failed-attempts:5}") int maxFailedAttempts,
+                               @Value("${auth.login.lock-duration:30m}") Duration lockDuration,
+                               @Value("${auth.login.flush-interval:1s}") Duration flushInterval) {
+        this(userRepository, userCredentialCache, new TransactionTemplate(transactionManager), maxFailedAttempts, lockDuration,
+                flushInterval, Clock.systemUTC());
+    }
+
+    public LoginAttemptTracker(UserRepository userRepository, UserCredentialCache userCredentialCache,
+                               TransactionOperations transactionOperations, int maxFailedAttempts,
+                               Duration lockDuration, Duration flushInterval, Clock clock) {
+        this.userRepository = userRepository;
+        this.userCredentialCache = userCredentialCache;
+        this.transactionOperations = transactionOperations;
+        this.maxFailedAttempts = maxFailedAttempts;
+        this.lockDurationMillis = lockDuration.toMillis();
+        this.flushInterval = flushInterval;
+        this.clock = clock;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-attempt-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * Answers from memory only, so it can run before the user row is loaded. Returns {@code false}
+     * for users this node has not seen yet.
+     */
+    public boolean isLocked(String userName) {
+        String username = UserCredentialCache.normalize(userName);
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            return attempts != null && isLocked(attempts);
+        }
+    }
+
+    /**
+     * Seeds the entry from the persisted row unless this node already tracks the user, and returns
+     * whether the account is locked.
+     */
+    public boolean isLocked(String userName, int persistedFailedAttempts, Date persistedLockTime) {
+        String username = UserCredentialCache.normalize(userName);
+        long persistedLockedAt = persistedLockTime == null ? 0 : persistedLockTime.getTime();
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            if (attempts == null) {
+                attempts = new Attempts(persistedFailedAttempts, persistedLockedAt);
+                stripe.entries.put(username, attempts);
+            } else {
+                adoptLock(attempts, persistedFailedAttempts, persistedLockedAt);
+            }
+            attempts.lastSeenMillis = clock.millis();
+            return isLocked(attempts);
+        }
+    }
+
+    /**
+     * Counts a failed password and returns {@code true} if this attempt locked the account.
+     */
+    public boolean recordFailure(String userName) {
+        String username = UserCredentialCache.normalize(userName);
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.computeIfAbsent(username, key -> new Attempts(0, 0));
+            attempts.failedAttempts++;
+            attempts.dirty = true;
+            attempts.lastSeenMillis = clock.millis();
+            if (attempts.failedAttempts >= maxFailedAttempts) {
+                attempts.lockedAtMillis = clock.millis();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public void recordSuccess(String userName) {
+        String username = UserCredentialCache.normalize(userName);
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            if (attempts == null || (attempts.failedAttempts == 0 && attempts.lockedAtMillis == 0)) {
+                return;
+            }
+            attempts.failedAttempts = 0;
+            attempts.lockedAtMillis = 0;
+            attempts.resetAtMillis = clock.millis();
+            attempts.resetPending = true;
+            attempts.dirty = true;
+            attempts.lastSeenMillis = attempts.resetAtMillis;
+        }
+    }
+
+    public int getFailedAttempts(String userName) {
+        String username = UserCredentialCache.normalize(userName);
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            return attempts == null ? 0 : attempts.failedAttempts;
+        }
+    }
+
+    /**
+     * Writes every dirty entry in one transaction, grouping users that share the same state into a
+     * single update, and then reads their rows back to pick up what other nodes wrote. Resets from
+     * successful logins are written first, so failures counted after them are kept. Clean entries
+     * that are not locked and have been idle for the lock duration, or have nothing to remember,
+     * are dropped on the way. Written users are evicted from {@link UserCredentialCache}, so a
+     * dropped entry is re-seeded from the new row.
+     */
+    public void flush() {
+        List<String> resets = new ArrayList<>();
+        Map<PendingState, List<String>> pending = new HashMap<>();
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Map.Entry<String, Attempts>> iterator = stripe.entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Attempts> entry = iterator.next();
+                    Attempts attempts = entry.getValue();
+                    if (attempts.dirty) {
+                        attempts.dirty = false;
+                        if (attempts.resetPending) {
+                            attempts.resetPending = false;
+                            resets.add(entry.getKey());
+                        }
+                        if (attempts.failedAttempts > 0) {
+                            pending.computeIfAbsent(new PendingState(attempts.failedAttempts, attempts.lockedAtMillis),
+                                    key -> new ArrayList<>()).add(entry.getKey());
+                        }
+                    } else if (!isLocked(attempts) && (attempts.failedAttempts == 0
+                            || now - attempts.lastSeenMillis >= lockDurationMillis)) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        if (resets.isEmpty() && pending.isEmpty()) {
+            return;
+        }
+        List<String> written = new ArrayList<>(resets);
+        pending.values().forEach(written::addAll);
+        List<UserRepository.LoginState> rows;
+        try {
+            rows = transactionOperations.execute(status -> {
+                if (!resets.isEmpty()) {
+                    userRepository.resetLoginState(resets);
+                }
+                pending.forEach((state, usernames) -> {
+                    if (state.lockedAtMillis() == 0) {
+                        userRepository.raiseFailedLoginAttempts(usernames, state.failedAttempts());
+                    } else {
+                        userRepository.lockAccounts(usernames, state.failedAttempts(),
+                                new Date(state.lockedAtMillis()));
+                    }
+                });
+                return pending.isEmpty() ? List.of() : userRepository.findLoginStates(
+                        pending.values().stream().flatMap(List::stream).distinct().toList());
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to flush login attempts, retrying on the next run: {}", e.getMessage());
+            resets.forEach(this::markResetPending);
+            written.forEach(this::markDirty);
+            return;
+        }
+        flushedRows.add(written.size());
+        userCredentialCache.invalidateAll(written);
+        if (rows != null) {
+            rows.forEach(this::adoptStoredState);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.login.tracked", this, LoginAttemptTracker::size)
+                .description("Users with in-memory failed-login state")
+                .register(registry);
+        FunctionCounter.builder("auth.login.flushed", flushedRows, LongAdder::sum)
+                .description("User rows written by the failed-login flush")
+                .register(registry);
+    }
+
+    private boolean isLocked(Attempts attempts) {
+        return attempts.lockedAtMillis != 0 && clock.millis() - attempts.lockedAtMillis < lockDurationMillis;
+    }
+
+    /**
+     * Takes over the state read back from a row this node just wrote, which includes failures and
+     * locks written by other nodes. Entries changed since the flush took its snapshot are left for
+     * the next flush.
+     */
+    private void adoptStoredState(UserRepository.LoginState row) {
+        String username = UserCredentialCache.normalize(row.getUsername());
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            if (attempts == null || attempts.dirty) {
+                return;
+            }
+            int failedAttempts = row.getFailedLoginAttempts() == null ? 0 : row.getFailedLoginAttempts();
+            adoptLock(attempts, failedAttempts, row.getLockTime() == null ? 0 : row.getLockTime().getTime());
+            attempts.failedAttempts = Math.max(attempts.failedAttempts, failedAttempts);
+        }
+    }
+
+    /**
+     * Adopts a lock another node stored after this node last saw the account locked or logged in.
+     */
+    private static void adoptLock(Attempts attempts, int persistedFailedAttempts, long persistedLockedAt) {
+        if (persistedLockedAt > attempts.lockedAtMillis && persistedLockedAt > attempts.resetAtMillis) {
+            attempts.lockedAtMillis = persistedLockedAt;
+            attempts.failedAttempts = Math.max(attempts.failedAttempts, persistedFailedAttempts);
+        }
+    }
+
+    private void markResetPending(String username) {
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            if (attempts != null) {
+                attempts.resetPending = true;
+            }
+        }
+    }
+
+    private void markDirty(String username) {
+        Stripe stripe = stripeFor(username);
+        synchronized (stripe) {
+            Attempts attempts = stripe.entries.get(username);
+            if (attempts != null) {
+                attempts.dirty = true;
+            }
+        }
+    }
+
+    private Stripe stripeFor(String username) {
+        int hash = username.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    private static final class Stripe {
+        private final Map<String, Attempts> entries = new HashMap<>();
+    }
+
+    private static final class Attempts {
+        private int failedAttempts;
+        private long lockedAtMillis;
+        private long resetAtMillis;
+        private long lastSeenMillis;
+        private boolean resetPending;
+        private boolean dirty;
+
+        private Attempts(int failedAttempts, long lockedAtMillis) {
+            this.failedAttempts = failedAttempts;
+            this.lockedAtMillis = lockedAtMillis;
+        }
+    }
+
+    private record PendingState(int failedAttempts, long lockedAtMillis) {
+    }
+}
@@ -0,0 +1,327 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.StorageBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams an object of unknown length to S3 without holding it in memory or spooling it to disk.
+ * <p>
+ * The stream is read into part-sized buffers. An object that fits in one buffer is sent with a
+ * single put; anything larger becomes a multipart upload whose parts are sent on a shared pool
+ * while the next part is read, at most {@code parts-per-upload} at a time per upload. Buffers come
+ * from a pool of {@code max-buffers} shared by all uploads, so heap use is bounded by
+ * {@code max-buffers * part-size} however many uploads run at once. An upload that cannot get a
+ * buffer within {@code buffer-wait} fails with {@link StorageBusyException}. Any failure aborts
+ * the multipart upload so no parts are left behind.
+ */
+@Slf4j
+@Component
+public class S3StreamingUploader implements MeterBinder {
+
+    /**
+     * S3 rejects multipart parts other than the last that are smaller than this.
+     */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final int partSize;
+    private final int partsPerUpload;
+    private final long maxObjectSize;
+    private final Duration bufferWait;
+    private final Semaphore buffers;
+    private final int maxBuffers;
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder abortedUploads = new LongAdder();
+    private final LongAdder rejectedUploads = new LongAdder();
+
+    @Autowired
+    public S3StreamingUploader(@Value("${auth.storage.upload.part-size:5MB}") DataSize partSize,
+                               @Value("${auth.storage.upload.max-buffers:16}") int maxBuffers,
+                               @Value("${auth.storage.upload.parts-per-upload:4}") int partsPerUpload,
+                               @Value("${auth.storage.upload.threads:8}") int threads,
+                               @Value("${auth.storage.upload.max-size:50MB}") DataSize maxObjectSize,
+                               @Value("${auth.storage.upload.buffer-wait:10s}") Duration bufferWait) {
+        this(checkedPartSize(partSize), maxBuffers, partsPerUpload, threads, maxObjectSize.toBytes(), bufferWait);
+    }
+
+    public S3StreamingUploader(int partSize, int maxBuffers, int partsPerUpload, int threads, long maxObjectSize,
+                               Duration bufferWait) {
+        this.partSize = partSize;
+        this.maxBuffers = maxBuffers;
+        this.partsPerUpload = partsPerUpload;
+        this.maxObjectSize = maxObjectSize;
+        this.bufferWait = bufferWait;
+        this.buffers = new Semaphore(maxBuffers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "s3-upload-part-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Uploads everything {@code in} yields to {@code bucket/key} and returns the number of bytes
+     * stored. Reads the stream exactly once and does not close it.
+     */
+    public long upload(AmazonS3 s3Client, String bucket, String key, InputStream in, String contentType) {
+        byte[] first = acquireBuffer();
+        int length;
+        try {
+            length = readFully(in, first);
+        } catch (IOException | RuntimeException e) {
+            releaseBuffer(first);
+            throw uploadFailed(e);
+        }
+        if (length < partSize) {
+            try {
+                checkSize(length);
+                ObjectMetadata metadata = metadata(contentType);
+                metadata.setContentLength(length);
+                s3Client.putObject(new PutObjectRequest(bucket, key, new ByteArrayInputStream(first, 0, length), metadata));
+                uploadedBytes.add(length);
+                return length;
+            } finally {
+                releaseBuffer(first);
+            }
+        }
+        return uploadParts(s3Client, bucket, key, in, contentType, first);
+    }
+
+    public int getBuffersInUse() {
+        return maxBuffers - buffers.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.storage.upload.buffers.in-use", this, S3StreamingUploader::getBuffersInUse)
+                .description("Upload part buffers currently held")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.upload.bytes", uploadedBytes, LongAdder::sum)
+                .description("Bytes streamed to object storage")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.upload.aborted", abortedUploads, LongAdder::sum)
+                .description("Multipart uploads aborted after a failure")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.upload.rejected", rejectedUploads, LongAdder::sum)
+                .description("Uploads turned away because no buffer was free")
+                .register(registry);
+    }
+
+    private long uploadParts(AmazonS3 s3Client, String bucket, String key, InputStream in, String contentType,
+                             byte[] first) {
+        String uploadId;
+        try {
+            uploadId = s3Client.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucket, key, metadata(contentType))).getUploadId();
+        } catch (RuntimeException e) {
+            releaseBuffer(first);
+            throw uploadFailed(e);
+        }
+        Semaphore inFlight = new Semaphore(partsPerUpload);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<PartETag>> parts = new ArrayList<>();
+        byte[] buffer = first;
+        int length = partSize;
+        long total = 0;
+        try {
+            while (true) {
+                total += length;
+                checkSize(total);
+                inFlight.acquire();
+                byte[] part = buffer;
+                buffer = null;
+                parts.add(submitPart(s3Client, bucket, key, uploadId, parts.size() + 1, part, length, inFlight, failed));
+                if (length < partSize) {
+                    break;
+                }
+                buffer = acquireBuffer();
+                length = readFully(in, buffer);
+                if (length == 0) {
+                    break;
+                }
+            }
+            List<PartETag> etags = new ArrayList<>(parts.size());
+            for (Future<PartETag> part : parts) {
+                etags.add(part.get());
+            }
+            s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, etags));
+            uploadedBytes.add(total);
+            return total;
+        } catch (Exception e) {
+            failed.set(true);
+            awaitQuietly(parts);
+            abort(s3Client, bucket, key, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw uploadFailed(e instanceof ExecutionException ? e.getCause() : e);
+        } finally {
+            if (buffer != null) {
+                releaseBuffer(buffer);
+            }
+        }
+    }
+
+    private Future<PartETag> submitPart(AmazonS3 s3Client, String bucket, String key, String uploadId, int partNumber,
+                                        byte[] buffer, int length, Semaphore inFlight, AtomicBoolean failed) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    if (failed.get()) {
+                        throw new CancellationException("Upload " + uploadId + " already failed");
+                    }
+                    return s3Client.uploadPart(new UploadPartRequest()
+                            .withBucketName(bucket)
+                            .withKey(key)
+                            .withUploadId(uploadId)
+                            .withPartNumber(partNumber)
+                            .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+                            .withPartSize(length)).getPartETag();
+                } finally {
+                    releaseBuffer(buffer);
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseBuffer(buffer);
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for parts already handed to the pool, so their buffers are back and none is still
+     * being sent when the upload is aborted.
+     */
+    private static void awaitQuietly(List<Future<PartETag>> parts) {
+        boolean interrupted = Thread.interrupted();
+        for (Future<PartETag> part : parts) {
+            while (true) {
+                try {
+                    part.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void abort(AmazonS3 s3Client, String bucket, String key, String uploadId) {
+        abortedUploads.increment();
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private void checkSize(long size) {
+        if (size > maxObjectSize) {
+            throw new CustomFileUploadException("File size exceeds the maximum allowed limit of "
+                    + DataSize.ofBytes(maxObjectSize).toMegabytes() + " MB.");
+        }
+    }
+
+    private byte[] acquireBuffer() {
+        try {
+            if (!buffers.tryAcquire(bufferWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedUploads.increment();
+                throw new StorageBusyException("Too many uploads in progress. Please try again shortly.",
+                        Math.max(1, bufferWait.toSeconds()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomFileUploadException("Upload interrupted", e);
+        }
+        byte[] buffer = freeBuffers.poll();
+        return buffer != null ? buffer : new byte[partSize];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        freeBuffers.offer(buffer);
+        buffers.release();
+    }
+
+    private static int checkedPartSize(DataSize partSize) {
+        if (partSize.toBytes() < MIN_PART_SIZE || partSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("auth.storage.upload.part-size must be between 5MB and 2GB");
+        }
+        return (int) partSize.toBytes();
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private static ObjectMetadata metadata(String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        return metadata;
+    }
+
+    private static RuntimeException uploadFailed(Throwable cause) {
+        if (cause instanceof CustomFileUploadException || cause instanceof StorageBusyException) {
+            return (RuntimeException) cause;
+        }
+        log.error("Error uploading file: {}", cause.getMessage());
+        return new CustomFileUploadException("Error uploading file", cause);
+    }
+}
@@ -0,0 +1,438 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.StorageOutboxEntity;
+import com.secureauthenticationapp.authenticationapp.domain.entity.StoredObjectEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.StorageOutboxRepository;
+import com.secureauthenticationapp.authenticationapp.domain.repository.StoredObjectRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Transactional outbox for stored objects that must be deleted, so uploads can happen outside
+ * the database transaction without leaking objects when that transaction never commits.
+ * <p>
+ * Objects are content addressed and shared between blogs, so each carries a reference count in
+ * {@link StoredObjectRepository}, and every outbox entry releases one reference; the object is
+ * deleted when the last one goes. Both are keyed by {@link StorageService#keyOf(String) storage
+ * key}, so an object keeps one count whichever base URL blogs recorded it under. {@link #stageUpload(MultipartFile)} takes a reference and
+ * records an entry releasing it once the upload grace period has passed, in its own short
+ * transaction, and then uploads the object unless it is already stored. The writer calls
+ * {@link #claim(String)} inside the transaction that saves the URL on a blog, so the entry
+ * disappears exactly when the blog commits. If that transaction fails, {@link #discard(String)}
+ * makes the entry due at once; if the process dies, the grace period expires instead. Objects
+ * a committed write stops using are released with {@link #deleteLater(String)} in the same
+ * transaction, and further users take a reference with {@link #retain(String)}.
+ * <p>
+ * A background task processes due entries in batches, deleting the objects they leave unused with
+ * one bulk request per batch and backing off exponentially on failures, so request threads never
+ * wait on storage deletes. No transaction is open during that request: a short one releases the
+ * references and marks the rows of unused objects as being deleted, and a second one removes the
+ * rows once the objects are gone, or restores them and queues a retry. A new reference revives a
+ * marked row, and staging then waits for the delete to finish before storing the object again,
+ * so an upload is never deleted under it. Marks left by a node that died are taken up again after
+ * {@code auth.storage.outbox.delete-timeout}, which bounds that wait. Several nodes may poll the
+ * same table; each entry is taken by one of them.
+ */
+@Slf4j
+@Component
+public class StorageOutbox implements MeterBinder {
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final long DELETE_POLL_MILLIS = 50;
+
+    private final StorageOutboxRepository repository;
+    private final StoredObjectRepository objectRepository;
+    private final StorageService storageService;
+    private final TransactionOperations transactionOperations;
+    private final Duration uploadGrace;
+    private final Duration pollInterval;
+    private final Duration retryBackoff;
+    private final int batchSize;
+    private final Duration deleteTimeout;
+    private final Clock clock;
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ScheduledExecutorService worker;
+
+    @Autowired
+    public StorageOutbox(StorageOutboxRepository repository, StoredObjectRepository objectRepository,
+                         StorageService storageService, TransactionOperations transactionOperations,
+                         @Value("${auth.storage.outbox.upload-grace:15m}") Duration uploadGrace,
+                         @Value("${auth.storage.outbox.poll-interval:30s}") Duration pollInterval,
+                         @Value("${auth.storage.outbox.retry-backoff:1m}") Duration retryBackoff,
+                         @Value("${auth.storage.outbox.batch-size:1000}") int batchSize,
+                         @Value("${auth.storage.outbox.delete-timeout:1m}") Duration deleteTimeout) {
+        this(repository, objectRepository, storageService, transactionOperations, uploadGrace, pollInterval,
+                retryBackoff, batchSize, deleteTimeout, Clock.systemUTC());
+    }
+
+    public StorageOutbox(StorageOutboxRepository repository, StoredObjectRepository objectRepository,
+                         StorageService storageService, TransactionOperations transactionOperations,
+                         Duration uploadGrace, Duration pollInterval, Duration retryBackoff, int batchSize,
+                         Duration deleteTimeout, Clock clock) {
+        this.repository = repository;
+        this.objectRepository = objectRepository;
+        this.storageService = storageService;
+        this.transactionOperations = transactionOperations;
+        this.uploadGrace = uploadGrace;
+        this.pollInterval = pollInterval;
+        this.retryBackoff = retryBackoff;
+        this.batchSize = batchSize;
+        this.deleteTimeout = deleteTimeout;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = pollInterval.toMillis();
+        worker.scheduleWithFixedDelay(this::processDueSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Records the object and then uploads it under a URL derived from its content, skipping the
+     * upload when that object is already stored, and returns the URL. Must run outside a
+     * transaction so the record is committed before the upload starts and no connection is held
+     * during it.
+     */
+    public String stageUpload(MultipartFile file) {
+        checkNoTransaction();
+        String fileUrl = storageService.contentFileUrl(file);
+        return stage(fileUrl, true, () -> storageService.uploadFile(file, fileUrl));
+    }
+
+    /**
+     * Like {@link #stageUpload(MultipartFile)} but streams an image of unknown length from
+     * {@code in}. Its content URL is only known at the end, so it is uploaded under a temporary
+     * name and then moved, or dropped if the same image is already stored.
+     */
+    public String stageUpload(InputStream in, String contentType, String fileName) {
+        checkNoTransaction();
+        String uploadUrl = storageService.newFileUrl(fileName);
+        String fileUrl = stage(uploadUrl, false, () -> storageService.uploadStream(in, contentType, uploadUrl));
+        try {
+            return stage(fileUrl, true, () -> {
+                storageService.moveFile(uploadUrl, fileUrl);
+                return fileUrl;
+            });
+        } finally {
+            discard(uploadUrl);
+        }
+    }
+
+    /**
+     * Like {@link #stageUpload(MultipartFile)} for content generated here, such as a resized
+     * image, stored under {@code fileUrl}. {@code content} is only called if the object is not
+     * stored yet.
+     */
+    public String stageGenerated(String fileUrl, String contentType, Supplier<byte[]> content) {
+        checkNoTransaction();
+        return stage(fileUrl, true, () -> storageService.storeFile(content.get(), contentType, fileUrl));
+    }
+
+    /**
+     * Keeps a staged object. Call inside the transaction that stores its URL.
+     */
+    public void claim(String fileUrl) {
+        repository.findFirstByObjectKeyOrderByNextAttemptAtDesc(StorageService.keyOf(fileUrl))
+                .ifPresent(repository::delete);
+    }
+
+    /**
+     * Takes another reference to a stored object for a further user, such as a second blog with
+     * the same image. Call inside the transaction that stores its URL.
+     */
+    public void retain(String fileUrl) {
+        objectRepository.addReference(StorageService.keyOf(fileUrl), clock.instant());
+    }
+
+    /**
+     * Makes a staged object due for deletion now, after the write that would have claimed it
+     * failed.
+     */
+    public void discard(String fileUrl) {
+        try {
+            Instant now = clock.instant();
+            transactionOperations.executeWithoutResult(status -> repository
+                    .findFirstByObjectKeyAndNextAttemptAtAfter(StorageService.keyOf(fileUrl), now)
+                    .ifPresent(entry -> repository.makeDue(entry.getId(), now)));
+        } catch (Exception e) {
+            log.warn("Could not release staged object {}, it is deleted after the grace period: {}",
+                    fileUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the release of a reference to an object as part of the current transaction.
+     */
+    public void deleteLater(String fileUrl) {
+        Instant now = clock.instant();
+        repository.save(entry(StorageService.keyOf(fileUrl), now, now));
+    }
+
+    /**
+     * Releases a reference to the object inside the current transaction and returns whether it
+     * was the last, in which case its row is marked as being deleted. Objects stored before
+     * reference counting have no row and a single user.
+     */
+    private boolean release(String key, Instant now) {
+        StoredObjectEntity object = objectRepository.findForUpdate(key).orElse(null);
+        if (object == null) {
+            object = StoredObjectEntity.builder().objectKey(key).createdAt(now).build();
+        } else if (object.getReferenceCount() > 1) {
+            object.setReferenceCount(object.getReferenceCount() - 1);
+            objectRepository.save(object);
+            return false;
+        }
+        object.setReferenceCount(0);
+        object.setDeletingSince(now);
+        objectRepository.save(object);
+        return true;
+    }
+
+    /**
+     * Processes every due entry, returning how many were processed. Deletes left unconfirmed by a
+     * node that died are finished first.
+     */
+    public int processDue() {
+        resumeStaleDeletes(clock.instant());
+        int processed = 0;
+        List<StorageOutboxEntity> due;
+        do {
+            Instant now = clock.instant();
+            due = repository.findDue(now, PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                processed += processBatch(due, now);
+            }
+        } while (due.size() == batchSize);
+        return processed;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.storage.outbox.deleted", deleted, LongAdder::sum)
+                .description("Stored objects deleted by the storage outbox")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.outbox.deduplicated", deduplicated, LongAdder::sum)
+                .description("Uploads skipped because the same object was already stored")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.outbox.failures", failures, LongAdder::sum)
+                .description("Failed storage outbox delete attempts")
+                .register(registry);
+    }
+
+    /**
+     * Releases a batch of entries in one short transaction and then deletes the objects left
+     * unused, returning how many entries were processed.
+     */
+    private int processBatch(List<StorageOutboxEntity> due, Instant now) {
+        Map<String, StorageOutboxEntity> unused;
+        try {
+            unused = transactionOperations.execute(status -> {
+                Map<String, StorageOutboxEntity> released = new LinkedHashMap<>();
+                for (StorageOutboxEntity entry : due) {
+                    if (repository.deleteEntry(entry.getId()) > 0 && release(entry.getObjectKey(), now)) {
+                        released.putIfAbsent(entry.getObjectKey(), entry);
+                    }
+                }
+                return released;
+            });
+        } catch (Exception e) {
+            failures.add(due.size());
+            for (StorageOutboxEntity entry : due) {
+                repository.recordFailure(entry.getId(), now.plus(backoff(entry.getAttempts())));
+            }
+            log.warn("Failed to process {} storage outbox entries: {}", due.size(), e.getMessage());
+            return 0;
+        }
+        return due.size() - deleteUnused(unused, now);
+    }
+
+    /**
+     * Marks again the rows of deletes started more than the delete timeout ago and never confirmed,
+     * and finishes those deletes. Rows revived meanwhile just lose their mark.
+     */
+    private void resumeStaleDeletes(Instant now) {
+        Map<String, StorageOutboxEntity> unused = transactionOperations.execute(status -> {
+            Map<String, StorageOutboxEntity> stale = new LinkedHashMap<>();
+            for (StoredObjectEntity object : objectRepository.findStaleDeletions(now.minus(deleteTimeout),
+                    PageRequest.of(0, batchSize))) {
+                if (object.getReferenceCount() == 0) {
+                    object.setDeletingSince(now);
+                    stale.put(object.getObjectKey(), null);
+                } else {
+                    object.setDeletingSince(null);
+                }
+                objectRepository.save(object);
+            }
+            return stale;
+        });
+        deleteUnused(unused, now);
+    }
+
+    /**
+     * Deletes objects whose rows are marked as being deleted with one bulk request, outside any
+     * transaction, and then settles each row in a second short transaction; returns how many
+     * could not be deleted. {@code unused} maps each object to the entry that released it, or to
+     * null when resuming a stale delete.
+     */
+    private int deleteUnused(Map<String, StorageOutboxEntity> unused, Instant now) {
+        if (unused.isEmpty()) {
+            return 0;
+        }
+        Set<String> failed;
+        try {
+            failed = new HashSet<>(storageService.deleteObjects(unused.keySet()));
+        } catch (Exception e) {
+            log.warn("Failed to delete {} stored objects: {}", unused.size(), e.getMessage());
+            failed = unused.keySet();
+        }
+        Set<String> undeleted = failed;
+        try {
+            transactionOperations.executeWithoutResult(status -> unused.forEach((key, entry) ->
+                    settle(key, entry, !undeleted.contains(key), now)));
+        } catch (Exception e) {
+            log.warn("Could not settle {} stored object deletes, they are resumed after {}: {}",
+                    unused.size(), deleteTimeout, e.getMessage());
+        }
+        deleted.add(unused.size() - failed.size());
+        failures.add(failed.size());
+        return failed.size();
+    }
+
+    /**
+     * Removes the row of a deleted object, unless a new reference revived it meanwhile, in which
+     * case only its mark is cleared so the waiting upload goes ahead. An object that could not be
+     * deleted gets its reference back and a new entry, due after a back-off.
+     */
+    private void settle(String key, StorageOutboxEntity entry, boolean removed, Instant now) {
+        StoredObjectEntity object = objectRepository.findForUpdate(key).orElse(null);
+        if (object == null || object.getDeletingSince() == null) {
+            return;
+        }
+        if (removed && object.getReferenceCount() == 0) {
+            objectRepository.delete(object);
+            return;
+        }
+        object.setDeletingSince(null);
+        if (!removed && object.getReferenceCount() == 0) {
+            int attempts = entry == null ? 0 : entry.getAttempts();
+            object.setReferenceCount(1);
+            StorageOutboxEntity retry = entry(key, entry == null ? now : entry.getCreatedAt(),
+                    now.plus(backoff(attempts)));
+            retry.setAttempts(attempts + 1);
+            repository.save(retry);
+            log.warn("Failed to delete stored object {} (attempt {})", key, attempts + 1);
+        }
+        objectRepository.save(object);
+    }
+
+    private void processDueSafely() {
+        try {
+            int processed = processDue();
+            if (processed > 0) {
+                log.info("Storage outbox processed {} entries", processed);
+            }
+        } catch (Exception e) {
+            log.error("Storage outbox run failed: {}", e.getMessage());
+        }
+    }
+
+    private String stage(String fileUrl, boolean deduplicate, Supplier<String> upload) {
+        String key = StorageService.keyOf(fileUrl);
+        Instant now = clock.instant();
+        Instant deletingSince = transactionOperations.execute(status -> {
+            objectRepository.addReference(key, now);
+            repository.save(entry(key, now, now.plus(uploadGrace)));
+            return objectRepository.findDeletingSince(key).orElse(null);
+        });
+        try {
+            if (deletingSince != null) {
+                awaitDelete(key);
+            } else if (deduplicate && storageService.fileExists(fileUrl)) {
+                deduplicated.increment();
+                return fileUrl;
+            }
+            return upload.get();
+        } catch (RuntimeException e) {
+            discard(fileUrl);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the delete of an object this upload has revived is settled, so it cannot remove
+     * the new upload, or until it has timed out.
+     */
+    private void awaitDelete(String key) {
+        Optional<Instant> deletingSince = objectRepository.findDeletingSince(key);
+        while (deletingSince.isPresent() && deletingSince.get().plus(deleteTimeout).isAfter(clock.instant())) {
+            try {
+                Thread.sleep(DELETE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + key + " to be deleted", e);
+            }
+            deletingSince = objectRepository.findDeletingSince(key);
+        }
+    }
+
+    private static void checkNoTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Uploads must not run inside a database transaction");
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static StorageOutboxEntity entry(String key, Instant createdAt, Instant nextAttemptAt) {
+        return StorageOutboxEntity.builder()
+                .objectKey(key)
+                .createdAt(createdAt)
+                .nextAttemptAt(nextAttemptAt)
+                .build();
+    }
+}
@@ -1,70 +1,134 @@
 package com.secureauthenticationapp.authenticationapp.domain.service;
 
-import com.amazonaws.AmazonServiceException;
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
-import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
-import jakarta.annotation.PostConstruct;
+import com.secureauthenticationapp.authenticationapp.domain.exception.ImageNotFoundException;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import com.secureauthenticationapp.authenticationapp.utils.ImageTypes;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+
+/**
+ * Validates and names blog images and hands them to the configured {@link StorageBackend}.
+ * Images are referred to by URL everywhere else; the storage key is the part after the last
+ * {@code /}. URLs point straight at the backend unless {@code auth.storage.public-base-url} is set,
+ * typically to {@code /api/v1/blog/images/} so every read goes through the application.
+ * <p>
+ * Uploaded images are content addressed: the key is the SHA-256 of the bytes plus an extension,
+ * so the same image uploaded twice maps to one object, which {@link StorageOutbox} shares.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class StorageService {
 
-    private static final List<String> ALLOWED_FILE_TYPES = Arrays.asList("image/jpeg", "image/png");
+    private static final List<String> ALLOWED_FILE_TYPES = Arrays.asList(ImageTypes.JPEG, ImageTypes.PNG);
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
 
-    private AmazonS3 s3Client;
-
-    @Value("${aws.accessKeyId}")
-    private String accessKeyId;
+    private final StorageBackend storageBackend;
 
-    @Value("${aws.secretKey}")
-    private String secretKey;
+    @Value("${auth.storage.public-base-url:}")
+    private String publicBaseUrl;
 
-    @Value("${aws.region}")
-    private String region;
+    public String uploadFile(MultipartFile file) {
+        return uploadFile(file, newFileUrl(file));
+    }
 
-    @Value("${aws.s3.bucketName}")
-    private String bucketName;
+    /**
+     * Validates {@code file} and picks the URL it will be stored under without uploading anything,
+     * so callers can record the URL before the object exists.
+     */
+    public String newFileUrl(MultipartFile file) {
+        validateImageFile(file);
+        return newFileUrl(file.getOriginalFilename());
+    }
 
-    @PostConstruct
-    private void initializeAmazon() {
-        AWSCredentials credentials = new BasicAWSCredentials(this.accessKeyId, this.secretKey);
-        this.s3Client = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withRegion(region)
-                .build();
+    /**
+     * Picks the URL for an object named after {@code originalFilename} without uploading anything.
+     */
+    public String newFileUrl(String originalFilename) {
+        return fileUrl(generateFileName(originalFilename));
     }
 
-    public String uploadFile(MultipartFile file) {
+    /**
+     * Validates {@code file} and returns the URL its content is stored under, hashing the part
+     * locally without uploading anything.
+     */
+    public String contentFileUrl(MultipartFile file) {
         validateImageFile(file);
-        String fileUrl = "";
-        try {
-            String fileName = generateFileName(file);
-            fileUrl = "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + fileName;
+        MessageDigest digest = sha256();
+        try (InputStream content = new DigestInputStream(file.getInputStream(), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            log.error("Error reading file: {}", e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        }
+        return contentFileUrl(digest, file.getContentType());
+    }
 
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentType(file.getContentType());
-            metadata.setContentLength(file.getSize());
+    /**
+     * Opens the image stored under {@code key}. The caller must close it.
+     */
+    public StoredObject openImage(String key) {
+        StoredObject image = storageBackend.get(key);
+        if (image == null) {
+            throw new ImageNotFoundException("Image not found: " + key);
+        }
+        return image;
+    }
 
-            s3Client.putObject(new PutObjectRequest(bucketName, fileName, file.getInputStream(), metadata));
+    /**
+     * Streams an image of unknown length to the URL obtained from {@link #newFileUrl(String)},
+     * reading {@code in} once, and returns the URL its content belongs under, hashed on the way.
+     * The declared type must be JPEG or PNG and must match the file's leading bytes, which are
+     * checked before anything is sent.
+     */
+    public String uploadStream(InputStream in, String contentType, String fileUrl) {
+        if (!ALLOWED_FILE_TYPES.contains(contentType)) {
+            throw new CustomFileUploadException("Invalid file type. Only JPEG and PNG are allowed.");
+        }
+        try {
+            PushbackInputStream stream = new PushbackInputStream(in, ImageTypes.SIGNATURE_LENGTH);
+            byte[] signature = stream.readNBytes(ImageTypes.SIGNATURE_LENGTH);
+            if (!contentType.equals(ImageTypes.detect(signature))) {
+                throw new CustomFileUploadException("File content does not match its declared type " + contentType);
+            }
+            stream.unread(signature);
+            MessageDigest digest = sha256();
+            storageBackend.put(keyOf(fileUrl), new DigestInputStream(stream, digest), -1, contentType);
+            return contentFileUrl(digest, contentType);
+        } catch (IOException e) {
+            log.error("Error uploading file: {}", e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        }
+    }
 
+    /**
+     * Uploads {@code file} under a URL obtained from {@link #newFileUrl(MultipartFile)} or
+     * {@link #contentFileUrl(MultipartFile)}.
+     */
+    public String uploadFile(MultipartFile file, String fileUrl) {
+        try (InputStream content = file.getInputStream()) {
+            storageBackend.put(keyOf(fileUrl), content, file.getSize(), file.getContentType());
             return fileUrl;
         } catch (IOException e) {
             log.error("Error uploading file: {}", e.getMessage());
@@ -73,21 +137,93 @@ public class StorageService {
     }
 
 
+    /**
+     * Stores {@code content} generated by the application, such as a resized image, under
+     * {@code fileUrl}.
+     */
+    public String storeFile(byte[] content, String contentType, String fileUrl) {
+        storageBackend.put(keyOf(fileUrl), new ByteArrayInputStream(content), content.length, contentType);
+        return fileUrl;
+    }
+
+    /**
+     * Opens the file at {@code fileUrl}. The caller must close it.
+     */
+    public StoredObject openFile(String fileUrl) {
+        return openImage(keyOf(fileUrl));
+    }
+
+    public boolean fileExists(String fileUrl) {
+        return storageBackend.exists(keyOf(fileUrl));
+    }
+
+    /**
+     * The URL of a file derived from the one at {@code fileUrl}, stored next to it and named after
+     * it, e.g. {@code .../1-cover-320w.jpg} for suffix {@code 320w} and extension {@code jpg}.
+     */
+    public String derivedFileUrl(String fileUrl, String suffix, String extension) {
+        String key = keyOf(fileUrl);
+        int dot = key.lastIndexOf('.');
+        String name = dot > 0 ? key.substring(0, dot) : key;
+        return fileUrl.substring(0, fileUrl.length() - key.length()) + name + "-" + suffix + "." + extension;
+    }
+
+    public void moveFile(String fromUrl, String toUrl) {
+        storageBackend.move(keyOf(fromUrl), keyOf(toUrl));
+    }
+
     public void deleteFile(String fileUrl) {
-        String fileKey = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+        storageBackend.delete(keyOf(fileUrl));
+    }
+
+    /**
+     * Deletes the files at {@code fileUrls} in as few requests as the backend allows and returns
+     * the URLs that could not be deleted.
+     */
+    public List<String> deleteFiles(Collection<String> fileUrls) {
+        Map<String, String> urlsByKey = new LinkedHashMap<>();
+        fileUrls.forEach(fileUrl -> urlsByKey.put(keyOf(fileUrl), fileUrl));
+        return deleteObjects(urlsByKey.keySet()).stream().map(urlsByKey::get).toList();
+    }
+
+    /**
+     * Deletes the objects under {@code keys} in as few requests as the backend allows and returns
+     * the keys that could not be deleted.
+     */
+    public List<String> deleteObjects(Collection<String> keys) {
+        return storageBackend.deleteAll(keys);
+    }
+
+    private String fileUrl(String key) {
+        if (publicBaseUrl == null || publicBaseUrl.isEmpty()) {
+            return storageBackend.url(key);
+        }
+        return publicBaseUrl.endsWith("/") ? publicBaseUrl + key : publicBaseUrl + "/" + key;
+    }
 
+    private String contentFileUrl(MessageDigest digest, String contentType) {
+        return fileUrl(HexFormat.of().formatHex(digest.digest()) + "." + ImageTypes.extension(contentType));
+    }
+
+    private static MessageDigest sha256() {
         try {
-            s3Client.deleteObject(new DeleteObjectRequest(bucketName, fileKey));
-            log.info("Deleted file from S3: {}", fileKey);
-        } catch (AmazonServiceException e) {
-            log.error("Error deleting file from S3: {}", e.getMessage());
-            throw new FileDeleteException("Error deleting file from S3");
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private String generateFileName(MultipartFile multiPart) {
+    /**
+     * The storage key of the file at {@code fileUrl}, which identifies the object whatever base
+     * URL it was published under.
+     */
+    public static String keyOf(String fileUrl) {
+        return fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+    }
+
+    private String generateFileName(String originalFilename) {
         try {
-            return new Date().getTime() + "-" + multiPart.getOriginalFilename().replace(" ", "_");
+            return new Date().getTime() + "-" + originalFilename.replaceAll("[^A-Za-z0-9._-]", "_");
         } catch (Exception e) {
             log.error("Error generating file name: {}", e.getMessage());
             throw new CustomFileUploadException("Error generating file name");
@@ -105,4 +241,3 @@ public class StorageService {
     }
 
 }
-
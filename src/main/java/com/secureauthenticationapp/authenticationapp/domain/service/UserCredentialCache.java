@@ -0,0 +1,88 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserCredentials;
+import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Credential records of recently active users, keyed by lowercase username, so repeated logins
+ * and security lookups do not read the user row every time.
+ * <p>
+ * Caffeine bounds the cache with W-TinyLFU, which keeps frequently used entries when a scan of
+ * one-off usernames passes through, and entries expire {@code expire-after-write} after loading
+ * so changes made by other nodes are picked up. Only existing users are cached, so a new
+ * registration never finds a stale entry; callers invalidate a user when they change the password
+ * or the persisted lock state.
+ */
+@Component
+public class UserCredentialCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "userCredentials";
+
+    private final Function<String, Optional<UserEntity>> loader;
+    private final Cache<String, UserCredentials> cache;
+
+    @Autowired
+    public UserCredentialCache(UserRepository userRepository,
+                               @Value("${auth.users.credential-cache.maximum-size:100000}") long maximumSize,
+                               @Value("${auth.users.credential-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this(userRepository::findByUsername, maximumSize, expireAfterWrite);
+    }
+
+    public UserCredentialCache(Function<String, Optional<UserEntity>> loader, long maximumSize,
+                               Duration expireAfterWrite) {
+        this.loader = loader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Loads by the normalized username, which the user table's case-insensitive collation matches
+     * regardless of how the user wrote it, so the answer does not depend on what is cached.
+     */
+    public Optional<UserCredentials> get(String username) {
+        UserCredentials cached = cache.get(normalize(username),
+                key -> loader.apply(key).map(UserCredentials::of).orElse(null));
+        return Optional.ofNullable(cached);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(normalize(username));
+    }
+
+    public void invalidateAll(Collection<String> usernames) {
+        for (String username : usernames) {
+            invalidate(username);
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
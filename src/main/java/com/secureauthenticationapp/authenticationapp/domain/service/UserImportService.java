@@ -0,0 +1,473 @@
+package com.secureauthenticationapp.authenticationapp.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.config.BoundedPasswordEncoder;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportError;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportRow;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportSummary;
+import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.UserImportInProgressException;
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.utils.ServiceValidationUtil;
+import com.secureauthenticationapp.authenticationapp.validation.PasswordValidator;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk account import from NDJSON or CSV, for migrations that would take days through the
+ * registration endpoint.
+ * <p>
+ * Rows are read in chunks. Each chunk is validated, checked against existing accounts with one
+ * {@code IN} query per column, hashed in parallel on a dedicated pool and written with a single JDBC
+ * batch insert in its own transaction. The user table keeps its {@code IDENTITY} key: the batch goes
+ * through JDBC rather than Hibernate, so the generated ids do not need to be read back. On MySQL add
+ * {@code rewriteBatchedStatements=true} to the JDBC URL so a batch becomes one multi-row insert.
+ * If a chunk hits a unique key, it is retried row by row so only the duplicates fail.
+ * <p>
+ * Failed rows are reported to the caller as they occur. Only one import runs at a time.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "auth.users.import.enabled", havingValue = "true")
+public class UserImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}");
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+
+    private final UserRepository userRepository;
+    private final JdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordValidator passwordValidator;
+    private final Validator validator;
+    private final ServiceValidationUtil serviceValidationUtil;
+    private final ObjectMapper objectMapper;
+    private final String insertSql;
+    private final int batchSize;
+    private final ThreadPoolExecutor hashingPool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public UserImportService(UserRepository userRepository,
+                             JdbcOperations jdbcOperations,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory,
+                             BoundedPasswordEncoder passwordEncoder,
+                             PasswordValidator passwordValidator,
+                             Validator validator,
+                             ServiceValidationUtil serviceValidationUtil,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.users.import.batch-size:1000}") int batchSize,
+                             @Value("${auth.users.import.threads:0}") int threads) {
+        this(userRepository, jdbcOperations, new TransactionTemplate(transactionManager),
+                insertSql(entityManagerFactory), passwordEncoder.getDelegate(), passwordValidator, validator,
+                serviceValidationUtil, objectMapper, batchSize, threads);
+    }
+
+    public UserImportService(UserRepository userRepository, JdbcOperations jdbcOperations,
+                             TransactionOperations transactionOperations, String insertSql,
+                             PasswordEncoder passwordEncoder, PasswordValidator passwordValidator, Validator validator,
+                             ServiceValidationUtil serviceValidationUtil, ObjectMapper objectMapper,
+                             int batchSize, int threads) {
+        this.userRepository = userRepository;
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.insertSql = insertSql;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordValidator = passwordValidator;
+        this.validator = validator;
+        this.serviceValidationUtil = serviceValidationUtil;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hashingPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * Imports every row of the body and passes each rejected row to {@code failures} as soon as it is
+     * known. The body is read as UTF-8; CSV input needs a header line naming its columns.
+     */
+    public UserImportSummary importUsers(InputStream body, Format format, Consumer<UserImportError> failures) {
+        if (!running.compareAndSet(false, true)) {
+            throw new UserImportInProgressException("A user import is already running.");
+        }
+        long startedAt = System.nanoTime();
+        ImportCounts counts = new ImportCounts();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            RowReader rows = format == Format.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+            List<ImportRow> chunk = new ArrayList<>(batchSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    importChunk(chunk, failures, counts);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, failures, counts);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            running.set(false);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        log.info("User import finished: {} imported, {} failed in {} ms", counts.imported, counts.failed, elapsedMillis);
+        return UserImportSummary.builder()
+                .imported(counts.imported)
+                .failed(counts.failed)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    private void importChunk(List<ImportRow> chunk, Consumer<UserImportError> failures, ImportCounts counts) {
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                row.error = validate(row);
+            }
+            if (row.error == null) {
+                accepted.add(row);
+            } else {
+                reject(row, row.error, failures, counts);
+            }
+        }
+        List<ImportRow> unique = withoutDuplicates(accepted, failures, counts);
+        if (unique.isEmpty()) {
+            return;
+        }
+
+        hashPasswords(unique);
+        List<ImportRow> inserted;
+        try {
+            transactionOperations.executeWithoutResult(status -> jdbcOperations.batchUpdate(insertSql,
+                    unique.stream().map(ImportRow::insertArguments).toList()));
+            inserted = unique;
+        } catch (DataIntegrityViolationException e) {
+            inserted = insertOneByOne(unique, failures, counts);
+        }
+        for (ImportRow row : inserted) {
+            serviceValidationUtil.recordRegistration(row.username, row.email);
+        }
+        counts.imported += inserted.size();
+    }
+
+    private String validate(ImportRow row) {
+        UserEntity candidate = UserEntity.builder()
+                .username(row.username)
+                .email(row.email)
+                .password(row.password != null ? row.password : row.passwordHash)
+                .build();
+        Set<ConstraintViolation<UserEntity>> violations = validator.validate(candidate);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (row.passwordHash != null) {
+            String hash = row.passwordHash.startsWith(BCRYPT_PREFIX)
+                    ? row.passwordHash.substring(BCRYPT_PREFIX.length()) : row.passwordHash;
+            if (!BCRYPT_HASH.matcher(hash).matches()) {
+                return "passwordHash must be a BCrypt hash";
+            }
+            row.encodedPassword = BCRYPT_PREFIX + hash;
+            return null;
+        }
+        try {
+            passwordValidator.validatePassword(row.password);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Drops rows whose username or email already exists, in the database or earlier in the chunk.
+     */
+    private List<ImportRow> withoutDuplicates(List<ImportRow> rows, Consumer<UserImportError> failures,
+                                              ImportCounts counts) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : rows) {
+            usernames.add(row.username.toLowerCase(Locale.ROOT));
+            emails.add(row.email.toLowerCase(Locale.ROOT));
+        }
+        Set<String> takenUsernames = lowerCased(userRepository.findExistingUsernames(usernames));
+        Set<String> takenEmails = lowerCased(userRepository.findExistingEmails(emails));
+        List<ImportRow> unique = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (!takenUsernames.add(row.username.toLowerCase(Locale.ROOT))) {
+                reject(row, "Username already taken", failures, counts);
+            } else if (!takenEmails.add(row.email.toLowerCase(Locale.ROOT))) {
+                reject(row, "Email already exists", failures, counts);
+            } else {
+                unique.add(row);
+            }
+        }
+        return unique;
+    }
+
+    private void hashPasswords(List<ImportRow> rows) {
+        List<Future<?>> hashes = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (row.encodedPassword == null) {
+                hashes.add(hashingPool.submit(() -> {
+                    row.encodedPassword = passwordEncoder.encode(row.password);
+                    row.password = null;
+                }));
+            }
+        }
+        try {
+            for (Future<?> hash : hashes) {
+                hash.get();
+            }
+        } catch (InterruptedException e) {
+            hashes.forEach(hash -> hash.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hash imported password", e.getCause());
+        }
+    }
+
+    private List<ImportRow> insertOneByOne(List<ImportRow> rows, Consumer<UserImportError> failures,
+                                           ImportCounts counts) {
+        List<ImportRow> inserted = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            try {
+                transactionOperations.executeWithoutResult(status ->
+                        jdbcOperations.update(insertSql, row.insertArguments()));
+                inserted.add(row);
+            } catch (DataIntegrityViolationException e) {
+                reject(row, "Username or email already exists", failures, counts);
+            }
+        }
+        return inserted;
+    }
+
+    private static void reject(ImportRow row, String message, Consumer<UserImportError> failures,
+                               ImportCounts counts) {
+        counts.failed++;
+        failures.accept(new UserImportError(row.line, row.username, message));
+    }
+
+    private static Set<String> lowerCased(List<String> values) {
+        Set<String> lowerCased = new HashSet<>(values.size() * 2);
+        for (String value : values) {
+            lowerCased.add(value.toLowerCase(Locale.ROOT));
+        }
+        return lowerCased;
+    }
+
+    private static String insertSql(EntityManagerFactory entityManagerFactory) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(UserEntity.class);
+        return "insert into " + persister.getTableName() + " ("
+                + persister.getPropertyColumnNames("username")[0] + ", "
+                + persister.getPropertyColumnNames("email")[0] + ", "
+                + persister.getPropertyColumnNames("password")[0] + ", "
+                + persister.getPropertyColumnNames("failedLoginAttempts")[0] + ") values (?, ?, ?, 0)";
+    }
+
+    private static final class ImportCounts {
+        private long imported;
+        private long failed;
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final String username;
+        private final String email;
+        private String password;
+        private final String passwordHash;
+        private String encodedPassword;
+        private String error;
+
+        private ImportRow(long line, UserImportRow row) {
+            this.line = line;
+            this.username = trimmed(row.getUsername());
+            this.email = trimmed(row.getEmail());
+            this.password = row.getPassword();
+            this.passwordHash = trimmed(row.getPasswordHash());
+        }
+
+        private static ImportRow malformed(long line, String error) {
+            ImportRow row = new ImportRow(line, new UserImportRow());
+            row.error = error;
+            return row;
+        }
+
+        private Object[] insertArguments() {
+            return new Object[]{username, email, encodedPassword};
+        }
+
+        private static String trimmed(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    private interface RowReader {
+        /**
+         * The next row, or {@code null} at the end of the input. Blank lines are skipped.
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private final class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        private NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new ImportRow(lineNumber, objectMapper.readValue(line, UserImportRow.class));
+                } catch (JsonProcessingException e) {
+                    return ImportRow.malformed(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * RFC 4180 rows without embedded line breaks. The header names the columns, in any order.
+     */
+    private static final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long lineNumber;
+
+        private CsvRowReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            String header = reader.readLine();
+            lineNumber++;
+            if (header != null) {
+                List<String> names = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+                for (int i = 0; i < names.size(); i++) {
+                    columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = split(line);
+                UserImportRow row = new UserImportRow();
+                row.setUsername(field(fields, "username"));
+                row.setEmail(field(fields, "email"));
+                row.setPassword(field(fields, "password"));
+                row.setPasswordHash(field(fields, "passwordhash"));
+                return new ImportRow(lineNumber, row);
+            }
+            return null;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= fields.size() || fields.get(index).isEmpty() ? null : fields.get(index);
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
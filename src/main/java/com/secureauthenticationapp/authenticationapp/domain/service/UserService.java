@@ -1,90 +1,133 @@
 package com.secureauthenticationapp.authenticationapp.domain.service;
 
 import com.secureauthenticationapp.authenticationapp.domain.bean.AuthenticationRequest;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserCredentials;
 import com.secureauthenticationapp.authenticationapp.domain.bean.UserRegistration;
 import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.EmailAlreadyExistException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.PasswordHashingBusyException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.UserAuthenticationException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.UsernameAlreadyTakenException;
 import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.AccessTokenService;
 import com.secureauthenticationapp.authenticationapp.utils.ServiceValidationUtil;
 import com.secureauthenticationapp.authenticationapp.validation.PasswordValidator;
 import jakarta.transaction.Transactional;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Getter
 public class UserService {
-    private static final int MAX_FAILED_ATTEMPTS = 5;
-    private static final long LOCK_TIME_DURATION = 30 * 60 * 1000;
-
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ServiceValidationUtil serviceValidationUtil;
     private final PasswordValidator passwordValidator;
-    private final Map<String, String> tokenStore = new ConcurrentHashMap<>();
+    private final AccessTokenService accessTokenService;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final UserCredentialCache userCredentialCache;
 
     @Transactional
     public UserEntity registerUser(UserRegistration userRegistration) {
         serviceValidationUtil.checkIfUserNameExists(userRegistration.getUsername());
         serviceValidationUtil.checkIfEmailExists(userRegistration.getEmail());
         passwordValidator.validatePassword(userRegistration.getPassword());
+        String encodedPassword = passwordEncoder.encode(userRegistration.getPassword());
         try {
             UserEntity newUser = UserEntity.builder()
                     .username(userRegistration.getUsername())
                     .email(userRegistration.getEmail())
-                    .password(passwordEncoder.encode(userRegistration.getPassword()))
+                    .password(encodedPassword)
                     .build();
+            UserEntity savedUser = userRepository.save(newUser);
+            serviceValidationUtil.recordRegistration(savedUser.getUsername(), savedUser.getEmail());
+            userCredentialCache.invalidate(savedUser.getUsername());
             log.info("New user: {}", newUser + " created successfully");
-            return userRepository.save(newUser);
+            return savedUser;
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateRegistration(userRegistration, e);
         } catch (Exception e) {
             log.error("Failed to create user: {}", e.getMessage());
             throw new UserAuthenticationException("Failed to create user: " + e.getMessage());
         }
     }
 
+    /**
+     * Another registration with the same username or email committed between the availability
+     * check and the insert. The unique key rejected the row and the duplicate value is named in the
+     * database message.
+     */
+    private RuntimeException duplicateRegistration(UserRegistration userRegistration, DataIntegrityViolationException e) {
+        serviceValidationUtil.recordRegistration(userRegistration.getUsername(), userRegistration.getEmail());
+        String detail = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        if (detail.contains(userRegistration.getEmail().trim().toLowerCase(Locale.ROOT))) {
+            return new EmailAlreadyExistException("Email already exists");
+        }
+        return new UsernameAlreadyTakenException("Username already taken");
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return serviceValidationUtil.isUsernameAvailable(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return serviceValidationUtil.isEmailAvailable(email);
+    }
+
     public String authenticateUser(AuthenticationRequest authenticationRequest) {
-        UserEntity user = userRepository.findByUsername(authenticationRequest.getUsername())
+        if (loginAttemptTracker.isLocked(authenticationRequest.getUsername())) {
+            throw new UserAuthenticationException("Account is locked. Please try again later.");
+        }
+        UserCredentials user = userCredentialCache.get(authenticationRequest.getUsername())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid username or password"));
-        if (user.getLockTime() != null && new Date().getTime() - user.getLockTime().getTime() < LOCK_TIME_DURATION) {
+        if (loginAttemptTracker.isLocked(user.getUsername(), user.getFailedLoginAttempts(), user.getLockTime())) {
             throw new UserAuthenticationException("Account is locked. Please try again later.");
         }
         if (!passwordEncoder.matches(authenticationRequest.getPassword(), user.getPassword())) {
-            int failedAttempts = user.getFailedLoginAttempts() + 1;
-            user.setFailedLoginAttempts(failedAttempts);
-            if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
-                user.setLockTime(new Date());
-                userRepository.save(user);
+            if (loginAttemptTracker.recordFailure(user.getUsername())) {
                 log.warn("Account locked due to too many failed attempts: {}", user);
                 throw new UserAuthenticationException("Account is locked due to too many failed attempts.");
             }
-            userRepository.save(user);
             throw new UserAuthenticationException("Invalid username or password.");
         }
-        user.setFailedLoginAttempts(0);
-        user.setLockTime(null);
-        userRepository.save(user);
-        String token = UUID.randomUUID().toString();
-        tokenStore.put(token, user.getUsername());
+        loginAttemptTracker.recordSuccess(user.getUsername());
+        String rehashedPassword = rehashIfOutdated(user, authenticationRequest.getPassword());
+        if (rehashedPassword != null) {
+            userRepository.updatePassword(user.getUserId(), rehashedPassword);
+            userCredentialCache.invalidate(user.getUsername());
+        }
+        String token = accessTokenService.issue(user.getUsername());
         log.info("User: {} authenticated successfully", user);
         return token;
     }
 
+    private String rehashIfOutdated(UserCredentials user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return null;
+        }
+        try {
+            String rehashedPassword = passwordEncoder.encode(rawPassword);
+            log.info("Password hash of user: {} upgraded", user.getUsername());
+            return rehashedPassword;
+        } catch (PasswordHashingBusyException e) {
+            log.debug("Skipping password rehash for user: {} while hashing is saturated", user.getUsername());
+            return null;
+        }
+    }
+
     public void logoutUser(String token) {
         try {
-            if (!tokenStore.containsKey(token)) {
+            if (!accessTokenService.revoke(token, 0)) {
                 throw new UserAuthenticationException("Invalid token");
             }
-            tokenStore.remove(token);
             log.info("User logged out successfully");
         } catch (Exception e) {
             log.error("Failed to logout user: {}", e.getMessage());
@@ -93,7 +136,7 @@ public class UserService {
     }
 
     public boolean isTokenValid(String token) {
-        return tokenStore.containsKey(token);
+        return accessTokenService.resolveUsername(token, 0) != null;
     }
 
 }
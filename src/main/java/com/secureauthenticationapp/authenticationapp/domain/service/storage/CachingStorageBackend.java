@@ -0,0 +1,262 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache of S3 on local disk, enabled with {@code auth.storage.cache.enabled}, so hot
+ * images are read from {@code auth.storage.cache.directory} instead of the bucket.
+ * <p>
+ * A miss downloads the whole object into the directory once, however many requests ask for it at
+ * the same time, and serves the file. The cache holds at most {@code auth.storage.cache.max-size}
+ * bytes and evicts the least recently read objects beyond that; after a restart the files already
+ * on disk are kept, oldest download first. Writes and deletes go to S3 and drop the cached copy.
+ * Because a key never changes content, nothing else needs invalidating. Files are removed while
+ * they may still be open for reading, which is safe on the filesystems we run on.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "auth.storage.cache.enabled", havingValue = "true")
+public class CachingStorageBackend implements StorageBackend, MeterBinder {
+
+    private static final String TEMP_PREFIX = ".download-";
+
+    private final StorageBackend remote;
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<Boolean>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long cachedBytes;
+
+    @Autowired
+    public CachingStorageBackend(S3StorageBackend remote,
+                                 @Value("${auth.storage.cache.directory:data/storage-cache}") String directory,
+                                 @Value("${auth.storage.cache.max-size:1GB}") DataSize maxSize) {
+        this(remote, Path.of(directory), maxSize.toBytes());
+    }
+
+    public CachingStorageBackend(StorageBackend remote, Path directory, long maxBytes) {
+        this.remote = remote;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Indexes the files left by a previous run and drops partial downloads.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.toList();
+        }
+        Map<Path, FileTime> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().startsWith(".")) {
+                LocalStorageBackend.deleteQuietly(file);
+            } else if (Files.isRegularFile(file)) {
+                modified.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        List<Path> byAge = new ArrayList<>(modified.keySet());
+        byAge.sort(Comparator.comparing(modified::get));
+        for (Path file : byAge) {
+            admit(file.getFileName().toString(), Files.size(file));
+        }
+        log.info("Storage cache holds {} objects, {} bytes", byAge.size(), getCachedBytes());
+    }
+
+    @Override
+    public long put(String key, InputStream content, long length, String contentType) {
+        long stored = remote.put(key, content, length, contentType);
+        invalidate(key);
+        return stored;
+    }
+
+    @Override
+    public StoredObject get(String key) {
+        Path file = LocalStorageBackend.resolve(directory, key);
+        if (isCached(key)) {
+            StoredObject cached = LocalStorageBackend.open(file);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            forget(key);
+        }
+        misses.increment();
+        if (!load(key, file)) {
+            return null;
+        }
+        StoredObject loaded = LocalStorageBackend.open(file);
+        // evicted again before we got to it, or too large to cache at all
+        return loaded != null ? loaded : remote.get(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return remote.exists(key);
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        remote.move(sourceKey, targetKey);
+        invalidate(sourceKey);
+        invalidate(targetKey);
+    }
+
+    @Override
+    public void delete(String key) {
+        remote.delete(key);
+        invalidate(key);
+    }
+
+    @Override
+    public List<String> deleteAll(Collection<String> keys) {
+        List<String> failed = remote.deleteAll(keys);
+        keys.forEach(this::invalidate);
+        return failed;
+    }
+
+    @Override
+    public String url(String key) {
+        return remote.url(key);
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.storage.cache.hits", hits, LongAdder::sum)
+                .description("Stored object reads served from the local cache")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.cache.misses", misses, LongAdder::sum)
+                .description("Stored object reads that went to the remote store")
+                .register(registry);
+        FunctionCounter.builder("auth.storage.cache.evictions", evictions, LongAdder::sum)
+                .description("Objects evicted from the local storage cache")
+                .register(registry);
+        Gauge.builder("auth.storage.cache.bytes", this, CachingStorageBackend::getCachedBytes)
+                .description("Bytes held by the local storage cache")
+                .register(registry);
+    }
+
+    /**
+     * Downloads {@code key} into the cache unless another thread already is, and returns whether
+     * the object exists remotely.
+     */
+    private boolean load(String key, Path file) {
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = loading.putIfAbsent(key, download);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            boolean found = download(key, file);
+            download.complete(found);
+            return found;
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, download);
+        }
+    }
+
+    private boolean download(String key, Path file) {
+        Path temp = null;
+        try (StoredObject object = remote.get(key)) {
+            if (object == null) {
+                return false;
+            }
+            if (object.getLength() > maxBytes) {
+                return true;
+            }
+            temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+            long size = LocalStorageBackend.copy(object.getContent(), temp, maxBytes);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            admit(key, size);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            LocalStorageBackend.deleteQuietly(temp);
+        }
+    }
+
+    private void admit(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = entries.put(key, size);
+            cachedBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                cachedBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String victim : evicted) {
+            evictions.increment();
+            LocalStorageBackend.deleteQuietly(directory.resolve(victim));
+        }
+    }
+
+    private synchronized boolean isCached(String key) {
+        return entries.get(key) != null;
+    }
+
+    private synchronized void forget(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            cachedBytes -= size;
+        }
+    }
+
+    private void invalidate(String key) {
+        forget(key);
+        LocalStorageBackend.deleteQuietly(LocalStorageBackend.resolve(directory, key));
+    }
+}
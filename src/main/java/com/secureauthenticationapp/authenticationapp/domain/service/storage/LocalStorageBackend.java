@@ -0,0 +1,206 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.storage;
+
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
+import com.secureauthenticationapp.authenticationapp.utils.ImageTypes;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores each object as a file named after its key in {@code auth.storage.local.directory}, for
+ * development, CI and load tests that must not depend on S3. Objects are written to a temporary
+ * file and moved into place, so readers never see a partial object. URLs are the key appended to
+ * {@code auth.storage.local.base-url}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final String TEMP_PREFIX = ".upload-";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String UNKNOWN_TYPE = "application/octet-stream";
+
+    private final Path directory;
+    private final String baseUrl;
+    private final long maxObjectSize;
+
+    @Autowired
+    public LocalStorageBackend(@Value("${auth.storage.local.directory:data/storage}") String directory,
+                               @Value("${auth.storage.local.base-url:/api/v1/blog/images/}") String baseUrl,
+                               @Value("${auth.storage.upload.max-size:50MB}") DataSize maxObjectSize) {
+        this(Path.of(directory), baseUrl, maxObjectSize.toBytes());
+    }
+
+    public LocalStorageBackend(Path directory, String baseUrl, long maxObjectSize) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.maxObjectSize = maxObjectSize;
+    }
+
+    /**
+     * Creates the directory and removes temporary files left by writes that never finished.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, TEMP_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    @Override
+    public long put(String key, InputStream content, long length, String contentType) {
+        Path target = resolve(directory, key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+            long written = copy(content, temp, maxObjectSize);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return written;
+        } catch (IOException e) {
+            log.error("Error storing file {}: {}", key, e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public StoredObject get(String key) {
+        return open(resolve(directory, key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(directory, key));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        try {
+            Files.move(resolve(directory, sourceKey), resolve(directory, targetKey),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Error moving stored file {}: {}", sourceKey, e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(directory, key));
+            log.info("Deleted stored file: {}", key);
+        } catch (IOException e) {
+            log.error("Error deleting stored file {}: {}", key, e.getMessage());
+            throw new FileDeleteException("Error deleting stored file");
+        }
+    }
+
+    @Override
+    public String url(String key) {
+        return baseUrl + key;
+    }
+
+    /**
+     * Returns the file for {@code key} in {@code directory}, rejecting keys that would name
+     * anything else, such as hidden or temporary files or paths outside the directory.
+     */
+    static Path resolve(Path directory, String key) {
+        if (key == null || key.isEmpty() || key.startsWith(".") || key.indexOf('/') >= 0 || key.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        Path file = directory.resolve(key).normalize();
+        if (!directory.equals(file.getParent())) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return file;
+    }
+
+    /**
+     * Opens {@code file} as a stored object, or returns {@code null} if it does not exist. The
+     * content type is recovered from the file's leading bytes.
+     */
+    static StoredObject open(Path file) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            ByteBuffer signature = ByteBuffer.allocate(ImageTypes.SIGNATURE_LENGTH);
+            channel.read(signature, 0);
+            String contentType = ImageTypes.detect(signature.array(), signature.position());
+            return StoredObject.ofFile(channel, file, contentType == null ? UNKNOWN_TYPE : contentType,
+                    Files.getLastModifiedTime(file).toInstant());
+        } catch (NoSuchFileException e) {
+            closeQuietly(channel);
+            return null;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies {@code in} to {@code file}, failing once more than {@code maxSize} bytes were read.
+     */
+    static long copy(InputStream in, Path file, long maxSize) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                total += read;
+                if (total > maxSize) {
+                    throw new CustomFileUploadException("File size exceeds the maximum allowed limit of "
+                            + DataSize.ofBytes(maxSize).toMegabytes() + " MB.");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return total;
+    }
+
+    static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing was read
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.storage;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
+import com.secureauthenticationapp.authenticationapp.domain.service.S3StreamingUploader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores objects in an S3 bucket, or in any S3-compatible store such as MinIO when
+ * {@code aws.s3.endpoint} is set, addressed path-style. Bodies of unknown length are streamed
+ * with {@link S3StreamingUploader}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3StorageBackend implements StorageBackend {
+
+    private static final int NOT_FOUND = 404;
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final AmazonS3 s3Client;
+    private final S3StreamingUploader streamingUploader;
+    private final String bucketName;
+    private final String urlPrefix;
+
+    @Autowired
+    public S3StorageBackend(S3StreamingUploader streamingUploader,
+                            @Value("${aws.accessKeyId}") String accessKeyId,
+                            @Value("${aws.secretKey}") String secretKey,
+                            @Value("${aws.region}") String region,
+                            @Value("${aws.s3.bucketName}") String bucketName,
+                            @Value("${aws.s3.endpoint:}") String endpoint) {
+        this(buildClient(accessKeyId, secretKey, region, endpoint), streamingUploader, bucketName,
+                urlPrefix(bucketName, region, endpoint));
+    }
+
+    public S3StorageBackend(AmazonS3 s3Client, S3StreamingUploader streamingUploader, String bucketName,
+                            String urlPrefix) {
+        this.s3Client = s3Client;
+        this.streamingUploader = streamingUploader;
+        this.bucketName = bucketName;
+        this.urlPrefix = urlPrefix;
+    }
+
+    @PreDestroy
+    public void stop() {
+        s3Client.shutdown();
+    }
+
+    @Override
+    public long put(String key, InputStream content, long length, String contentType) {
+        if (length < 0) {
+            return streamingUploader.upload(s3Client, bucketName, key, content, contentType);
+        }
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            metadata.setContentLength(length);
+            s3Client.putObject(new PutObjectRequest(bucketName, key, content, metadata));
+            return length;
+        } catch (AmazonClientException e) {
+            log.error("Error uploading file to S3: {}", e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        }
+    }
+
+    @Override
+    public StoredObject get(String key) {
+        S3Object object;
+        try {
+            object = s3Client.getObject(bucketName, key);
+        } catch (AmazonServiceException e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+        ObjectMetadata metadata = object.getObjectMetadata();
+        return new StoredObject(object.getObjectContent(), metadata.getContentLength(), metadata.getContentType(),
+                metadata.getLastModified() == null ? null : metadata.getLastModified().toInstant());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return s3Client.doesObjectExist(bucketName, key);
+    }
+
+    /**
+     * Copies the object within the bucket, which happens server side, and deletes the source.
+     */
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        try {
+            s3Client.copyObject(bucketName, sourceKey, bucketName, targetKey);
+            s3Client.deleteObject(new DeleteObjectRequest(bucketName, sourceKey));
+        } catch (AmazonClientException e) {
+            log.error("Error moving file {} in S3: {}", sourceKey, e.getMessage());
+            throw new CustomFileUploadException("Error uploading file", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            s3Client.deleteObject(new DeleteObjectRequest(bucketName, key));
+            log.info("Deleted file from S3: {}", key);
+        } catch (AmazonServiceException e) {
+            log.error("Error deleting file from S3: {}", e.getMessage());
+            throw new FileDeleteException("Error deleting file from S3");
+        }
+    }
+
+    /**
+     * Deletes up to {@value #MAX_KEYS_PER_DELETE} keys per DeleteObjects request, in quiet mode so
+     * only failures are returned.
+     */
+    @Override
+    public List<String> deleteAll(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        List<String> failed = new ArrayList<>();
+        for (int from = 0; from < keyList.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> batch = keyList.subList(from, Math.min(keyList.size(), from + MAX_KEYS_PER_DELETE));
+            try {
+                s3Client.deleteObjects(new DeleteObjectsRequest(bucketName)
+                        .withKeys(batch.toArray(new String[0]))
+                        .withQuiet(true));
+            } catch (MultiObjectDeleteException e) {
+                e.getErrors().forEach(error -> failed.add(error.getKey()));
+                log.error("Error deleting {} of {} files from S3: {}", e.getErrors().size(), batch.size(),
+                        e.getMessage());
+            } catch (AmazonClientException e) {
+                failed.addAll(batch);
+                log.error("Error deleting {} files from S3: {}", batch.size(), e.getMessage());
+            }
+        }
+        log.info("Deleted {} files from S3", keyList.size() - failed.size());
+        return failed;
+    }
+
+    @Override
+    public String url(String key) {
+        return urlPrefix + key;
+    }
+
+    private static AmazonS3 buildClient(String accessKeyId, String secretKey, String region, String endpoint) {
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials(accessKeyId, secretKey)));
+        if (endpoint == null || endpoint.isEmpty()) {
+            builder.withRegion(region);
+        } else {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region))
+                    .withPathStyleAccessEnabled(true);
+        }
+        return builder.build();
+    }
+
+    private static String urlPrefix(String bucketName, String region, String endpoint) {
+        if (endpoint == null || endpoint.isEmpty()) {
+            return "https://" + bucketName + ".s3." + region + ".amazonaws.com/";
+        }
+        return endpoint.replaceAll("/+$", "") + "/" + bucketName + "/";
+    }
+}
@@ -0,0 +1,77 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.storage;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Object storage for blog images, addressed by flat keys. The implementation is chosen with
+ * {@code auth.storage.backend}: {@code s3} (default) or {@code local} for a directory on this
+ * machine, which needs no network at all. With {@code auth.storage.cache.enabled} an on-disk LRU
+ * cache sits in front of S3 for reads.
+ * <p>
+ * Objects are never modified in place: a new image is stored under a new key, so readers and
+ * caches never see a key change content. Keys are derived from the content, so an object deleted
+ * and stored again under the same key has the same bytes.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores everything {@code content} yields under {@code key} and returns the number of bytes
+     * stored. {@code length} is the exact size if known up front, or {@code -1} to stream a body of
+     * unknown length. Reads the stream once and does not close it.
+     *
+     * @throws com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException if the object could not be stored
+     */
+    long put(String key, InputStream content, long length, String contentType);
+
+    /**
+     * Opens the object stored under {@code key}, or returns {@code null} if there is none. The
+     * caller must close the result.
+     */
+    StoredObject get(String key);
+
+    /**
+     * Whether an object is stored under {@code key}, asking the store itself rather than a cache,
+     * since uploads are skipped on the answer.
+     */
+    boolean exists(String key);
+
+    /**
+     * Moves the object under {@code sourceKey} to {@code targetKey}, replacing any object there.
+     *
+     * @throws com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException if the object could not be moved
+     */
+    void move(String sourceKey, String targetKey);
+
+    /**
+     * Deletes the object under {@code key}; deleting a missing object succeeds.
+     *
+     * @throws com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException if the object could not be deleted
+     */
+    void delete(String key);
+
+    /**
+     * Deletes the objects under {@code keys} and returns the keys that could not be deleted.
+     * Deleting a missing object succeeds. Stores that can delete several objects in one request
+     * override this; by default they are deleted one at a time.
+     */
+    default List<String> deleteAll(Collection<String> keys) {
+        List<String> failed = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (RuntimeException e) {
+                failed.add(key);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Returns the URL clients use to fetch the object under {@code key}. The key is always the
+     * part after the last {@code /}.
+     */
+    String url(String key);
+}
@@ -0,0 +1,52 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.storage;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * An open stored object. When the content is a file on this machine, {@link #getChannel()} and
+ * {@link #getFile()} are set so it can be sent without copying it through the heap; the channel
+ * stays readable even if the file is removed meanwhile.
+ */
+@Getter
+public final class StoredObject implements Closeable {
+
+    private final InputStream content;
+    private final long length;
+    private final String contentType;
+    private final Instant lastModified;
+    private final FileChannel channel;
+    private final Path file;
+
+    public StoredObject(InputStream content, long length, String contentType, Instant lastModified) {
+        this(content, length, contentType, lastModified, null, null);
+    }
+
+    private StoredObject(InputStream content, long length, String contentType, Instant lastModified,
+                         FileChannel channel, Path file) {
+        this.content = content;
+        this.length = length;
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+        this.channel = channel;
+        this.file = file;
+    }
+
+    public static StoredObject ofFile(FileChannel channel, Path file, String contentType, Instant lastModified)
+            throws IOException {
+        return new StoredObject(Channels.newInputStream(channel), channel.size(), contentType, lastModified,
+                channel, file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
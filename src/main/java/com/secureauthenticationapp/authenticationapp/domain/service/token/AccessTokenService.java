@@ -0,0 +1,29 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+/**
+ * Issues, resolves and revokes the bearer tokens handed out by {@code /login}.
+ * The implementation is chosen with {@code auth.token.mode}: {@code opaque} (default) keeps
+ * server-side sessions, {@code signed} issues self-describing HMAC tokens any node can verify.
+ */
+public interface AccessTokenService {
+
+    String issue(String username);
+
+    /**
+     * Returns the username the token was issued to, or {@code null} if it is unknown, expired or revoked.
+     * The token is read from {@code source} starting at {@code offset}, so a raw {@code Bearer} header
+     * can be passed without cutting it first.
+     */
+    String resolveUsername(CharSequence source, int offset);
+
+    /**
+     * Same lookup as {@link #resolveUsername(CharSequence, int)}, returning the user's shared
+     * immutable principal instead of the bare username.
+     */
+    TokenPrincipal resolvePrincipal(CharSequence source, int offset);
+
+    /**
+     * Revokes the token and returns whether it was valid until now.
+     */
+    boolean revoke(CharSequence source, int offset);
+}
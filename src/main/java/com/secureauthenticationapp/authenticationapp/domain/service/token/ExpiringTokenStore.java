@@ -0,0 +1,613 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory store of issued session tokens with an absolute time-to-live and an idle timeout.
+ * <p>
+ * Tokens are kept as two longs in striped, open-addressing tables; the owner is an interned int
+ * user id and timestamps are int seconds, so a live session costs a few dozen bytes and a lookup
+ * neither hashes nor allocates a String.
+ * <p>
+ * Expiry is driven by a hashed timing wheel: every token is parked in the bucket of the tick at
+ * which it may expire, and a single background thread visits one bucket per tick. Tokens whose
+ * idle deadline moved forward in the meantime are simply re-parked, so neither lookups nor expiry
+ * ever scan the whole table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.token.store", havingValue = "memory", matchIfMissing = true)
+public class ExpiringTokenStore implements TokenStore, MeterBinder {
+
+    private static final int SEGMENT_COUNT = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENT_COUNT);
+    private static final int INITIAL_SEGMENT_CAPACITY = 1024;
+
+    private static final int MISSING = -1;
+    private static final int EXPIRED = -2;
+    // Set on a lookup result when the access should be recorded; user ids never reach this bit.
+    private static final int ACCESS_DUE = 1 << 30;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    @Getter
+    private final UsernameRegistry usernames = new UsernameRegistry();
+
+    private final Object wheelLock = new Object();
+    private final KeyBucket[] wheel;
+    private final int wheelMask;
+    private final long tickMillis;
+    private volatile long currentTick;
+
+    private final int ttlSeconds;
+    private final int idleTimeoutSeconds;
+    private final Clock clock;
+    private final long startMillis;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    private volatile AccessLog accessLog;
+    private int accessLogSeconds;
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public ExpiringTokenStore(@Value("${auth.token.ttl:8h}") Duration ttl,
+                              @Value("${auth.token.idle-timeout:30m}") Duration idleTimeout,
+                              @Value("${auth.token.wheel.tick:1s}") Duration tick,
+                              @Value("${auth.token.wheel.size:4096}") int wheelSize) {
+        this(ttl, idleTimeout, tick, wheelSize, Clock.systemUTC());
+    }
+
+    public ExpiringTokenStore(Duration ttl, Duration idleTimeout, Duration tick, int wheelSize, Clock clock) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Timing wheel size must be a power of two: " + wheelSize);
+        }
+        this.ttlSeconds = (int) ttl.toSeconds();
+        this.idleTimeoutSeconds = (int) idleTimeout.toSeconds();
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.wheel = new KeyBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new KeyBucket();
+        }
+        this.wheelMask = wheelSize - 1;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+        this.clock = clock;
+        this.startMillis = clock.millis();
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireEntries, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public String issue(String username) {
+        long[] key = TokenCodec.newKey();
+        store(key[0], key[1], username);
+        return TokenCodec.format(key[0], key[1]);
+    }
+
+    @Override
+    public void put(String token, String username) {
+        if (!TokenCodec.isWellFormed(token, 0)) {
+            throw new IllegalArgumentException("Malformed token");
+        }
+        store(TokenCodec.high(token, 0), TokenCodec.low(token, 0), username);
+    }
+
+    @Override
+    public String getUsername(CharSequence source, int offset) {
+        if (!TokenCodec.isWellFormed(source, offset)) {
+            return null;
+        }
+        long high = TokenCodec.high(source, offset);
+        long low = TokenCodec.low(source, offset);
+        int userId = segmentFor(high, low).lookup(high, low, nowSeconds());
+        if (userId == EXPIRED) {
+            expired.increment();
+            return null;
+        }
+        if (userId == MISSING) {
+            return null;
+        }
+        if ((userId & ACCESS_DUE) != 0) {
+            userId &= ~ACCESS_DUE;
+            accessLog.accessed(high, low);
+        }
+        return usernames.usernameOf(userId);
+    }
+
+    @Override
+    public boolean remove(CharSequence source, int offset) {
+        if (!TokenCodec.isWellFormed(source, offset)) {
+            return false;
+        }
+        long high = TokenCodec.high(source, offset);
+        long low = TokenCodec.low(source, offset);
+        if (segmentFor(high, low).remove(high, low)) {
+            revoked.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public long getRevokedCount() {
+        return revoked.sum();
+    }
+
+    /**
+     * Advances the wheel up to the current time and evicts every token whose deadline has passed.
+     * Runs on the ticker thread; callers outside of tests should not need it.
+     */
+    public synchronized void expireEntries() {
+        try {
+            long nowMillis = clock.millis();
+            int now = toSeconds(nowMillis);
+            long targetTick = (nowMillis - startMillis) / tickMillis;
+            while (currentTick <= targetTick) {
+                expireBucket(now);
+                currentTick++;
+            }
+        } catch (RuntimeException e) {
+            log.error("Token expiry tick failed: {}", e.getMessage());
+        }
+    }
+
+    void store(long high, long low, String username) {
+        int now = nowSeconds();
+        if (segmentFor(high, low).put(high, low, usernames.idFor(username), now, now)) {
+            revoked.increment();
+        }
+        issued.increment();
+        schedule(high, low, deadline(now, now));
+    }
+
+    /**
+     * Reports session activity to {@code log} so a durable store can persist it for the idle
+     * timeout. To keep lookups cheap, an access is only reported when it falls in a later
+     * {@code interval} than the previous one, so the last reported access of a session lags the
+     * real one by less than {@code interval}; {@link Restore} allows for that lag. Must be called
+     * before the store is used.
+     */
+    void logAccesses(Duration interval, AccessLog log) {
+        this.accessLogSeconds = (int) Math.max(1, interval.toSeconds());
+        this.accessLog = log;
+    }
+
+    /**
+     * Starts a bulk load of sessions read back from durable storage. Operations are buffered per
+     * segment and applied one segment at a time, so each table stays hot in cache while it is
+     * rebuilt instead of every insert landing on a cold, random cache line.
+     */
+    Restore beginRestore() {
+        return new Restore();
+    }
+
+    /**
+     * Visits a point-in-time copy of every live session, one segment at a time.
+     */
+    void forEachSession(SessionVisitor visitor) {
+        for (Segment segment : segments) {
+            Segment snapshot;
+            synchronized (segment) {
+                snapshot = segment.copy();
+            }
+            for (int slot = 0; slot < snapshot.userIds.length; slot++) {
+                if (snapshot.userIds[slot] != 0) {
+                    visitor.visit(snapshot.highs[slot], snapshot.lows[slot],
+                            usernames.usernameOf(snapshot.userIds[slot]),
+                            startMillis + snapshot.createdAt[slot] * 1000L,
+                            startMillis + snapshot.lastAccess[slot] * 1000L);
+                }
+            }
+        }
+    }
+
+    private void expireBucket(int now) {
+        int index = (int) (currentTick & wheelMask);
+        KeyBucket bucket;
+        synchronized (wheelLock) {
+            bucket = wheel[index];
+            if (bucket.size == 0) {
+                return;
+            }
+            wheel[index] = new KeyBucket();
+        }
+        for (int i = 0; i < bucket.size; i += 2) {
+            long high = bucket.keys[i];
+            long low = bucket.keys[i + 1];
+            int deadline = segmentFor(high, low).expire(high, low, now);
+            if (deadline == EXPIRED) {
+                expired.increment();
+            } else if (deadline != MISSING) {
+                schedule(high, low, deadline);
+            }
+        }
+    }
+
+    private void schedule(long high, long low, int deadlineSeconds) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineSeconds * 1000L + tickMillis - 1) / tickMillis);
+        synchronized (wheelLock) {
+            wheel[(int) (deadlineTick & wheelMask)].add(high, low);
+        }
+    }
+
+    private int deadline(int createdAt, int lastAccess) {
+        return (int) Math.min((long) createdAt + ttlSeconds, (long) lastAccess + idleTimeoutSeconds);
+    }
+
+    private int nowSeconds() {
+        return toSeconds(clock.millis());
+    }
+
+    private int toSeconds(long millis) {
+        return (int) ((millis - startMillis) / 1000);
+    }
+
+    private Segment segmentFor(long high, long low) {
+        return segments[(int) (mix(high, low) >>> SEGMENT_SHIFT)];
+    }
+
+    private static long mix(long high, long low) {
+        long hash = high ^ Long.rotateLeft(low, 32);
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.tokens.active", this, ExpiringTokenStore::size)
+                .description("Sessions currently held in the token store")
+                .register(registry);
+        FunctionCounter.builder("auth.tokens.issued", this, ExpiringTokenStore::getIssuedCount)
+                .description("Sessions issued since startup")
+                .register(registry);
+        FunctionCounter.builder("auth.tokens.expired", this, ExpiringTokenStore::getExpiredCount)
+                .description("Sessions evicted because their TTL or idle timeout elapsed")
+                .register(registry);
+        FunctionCounter.builder("auth.tokens.revoked", this, ExpiringTokenStore::getRevokedCount)
+                .description("Sessions removed by logout")
+                .register(registry);
+    }
+
+    /**
+     * Linear-probing table of token keys. Slot {@code i} is empty when {@code userIds[i] == 0};
+     * removals shift the following run back instead of leaving tombstones.
+     */
+    private final class Segment {
+        private long[] highs;
+        private long[] lows;
+        private int[] userIds;
+        private int[] createdAt;
+        private int[] lastAccess;
+        private int mask;
+        private int size;
+
+        private Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized boolean put(long high, long low, int userId, int created, int accessed) {
+            if (size >= (mask + 1) - ((mask + 1) >>> 2)) {
+                resize();
+            }
+            int slot = find(high, low);
+            boolean replaced = userIds[slot] != 0;
+            if (!replaced) {
+                highs[slot] = high;
+                lows[slot] = low;
+                size++;
+            }
+            userIds[slot] = userId;
+            createdAt[slot] = created;
+            lastAccess[slot] = accessed;
+            return replaced;
+        }
+
+        private synchronized int lookup(long high, long low, int now) {
+            int slot = find(high, low);
+            if (userIds[slot] == 0) {
+                return MISSING;
+            }
+            if (now >= deadline(createdAt[slot], lastAccess[slot])) {
+                delete(slot);
+                return EXPIRED;
+            }
+            int userId = userIds[slot];
+            if (lastAccess[slot] != now) {
+                if (accessLog != null && lastAccess[slot] / accessLogSeconds != now / accessLogSeconds) {
+                    userId |= ACCESS_DUE;
+                }
+                lastAccess[slot] = now;
+            }
+            return userId;
+        }
+
+        private synchronized void touch(long high, long low, int accessed) {
+            int slot = find(high, low);
+            if (userIds[slot] != 0 && lastAccess[slot] < accessed) {
+                lastAccess[slot] = accessed;
+            }
+        }
+
+        private synchronized int expire(long high, long low, int now) {
+            int slot = find(high, low);
+            if (userIds[slot] == 0) {
+                return MISSING;
+            }
+            int deadline = deadline(createdAt[slot], lastAccess[slot]);
+            if (now >= deadline) {
+                delete(slot);
+                return EXPIRED;
+            }
+            return deadline;
+        }
+
+        private synchronized boolean remove(long high, long low) {
+            int slot = find(high, low);
+            if (userIds[slot] == 0) {
+                return false;
+            }
+            delete(slot);
+            return true;
+        }
+
+        private int find(long high, long low) {
+            int slot = home(high, low);
+            while (userIds[slot] != 0 && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int home(long high, long low) {
+            return (int) mix(high, low) & mask;
+        }
+
+        private void delete(int slot) {
+            int gap = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (userIds[next] == 0) {
+                    break;
+                }
+                int home = home(highs[next], lows[next]);
+                boolean movable = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+                if (movable) {
+                    move(next, gap);
+                    gap = next;
+                }
+            }
+            userIds[gap] = 0;
+            size--;
+        }
+
+        private void move(int from, int to) {
+            highs[to] = highs[from];
+            lows[to] = lows[from];
+            userIds[to] = userIds[from];
+            createdAt[to] = createdAt[from];
+            lastAccess[to] = lastAccess[from];
+        }
+
+        private void resize() {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            int[] oldUserIds = userIds;
+            int[] oldCreatedAt = createdAt;
+            int[] oldLastAccess = lastAccess;
+            allocate(oldUserIds.length * 2);
+            for (int i = 0; i < oldUserIds.length; i++) {
+                if (oldUserIds[i] != 0) {
+                    int slot = find(oldHighs[i], oldLows[i]);
+                    highs[slot] = oldHighs[i];
+                    lows[slot] = oldLows[i];
+                    userIds[slot] = oldUserIds[i];
+                    createdAt[slot] = oldCreatedAt[i];
+                    lastAccess[slot] = oldLastAccess[i];
+                }
+            }
+        }
+
+        private Segment copy() {
+            Segment copy = new Segment(0);
+            copy.highs = highs.clone();
+            copy.lows = lows.clone();
+            copy.userIds = userIds.clone();
+            copy.createdAt = createdAt.clone();
+            copy.lastAccess = lastAccess.clone();
+            copy.mask = mask;
+            copy.size = size;
+            return copy;
+        }
+
+        private void allocate(int capacity) {
+            highs = new long[capacity];
+            lows = new long[capacity];
+            userIds = new int[capacity];
+            createdAt = new int[capacity];
+            lastAccess = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    /**
+     * Buffered replay of puts, accesses and removals. A restored session keeps its original
+     * creation time for the absolute TTL and its last recorded access, plus the reporting lag of
+     * {@link #logAccesses}, for the idle timeout; sessions past either deadline are dropped.
+     */
+    final class Restore {
+        private static final int REMOVED = 0;
+        private static final int ACCESSED = -1;
+
+        private final long[][] keys = new long[SEGMENT_COUNT][16];
+        private final int[][] values = new int[SEGMENT_COUNT][16];
+        private final int[] counts = new int[SEGMENT_COUNT];
+
+        private Restore() {
+        }
+
+        void put(long high, long low, String username, long createdAtMillis) {
+            append(high, low, usernames.idFor(username), toSeconds(createdAtMillis));
+        }
+
+        void access(long high, long low, long accessedMillis) {
+            append(high, low, ACCESSED, toSeconds(accessedMillis));
+        }
+
+        void remove(long high, long low) {
+            append(high, low, REMOVED, 0);
+        }
+
+        /**
+         * Applies the buffered operations in log order within each segment and returns the number
+         * of live sessions.
+         */
+        int apply() {
+            int now = nowSeconds();
+            for (int index = 0; index < SEGMENT_COUNT; index++) {
+                Segment segment = segments[index];
+                long[] segmentKeys = keys[index];
+                int[] segmentValues = values[index];
+                synchronized (segment) {
+                    int needed = (int) Math.min(1 << 30, (long) (segment.size + counts[index] / 2) * 4 / 3 + 1);
+                    while (segment.userIds.length < needed) {
+                        segment.resize();
+                    }
+                    for (int i = 0; i < counts[index]; i += 2) {
+                        long high = segmentKeys[i];
+                        long low = segmentKeys[i + 1];
+                        int userId = segmentValues[i];
+                        int time = segmentValues[i + 1];
+                        if (userId == REMOVED) {
+                            segment.remove(high, low);
+                        } else if (userId == ACCESSED) {
+                            segment.touch(high, low, lastAccess(time, now));
+                        } else {
+                            segment.put(high, low, userId, time, lastAccess(time, now));
+                        }
+                    }
+                    for (int i = 0; i < counts[index]; i += 2) {
+                        if (segmentValues[i] == REMOVED || segmentValues[i] == ACCESSED) {
+                            continue;
+                        }
+                        long high = segmentKeys[i];
+                        long low = segmentKeys[i + 1];
+                        int deadline = segment.expire(high, low, now);
+                        if (deadline != MISSING && deadline != EXPIRED) {
+                            schedule(high, low, deadline);
+                        }
+                    }
+                }
+                keys[index] = null;
+                values[index] = null;
+            }
+            return size();
+        }
+
+        /**
+         * The access recorded at {@code logged} may have been followed by unreported ones for
+         * less than the reporting interval, so the session is treated as active until then.
+         */
+        private int lastAccess(int logged, int now) {
+            return (int) Math.min(now, (long) logged + accessLogSeconds);
+        }
+
+        private void append(long high, long low, int value, int createdAt) {
+            int index = (int) (mix(high, low) >>> SEGMENT_SHIFT);
+            int count = counts[index];
+            if (count == keys[index].length) {
+                keys[index] = Arrays.copyOf(keys[index], count * 2);
+                values[index] = Arrays.copyOf(values[index], count * 2);
+            }
+            keys[index][count] = high;
+            keys[index][count + 1] = low;
+            values[index][count] = value;
+            values[index][count + 1] = createdAt;
+            counts[index] = count + 2;
+        }
+    }
+
+    @FunctionalInterface
+    interface SessionVisitor {
+        void visit(long high, long low, String username, long createdAtMillis, long lastAccessMillis);
+    }
+
+    @FunctionalInterface
+    interface AccessLog {
+        void accessed(long high, long low);
+    }
+
+    /**
+     * Growable list of (high, low) key pairs parked on one wheel slot.
+     */
+    private static final class KeyBucket {
+        private long[] keys = new long[8];
+        private int size;
+
+        private void add(long high, long low) {
+            if (size + 2 > keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            keys[size++] = high;
+            keys[size++] = low;
+        }
+    }
+}
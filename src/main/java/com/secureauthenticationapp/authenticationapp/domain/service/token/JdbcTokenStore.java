@@ -0,0 +1,216 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.SessionTokenEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.SessionTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token store backed by the application database, so sessions survive restarts and are shared by
+ * every node. Rows are keyed by a SHA-256 of the token rather than the token itself, and lookups
+ * hit that primary key; the last-access column is only rewritten once per touch interval so steady
+ * traffic does not turn every request into an update. New sessions are plain inserts rather than a
+ * merge, which would select the row first. Expired rows are deleted by a background task, which
+ * also refreshes the row count reported by {@link #size()}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.token.store", havingValue = "jdbc")
+public class JdbcTokenStore implements TokenStore, MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final SessionTokenRepository repository;
+    private final JdbcOperations jdbcOperations;
+    private final String insertSql;
+    private final Duration ttl;
+    private final Duration idleTimeout;
+    private final Duration touchInterval;
+    private final Duration cleanupInterval;
+    private final Clock clock;
+
+    private volatile int cachedSize;
+    private ScheduledExecutorService cleaner;
+
+    @Autowired
+    public JdbcTokenStore(SessionTokenRepository repository,
+                          JdbcOperations jdbcOperations,
+                          EntityManagerFactory entityManagerFactory,
+                          @Value("${auth.token.ttl:8h}") Duration ttl,
+                          @Value("${auth.token.idle-timeout:30m}") Duration idleTimeout,
+                          @Value("${auth.token.store.touch-interval:1m}") Duration touchInterval,
+                          @Value("${auth.token.store.cleanup-interval:5m}") Duration cleanupInterval) {
+        this(repository, jdbcOperations, insertSql(entityManagerFactory), ttl, idleTimeout, touchInterval,
+                cleanupInterval, Clock.systemUTC());
+    }
+
+    public JdbcTokenStore(SessionTokenRepository repository, JdbcOperations jdbcOperations, String insertSql,
+                          Duration ttl, Duration idleTimeout, Duration touchInterval, Duration cleanupInterval,
+                          Clock clock) {
+        this.repository = repository;
+        this.jdbcOperations = jdbcOperations;
+        this.insertSql = insertSql;
+        this.ttl = ttl;
+        this.idleTimeout = idleTimeout;
+        this.touchInterval = touchInterval;
+        this.cleanupInterval = cleanupInterval;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        refreshSize();
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-table-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = cleanupInterval.toMillis();
+        cleaner.scheduleWithFixedDelay(this::deleteExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    @Override
+    public String issue(String username) {
+        long[] key = TokenCodec.newKey();
+        save(tokenHash(key[0], key[1]), username);
+        return TokenCodec.format(key[0], key[1]);
+    }
+
+    @Override
+    public void put(String token, String username) {
+        if (!TokenCodec.isWellFormed(token, 0)) {
+            throw new IllegalArgumentException("Malformed token");
+        }
+        save(tokenHash(token, 0), username);
+    }
+
+    @Override
+    public String getUsername(CharSequence source, int offset) {
+        if (!TokenCodec.isWellFormed(source, offset)) {
+            return null;
+        }
+        String tokenHash = tokenHash(source, offset);
+        SessionTokenEntity session = repository.findById(tokenHash).orElse(null);
+        if (session == null) {
+            return null;
+        }
+        Instant now = clock.instant();
+        if (!now.isBefore(session.getExpiresAt()) || !now.isBefore(session.getLastAccess().plus(idleTimeout))) {
+            repository.deleteByTokenHash(tokenHash);
+            return null;
+        }
+        if (!now.isBefore(session.getLastAccess().plus(touchInterval))) {
+            repository.touch(tokenHash, now);
+        }
+        return session.getUsername();
+    }
+
+    @Override
+    public boolean remove(CharSequence source, int offset) {
+        return TokenCodec.isWellFormed(source, offset) && repository.deleteByTokenHash(tokenHash(source, offset)) > 0;
+    }
+
+    /**
+     * Row count as of the last cleanup run, so scraping the gauge does not scan the table.
+     */
+    @Override
+    public int size() {
+        return cachedSize;
+    }
+
+    public void deleteExpired() {
+        try {
+            Instant now = clock.instant();
+            int deleted = repository.deleteExpired(now, now.minus(idleTimeout));
+            if (deleted > 0) {
+                log.debug("Deleted {} expired sessions", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to delete expired sessions: {}", e.getMessage());
+        }
+        refreshSize();
+    }
+
+    private void refreshSize() {
+        try {
+            cachedSize = (int) repository.count();
+        } catch (RuntimeException e) {
+            log.error("Failed to count sessions: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.tokens.active", this, JdbcTokenStore::size)
+                .description("Sessions stored in the database")
+                .register(registry);
+    }
+
+    private void save(String tokenHash, String username) {
+        Timestamp now = Timestamp.from(clock.instant());
+        jdbcOperations.update(insertSql, tokenHash, username, now, now, Timestamp.from(now.toInstant().plus(ttl)));
+    }
+
+    private static String insertSql(EntityManagerFactory entityManagerFactory) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(SessionTokenEntity.class);
+        return "insert into " + persister.getTableName() + " ("
+                + persister.getIdentifierColumnNames()[0] + ", "
+                + persister.getPropertyColumnNames("username")[0] + ", "
+                + persister.getPropertyColumnNames("createdAt")[0] + ", "
+                + persister.getPropertyColumnNames("lastAccess")[0] + ", "
+                + persister.getPropertyColumnNames("expiresAt")[0] + ") values (?, ?, ?, ?, ?)";
+    }
+
+    /**
+     * Primary key for a token. It is taken over the parsed bits rather than the text, so a token
+     * typed in upper case still matches.
+     */
+    private static String tokenHash(CharSequence source, int offset) {
+        return tokenHash(TokenCodec.high(source, offset), TokenCodec.low(source, offset));
+    }
+
+    private static String tokenHash(long high, long low) {
+        byte[] bits = ByteBuffer.allocate(16).putLong(high).putLong(low).array();
+        return HexFormat.of().formatHex(SHA256.get().digest(bits));
+    }
+}
@@ -0,0 +1,383 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Token store that survives restarts: sessions live in an {@link ExpiringTokenStore} index and
+ * every issue and logout is appended to a memory-mapped log, as is session activity once per
+ * {@code auth.token.store.access-log-interval} so idle sessions stay expired across a restart. On startup the log is replayed
+ * sequentially to rebuild the index; a background task periodically rewrites the log with only
+ * the sessions that are still live.
+ * <p>
+ * The log is a 64-byte header followed by fixed 64-byte records:
+ * {@code type, username length, 2 spare bytes, CRC32, token high, token low, timestamp millis,
+ * 32 bytes of username}. The timestamp is the creation time of an issue and the access time of an
+ * access record. A zero type marks the end of the written log and a CRC mismatch marks a
+ * torn tail, so replay stops at the first record that is not intact. Writes to the log and to
+ * the index happen under one lock, so a compaction snapshot never misses an acknowledged session.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.token.store", havingValue = "mapped")
+public class MappedFileTokenStore implements TokenStore, MeterBinder {
+
+    private static final int MAGIC = 0x544B4C47;
+    private static final int FORMAT_VERSION = 1;
+    // The header takes one record slot so records never straddle two mapped chunks.
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int MAX_USERNAME_BYTES = 32;
+    private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte ACCESS = 3;
+
+    private final ExpiringTokenStore index;
+    private final Path logPath;
+    private final Duration compactionInterval;
+    private final Duration accessLogInterval;
+    private final Clock clock;
+
+    private FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long writePosition;
+    private ScheduledExecutorService maintenance;
+
+    @Autowired
+    public MappedFileTokenStore(@Value("${auth.token.ttl:8h}") Duration ttl,
+                                @Value("${auth.token.idle-timeout:30m}") Duration idleTimeout,
+                                @Value("${auth.token.wheel.tick:1s}") Duration tick,
+                                @Value("${auth.token.wheel.size:4096}") int wheelSize,
+                                @Value("${auth.token.store.path:data/tokens.log}") String logPath,
+                                @Value("${auth.token.store.compaction-interval:10m}") Duration compactionInterval,
+                                @Value("${auth.token.store.access-log-interval:1m}") Duration accessLogInterval) {
+        this(new ExpiringTokenStore(ttl, idleTimeout, tick, wheelSize, Clock.systemUTC()),
+                Paths.get(logPath), compactionInterval, accessLogInterval, Clock.systemUTC());
+    }
+
+    public MappedFileTokenStore(ExpiringTokenStore index, Path logPath, Duration compactionInterval,
+                                Duration accessLogInterval, Clock clock) {
+        this.index = index;
+        this.logPath = logPath;
+        this.compactionInterval = compactionInterval;
+        this.accessLogInterval = accessLogInterval;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        open();
+        index.start();
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::flush, 1, 1, TimeUnit.SECONDS);
+        long interval = compactionInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        index.stop();
+        close();
+    }
+
+    /**
+     * Maps the log and replays it into the index. Exposed separately from {@link #start()} so the
+     * rebuild can be exercised without background threads.
+     */
+    public synchronized void open() {
+        index.logAccesses(accessLogInterval, this::logAccess);
+        try {
+            Files.createDirectories(logPath.toAbsolutePath().getParent());
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long started = System.nanoTime();
+            if (channel.size() < HEADER_SIZE) {
+                writePosition = HEADER_SIZE;
+                ensureMapped(HEADER_SIZE);
+                chunks.get(0).putInt(0, MAGIC).putInt(4, FORMAT_VERSION);
+            } else {
+                ensureMapped(channel.size());
+                if (chunks.get(0).getInt(0) != MAGIC || chunks.get(0).getInt(4) != FORMAT_VERSION) {
+                    throw new IllegalStateException("Not a token log: " + logPath);
+                }
+                writePosition = replay();
+            }
+            log.info("Token log {} opened with {} live sessions in {} ms", logPath, index.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open token log " + logPath, e);
+        }
+    }
+
+    public synchronized void close() {
+        flush();
+        chunks.clear();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.error("Failed to close token log: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized String issue(String username) {
+        long[] key = TokenCodec.newKey();
+        append(PUT, key[0], key[1], username);
+        index.store(key[0], key[1], username);
+        return TokenCodec.format(key[0], key[1]);
+    }
+
+    @Override
+    public synchronized void put(String token, String username) {
+        if (!TokenCodec.isWellFormed(token, 0)) {
+            throw new IllegalArgumentException("Malformed token");
+        }
+        long high = TokenCodec.high(token, 0);
+        long low = TokenCodec.low(token, 0);
+        append(PUT, high, low, username);
+        index.store(high, low, username);
+    }
+
+    @Override
+    public String getUsername(CharSequence source, int offset) {
+        return index.getUsername(source, offset);
+    }
+
+    @Override
+    public synchronized boolean remove(CharSequence source, int offset) {
+        if (!index.remove(source, offset)) {
+            return false;
+        }
+        append(REMOVE, TokenCodec.high(source, offset), TokenCodec.low(source, offset), null);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    public synchronized long logSize() {
+        return writePosition;
+    }
+
+    /**
+     * Rewrites the log with the sessions that are still live. The snapshot is written without
+     * holding the append lock; records appended meanwhile are copied over before the swap. The new
+     * log is opened and mapped before it replaces the old one, so a failure at any step leaves the
+     * live log in use.
+     */
+    public void compact() {
+        Path compacted = logPath.resolveSibling(logPath.getFileName() + ".compact");
+        FileChannel target = null;
+        try {
+            long snapshotPosition;
+            synchronized (this) {
+                snapshotPosition = writePosition;
+            }
+            target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileChannel snapshot = target;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.clear();
+            snapshot.write(header);
+            ByteBuffer batch = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            index.forEachSession((high, low, username, createdAt, lastAccess) -> {
+                if (batch.remaining() < 2 * RECORD_SIZE) {
+                    writeFully(snapshot, batch);
+                }
+                encode(batch, PUT, high, low, createdAt, username);
+                if (lastAccess > createdAt) {
+                    encode(batch, ACCESS, high, low, lastAccess, null);
+                }
+            });
+            writeFully(snapshot, batch);
+
+            synchronized (this) {
+                for (long position = snapshotPosition; position < writePosition; position += RECORD_SIZE) {
+                    ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+                    for (int i = 0; i < RECORD_SIZE; i++) {
+                        record.put(byteAt(position + i));
+                    }
+                    record.flip();
+                    target.write(record);
+                }
+                target.force(true);
+                long size = target.size();
+                List<MappedByteBuffer> mapped = new ArrayList<>();
+                map(target, mapped, size);
+                Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                FileChannel previous = channel;
+                channel = target;
+                target = null;
+                chunks.clear();
+                chunks.addAll(mapped);
+                long before = writePosition;
+                writePosition = size;
+                closeQuietly(previous);
+                log.info("Compacted token log from {} to {} bytes", before, writePosition);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Token log compaction failed: {}", e.getMessage());
+        } finally {
+            if (target != null) {
+                closeQuietly(target);
+            }
+        }
+    }
+
+    public synchronized void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        index.bindTo(registry);
+        Gauge.builder("auth.tokens.log.bytes", this, MappedFileTokenStore::logSize)
+                .description("Size of the memory-mapped token log")
+                .register(registry);
+    }
+
+    private synchronized void logAccess(long high, long low) {
+        append(ACCESS, high, low, null);
+    }
+
+    private void append(byte type, long high, long low, String username) {
+        ensureMapped(writePosition + RECORD_SIZE);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        encode(record, type, high, low, clock.millis(), username);
+        MappedByteBuffer chunk = chunks.get((int) (writePosition / CHUNK_SIZE));
+        int offset = (int) (writePosition % CHUNK_SIZE);
+        // The type byte goes last so a half-written record still reads as the end of the log.
+        chunk.put(offset + 1, record.array(), 1, RECORD_SIZE - 1);
+        chunk.put(offset, type);
+        writePosition += RECORD_SIZE;
+    }
+
+    private long replay() {
+        long position = HEADER_SIZE;
+        byte[] record = new byte[RECORD_SIZE];
+        CRC32 crc = new CRC32();
+        ExpiringTokenStore.Restore restore = index.beginRestore();
+        long end = chunks.size() * CHUNK_SIZE;
+        while (position + RECORD_SIZE <= end) {
+            MappedByteBuffer chunk = chunks.get((int) (position / CHUNK_SIZE));
+            chunk.get((int) (position % CHUNK_SIZE), record);
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            byte type = buffer.get(0);
+            if (type != PUT && type != REMOVE && type != ACCESS) {
+                break;
+            }
+            crc.reset();
+            crc.update(record, 8, RECORD_SIZE - 8);
+            if (buffer.getInt(4) != (int) crc.getValue()) {
+                log.warn("Token log {} has a torn record at {}, truncating replay", logPath, position);
+                break;
+            }
+            long high = buffer.getLong(8);
+            long low = buffer.getLong(16);
+            if (type == PUT) {
+                String username = new String(record, 32, buffer.get(1), StandardCharsets.UTF_8);
+                restore.put(high, low, username, buffer.getLong(24));
+            } else if (type == ACCESS) {
+                restore.access(high, low, buffer.getLong(24));
+            } else {
+                restore.remove(high, low);
+            }
+            position += RECORD_SIZE;
+        }
+        restore.apply();
+        return position;
+    }
+
+    private static void encode(ByteBuffer target, byte type, long high, long low, long createdAt, String username) {
+        byte[] name = username == null ? new byte[0] : username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_USERNAME_BYTES) {
+            throw new IllegalArgumentException("Username too long for the token log");
+        }
+        int start = target.position();
+        target.put(type).put((byte) name.length).putShort((short) 0).putInt(0)
+                .putLong(high).putLong(low).putLong(createdAt)
+                .put(name).put(new byte[MAX_USERNAME_BYTES - name.length]);
+        CRC32 crc = new CRC32();
+        crc.update(target.array(), target.arrayOffset() + start + 8, RECORD_SIZE - 8);
+        target.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void ensureMapped(long size) {
+        try {
+            map(channel, chunks, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map token log " + logPath, e);
+        }
+    }
+
+    private static void map(FileChannel channel, List<MappedByteBuffer> chunks, long size) throws IOException {
+        while ((long) chunks.size() * CHUNK_SIZE < size) {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close token log: {}", e.getMessage());
+        }
+    }
+
+    private byte byteAt(long position) {
+        return chunks.get((int) (position / CHUNK_SIZE)).get((int) (position % CHUNK_SIZE));
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
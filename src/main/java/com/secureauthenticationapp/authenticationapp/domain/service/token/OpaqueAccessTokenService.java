@@ -0,0 +1,35 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "opaque", matchIfMissing = true)
+public class OpaqueAccessTokenService implements AccessTokenService {
+
+    private final TokenStore tokenStore;
+    private final TokenPrincipalCache principals = new TokenPrincipalCache();
+
+    @Override
+    public String issue(String username) {
+        return tokenStore.issue(username);
+    }
+
+    @Override
+    public String resolveUsername(CharSequence source, int offset) {
+        return tokenStore.getUsername(source, offset);
+    }
+
+    @Override
+    public TokenPrincipal resolvePrincipal(CharSequence source, int offset) {
+        String username = tokenStore.getUsername(source, offset);
+        return username == null ? null : principals.principalFor(username);
+    }
+
+    @Override
+    public boolean revoke(CharSequence source, int offset) {
+        return tokenStore.remove(source, offset);
+    }
+}
@@ -0,0 +1,234 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stateless access tokens: {@code base64url(claims) + "." + base64url(HMAC-SHA256(claims))}.
+ * <p>
+ * The claims carry the key id, a random token id, issue and expiry time and the username, so any
+ * node holding the signing keys can verify a token without shared state. Keys are configured as
+ * {@code auth.token.signing.keys=kid:base64,...}; new tokens are signed with
+ * {@code auth.token.signing.active-key} while every listed key is still accepted, so a key can be
+ * rotated by adding the new one, switching the active id and dropping the old one after one TTL.
+ * Startup fails without keys, unless {@code auth.token.signing.allow-ephemeral-key=true} opts into
+ * a random key for development, whose tokens no other node or later process accepts.
+ * <p>
+ * Logout adds the token id to a node-local {@link TokenRevocationList}; keep the TTL short.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "signed")
+public class SignedAccessTokenService implements AccessTokenService, MeterBinder {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    private final String activeKeyId;
+    private final long ttlSeconds;
+    private final TokenRevocationList revocations;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+    private final TokenPrincipalCache principals = new TokenPrincipalCache();
+
+    @Autowired
+    public SignedAccessTokenService(@Value("${auth.token.signing.keys:}") String signingKeys,
+                                    @Value("${auth.token.signing.active-key:}") String activeKeyId,
+                                    @Value("${auth.token.signing.allow-ephemeral-key:false}") boolean allowEphemeralKey,
+                                    @Value("${auth.token.signed.ttl:15m}") Duration ttl,
+                                    @Value("${auth.token.revocation.bucket:5m}") Duration revocationBucket,
+                                    @Value("${auth.token.revocation.expected-per-bucket:10000}") int expectedRevocations) {
+        this(parseKeys(signingKeys), activeKeyId, allowEphemeralKey, ttl,
+                new TokenRevocationList(revocationBucket.toSeconds(), expectedRevocations), Clock.systemUTC());
+    }
+
+    public SignedAccessTokenService(Map<String, byte[]> signingKeys, String activeKeyId, boolean allowEphemeralKey,
+                                    Duration ttl, TokenRevocationList revocations, Clock clock) {
+        Map<String, byte[]> configured = new LinkedHashMap<>(signingKeys);
+        if (configured.isEmpty()) {
+            if (!allowEphemeralKey) {
+                throw new IllegalStateException("auth.token.signing.keys is required when auth.token.mode=signed");
+            }
+            log.warn("No auth.token.signing.keys configured, using an ephemeral key valid for this process only");
+            byte[] key = new byte[MIN_KEY_LENGTH];
+            random.nextBytes(key);
+            configured.put("ephemeral", key);
+        }
+        configured.forEach((keyId, secret) -> {
+            if (keyId.isEmpty() || keyId.length() > Byte.MAX_VALUE || secret.length < MIN_KEY_LENGTH) {
+                throw new IllegalStateException("Invalid signing key: " + keyId);
+            }
+            keys.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+        });
+        if (activeKeyId == null || activeKeyId.isBlank()) {
+            if (keys.size() != 1) {
+                throw new IllegalStateException("auth.token.signing.active-key is required when several keys are configured");
+            }
+            activeKeyId = keys.keySet().iterator().next();
+        }
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("Active signing key not configured: " + activeKeyId);
+        }
+        this.activeKeyId = activeKeyId;
+        this.ttlSeconds = ttl.toSeconds();
+        this.revocations = revocations;
+        this.clock = clock;
+    }
+
+    @Override
+    public String issue(String username) {
+        long now = nowSeconds();
+        byte[] keyId = activeKeyId.getBytes(StandardCharsets.US_ASCII);
+        byte[] subject = username.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer claims = ByteBuffer.allocate(2 + keyId.length + 3 * Long.BYTES + subject.length)
+                .put(VERSION)
+                .put((byte) keyId.length)
+                .put(keyId)
+                .putLong(random.nextLong())
+                .putLong(now)
+                .putLong(now + ttlSeconds)
+                .put(subject);
+        byte[] payload = claims.array();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(activeKeyId, payload));
+    }
+
+    @Override
+    public String resolveUsername(CharSequence source, int offset) {
+        Claims claims = verify(source, offset);
+        if (claims == null || revocations.isRevoked(claims.tokenId(), claims.expiresAt())) {
+            return null;
+        }
+        return claims.subject();
+    }
+
+    @Override
+    public TokenPrincipal resolvePrincipal(CharSequence source, int offset) {
+        String username = resolveUsername(source, offset);
+        return username == null ? null : principals.principalFor(username);
+    }
+
+    @Override
+    public boolean revoke(CharSequence source, int offset) {
+        Claims claims = verify(source, offset);
+        return claims != null && revocations.revoke(claims.tokenId(), claims.expiresAt(), nowSeconds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.tokens.revocations", revocations, TokenRevocationList::size)
+                .description("Revoked signed tokens that have not expired yet")
+                .register(registry);
+    }
+
+    private Claims verify(CharSequence source, int offset) {
+        if (source == null) {
+            return null;
+        }
+        int separator = -1;
+        for (int i = offset; i < source.length(); i++) {
+            if (source.charAt(i) == '.') {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(ascii(source, offset, separator));
+            byte[] signature = decoder.decode(ascii(source, separator + 1, source.length()));
+            ByteBuffer claims = ByteBuffer.wrap(payload);
+            if (claims.get() != VERSION) {
+                return null;
+            }
+            byte[] keyId = new byte[claims.get()];
+            claims.get(keyId);
+            String kid = new String(keyId, StandardCharsets.US_ASCII);
+            if (!keys.containsKey(kid) || !MessageDigest.isEqual(sign(kid, payload), signature)) {
+                return null;
+            }
+            long tokenId = claims.getLong();
+            claims.getLong();
+            long expiresAt = claims.getLong();
+            if (nowSeconds() >= expiresAt) {
+                return null;
+            }
+            String subject = new String(payload, claims.position(), claims.remaining(), StandardCharsets.UTF_8);
+            return new Claims(tokenId, expiresAt, subject);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String keyId, byte[] payload) {
+        Mac mac = macs.get().computeIfAbsent(keyId, id -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(keys.get(id));
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialise token signature", e);
+            }
+        });
+        return mac.doFinal(payload);
+    }
+
+    private long nowSeconds() {
+        return clock.millis() / 1000;
+    }
+
+    private static byte[] ascii(CharSequence source, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Non-ASCII token");
+            }
+            bytes[i - from] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static Map<String, byte[]> parseKeys(String signingKeys) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        if (signingKeys == null || signingKeys.isBlank()) {
+            return keys;
+        }
+        for (String entry : signingKeys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("Signing keys must be configured as kid:base64secret");
+            }
+            keys.put(entry.substring(0, separator).trim(), Base64.getDecoder().decode(entry.substring(separator + 1).trim()));
+        }
+        return keys;
+    }
+
+    private record Claims(long tokenId, long expiresAt, String subject) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import java.security.SecureRandom;
+
+/**
+ * Textual form of session tokens: 128 random bits rendered as {@code xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx}.
+ * <p>
+ * The layout matches {@link java.util.UUID#toString()} so previously issued tokens stay readable,
+ * but tokens are decoded in place into two longs, which lets the filter read them straight out of
+ * the {@code Authorization} header without creating intermediate Strings.
+ */
+public final class TokenCodec {
+
+    public static final int TOKEN_LENGTH = 36;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TokenCodec() {
+    }
+
+    public static long[] newKey() {
+        return new long[]{RANDOM.nextLong(), RANDOM.nextLong()};
+    }
+
+    public static String format(long high, long low) {
+        char[] chars = new char[TOKEN_LENGTH];
+        int position = 0;
+        for (int nibble = 15; nibble >= 0; nibble--) {
+            position = appendNibble(chars, position, high, nibble);
+        }
+        for (int nibble = 15; nibble >= 0; nibble--) {
+            position = appendNibble(chars, position, low, nibble);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Checks that {@code source} holds a well-formed token starting at {@code offset} and running to its end.
+     */
+    public static boolean isWellFormed(CharSequence source, int offset) {
+        if (source == null || source.length() - offset != TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            char c = source.charAt(offset + i);
+            if (isHyphenPosition(i) ? c != '-' : hexValue(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static long high(CharSequence source, int offset) {
+        return parse(source, offset, 0);
+    }
+
+    public static long low(CharSequence source, int offset) {
+        return parse(source, offset, 19);
+    }
+
+    private static long parse(CharSequence source, int offset, int start) {
+        long value = 0;
+        int digits = 0;
+        for (int i = start; digits < 16; i++) {
+            if (isHyphenPosition(i)) {
+                continue;
+            }
+            value = (value << 4) | hexValue(source.charAt(offset + i));
+            digits++;
+        }
+        return value;
+    }
+
+    private static int appendNibble(char[] chars, int position, long value, int nibble) {
+        if (isHyphenPosition(position)) {
+            chars[position++] = '-';
+        }
+        chars[position++] = HEX[(int) (value >>> (nibble * 4)) & 0xF];
+        return position;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isHyphenPosition(int index) {
+        return index == 8 || index == 13 || index == 18 || index == 23;
+    }
+}
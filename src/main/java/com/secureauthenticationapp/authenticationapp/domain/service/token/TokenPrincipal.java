@@ -0,0 +1,39 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable principal of a token-authenticated user. Instances are cached per username by
+ * {@link TokenPrincipalCache}, so every request of the same user shares one object.
+ */
+@Getter
+public final class TokenPrincipal implements Principal {
+
+    private final String name;
+    private final Collection<GrantedAuthority> authorities;
+
+    public TokenPrincipal(String name) {
+        this.name = name;
+        this.authorities = List.of();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TokenPrincipal principal && name.equals(principal.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,22 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link TokenPrincipal} per username. Entries are only ever created for usernames that passed
+ * token verification, so the cache is bounded by the number of users.
+ */
+public class TokenPrincipalCache {
+
+    private final Map<String, TokenPrincipal> principals = new ConcurrentHashMap<>();
+
+    public TokenPrincipal principalFor(String username) {
+        TokenPrincipal principal = principals.get(username);
+        return principal != null ? principal : principals.computeIfAbsent(username, TokenPrincipal::new);
+    }
+
+    public int size() {
+        return principals.size();
+    }
+}
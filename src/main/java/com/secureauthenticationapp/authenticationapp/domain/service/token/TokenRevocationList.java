@@ -0,0 +1,64 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import com.secureauthenticationapp.authenticationapp.utils.BloomFilter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Remembers revoked signed tokens until they would have expired anyway.
+ * <p>
+ * Revocations are grouped into buckets by the token's expiry time. Each bucket has a Bloom filter
+ * that answers the common "never revoked" case without touching the exact set behind it, and a
+ * whole bucket is dropped once every token it could contain is past its expiry.
+ */
+public class TokenRevocationList {
+
+    private final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private final long bucketSeconds;
+    private final int expectedPerBucket;
+
+    public TokenRevocationList(long bucketSeconds, int expectedPerBucket) {
+        this.bucketSeconds = Math.max(1, bucketSeconds);
+        this.expectedPerBucket = expectedPerBucket;
+    }
+
+    /**
+     * Records the token id and returns {@code false} if it was already revoked.
+     */
+    public boolean revoke(long tokenId, long expiresAtSeconds, long nowSeconds) {
+        purge(nowSeconds);
+        Bucket bucket = buckets.computeIfAbsent(expiresAtSeconds / bucketSeconds, key -> new Bucket(expectedPerBucket));
+        bucket.bloom.put(tokenId);
+        return bucket.revoked.add(tokenId);
+    }
+
+    public boolean isRevoked(long tokenId, long expiresAtSeconds) {
+        Bucket bucket = buckets.get(expiresAtSeconds / bucketSeconds);
+        return bucket != null && bucket.bloom.mightContain(tokenId) && bucket.revoked.contains(tokenId);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            size += entry.getValue().revoked.size();
+        }
+        return size;
+    }
+
+    public void purge(long nowSeconds) {
+        buckets.headMap(nowSeconds / bucketSeconds).clear();
+    }
+
+    private static final class Bucket {
+        private final BloomFilter bloom;
+        private final Set<Long> revoked = ConcurrentHashMap.newKeySet();
+
+        private Bucket(int expectedInsertions) {
+            this.bloom = new BloomFilter(expectedInsertions, 0.01);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+/**
+ * Server-side session storage behind opaque tokens. The implementation is chosen with
+ * {@code auth.token.store}: {@code memory} (default), {@code mapped} for a memory-mapped log that
+ * survives restarts, or {@code jdbc} for sessions shared through the application database.
+ */
+public interface TokenStore {
+
+    /**
+     * Creates a new random token for the user and returns its textual form.
+     */
+    String issue(String username);
+
+    void put(String token, String username);
+
+    /**
+     * Returns the username bound to the token read from {@code source} starting at {@code offset},
+     * or {@code null} if the token is unknown or has expired. A successful lookup counts as activity
+     * for the idle timeout.
+     */
+    String getUsername(CharSequence source, int offset);
+
+    boolean remove(CharSequence source, int offset);
+
+    int size();
+
+    default String getUsername(CharSequence token) {
+        return getUsername(token, 0);
+    }
+
+    default boolean remove(CharSequence token) {
+        return remove(token, 0);
+    }
+}
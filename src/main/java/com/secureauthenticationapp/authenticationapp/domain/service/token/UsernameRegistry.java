@@ -0,0 +1,47 @@
+package com.secureauthenticationapp.authenticationapp.domain.service.token;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns usernames to dense int ids so that sessions can reference their owner with four bytes
+ * instead of a String per login. Ids start at 1; 0 is reserved for "no user".
+ */
+public class UsernameRegistry {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int nextId = 1;
+
+    public int idFor(String username) {
+        Integer id = ids.get(username);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(username);
+            if (id != null) {
+                return id;
+            }
+            int newId = nextId++;
+            String[] current = names;
+            if (newId >= current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[newId] = username;
+            names = current;
+            ids.put(username, newId);
+            return newId;
+        }
+    }
+
+    public String usernameOf(int id) {
+        String[] current = names;
+        return id > 0 && id < current.length ? current[id] : null;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
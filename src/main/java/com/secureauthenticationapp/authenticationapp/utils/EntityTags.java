@@ -0,0 +1,66 @@
+package com.secureauthenticationapp.authenticationapp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * HTTP entity tags for blog resources. A blog's strong tag is derived from its id and the
+ * version column, which the database increments on every write, so it is never recomputed from
+ * the content.
+ */
+public final class EntityTags {
+
+    private static final String WILDCARD = "*";
+    private static final int WEAK_TAG_BYTES = 16;
+
+    private EntityTags() {
+    }
+
+    public static String strong(Long id, Long version) {
+        return "\"" + id + "-" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * Weak tag over the ids and versions of a listing plus anything else the page shows, such as
+     * the total count or next cursor: the first 128 bits of their SHA-256, so distinct pages do
+     * not share a tag in practice.
+     */
+    public static <T> String weak(List<T> rows, Function<T, Long> id, Function<T, Long> version, Object extra) {
+        StringBuilder content = new StringBuilder(rows.size() * 16);
+        for (T row : rows) {
+            content.append(strong(id.apply(row), version.apply(row))).append(',');
+        }
+        content.append(extra);
+        byte[] digest = sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + HexFormat.of().formatHex(digest, 0, WEAK_TAG_BYTES) + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-Match} header against the current strong tag: absent means no
+     * precondition, {@code *} matches any existing resource and weak tags never match.
+     */
+    public static boolean ifMatch(String header, String currentTag) {
+        if (header == null || header.isBlank()) {
+            return true;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(WILDCARD) || tag.equals(currentTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
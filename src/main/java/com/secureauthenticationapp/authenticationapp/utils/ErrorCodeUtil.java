@@ -21,6 +21,11 @@ public class ErrorCodeUtil {
             Map.entry(TokenValidationException.class, 10006),
             Map.entry(BlogNotFoundException.class, 10007),
             Map.entry(BlogOperationException.class, 10008),
+            Map.entry(PasswordHashingBusyException.class, 10009),
+            Map.entry(BlogVersionConflictException.class, 10010),
+            Map.entry(StorageBusyException.class, 10011),
+            Map.entry(ImageNotFoundException.class, 10012),
+            Map.entry(UserImportInProgressException.class, 10013),
 
             Map.entry(MethodArgumentNotValidException.class, 200001),
             Map.entry(ConstraintViolationException.class, 200002),
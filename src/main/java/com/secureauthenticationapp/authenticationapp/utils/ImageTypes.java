@@ -0,0 +1,56 @@
+package com.secureauthenticationapp.authenticationapp.utils;
+
+import java.util.Arrays;
+
+/**
+ * Recognizes the image formats we store from their leading bytes, so a declared content type
+ * can be checked and a stored object's type recovered without keeping it separately.
+ */
+public final class ImageTypes {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PNG = "image/png";
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * Number of leading bytes {@link #detect(byte[], int)} needs to tell every format apart.
+     */
+    public static final int SIGNATURE_LENGTH = PNG_SIGNATURE.length;
+
+    private ImageTypes() {
+    }
+
+    /**
+     * Returns the content type of the image starting with the first {@code length} bytes of
+     * {@code signature}, or {@code null} if it is not a supported format.
+     */
+    public static String detect(byte[] signature, int length) {
+        if (length >= 3 && (signature[0] & 0xFF) == 0xFF && (signature[1] & 0xFF) == 0xD8
+                && (signature[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (length >= PNG_SIGNATURE.length
+                && Arrays.equals(signature, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length)) {
+            return PNG;
+        }
+        return null;
+    }
+
+    public static String detect(byte[] signature) {
+        return detect(signature, signature.length);
+    }
+
+    /**
+     * Returns the file extension for a supported content type, without the dot.
+     */
+    public static String extension(String contentType) {
+        if (JPEG.equals(contentType)) {
+            return "jpg";
+        }
+        if (PNG.equals(contentType)) {
+            return "png";
+        }
+        throw new IllegalArgumentException("Unsupported image type " + contentType);
+    }
+}
@@ -0,0 +1,63 @@
+package com.secureauthenticationapp.authenticationapp.utils;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Continuation token for listings ordered by {@code (timestamp, id)}: the position of the last row
+ * returned, packed into 20 bytes and base64url encoded so clients treat it as opaque.
+ */
+public final class KeysetCursor {
+
+    private static final int LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    private KeysetCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static String encode(LocalDateTime timestamp, long id) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(timestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(timestamp.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        if (nano < 0 || nano > 999_999_999) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new KeysetCursor(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC), buffer.getLong());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,67 @@
+package com.secureauthenticationapp.authenticationapp.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key rate limiter using the generic cell rate algorithm: each key holds one theoretical
+ * arrival time, and a request is admitted with a single compare-and-set when that time is not more
+ * than {@code burst} emission intervals ahead of now. This is equivalent to a token bucket refilled
+ * at {@code permits / period} with capacity {@code burst}, without a lock or a refill thread.
+ * <p>
+ * A key whose arrival time has passed is indistinguishable from a key never seen. An admitted
+ * request never moves the arrival time more than {@code burst} intervals past now, so keys expire
+ * that long after their last use, through Caffeine's timer wheel at amortized constant cost. The
+ * number of keys is bounded by {@code maxKeys}: past that Caffeine evicts keys, preferring ones used
+ * rarely, so a spray of new keys cannot lock out callers that were never limited.
+ */
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> arrivals;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(int permits, long periodNanos, int burst, int maxKeys, LongSupplier nanoClock) {
+        if (permits <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit permits and burst must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, periodNanos / permits);
+        this.toleranceNanos = emissionIntervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.arrivals = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(toleranceNanos, TimeUnit.NANOSECONDS)
+                .ticker(nanoClock::getAsLong)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Admits one request for the key and returns 0, or returns how many nanoseconds the caller has
+     * to wait before a request would be admitted.
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = arrivals.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long ahead = next - now;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return (int) arrivals.estimatedSize();
+    }
+}
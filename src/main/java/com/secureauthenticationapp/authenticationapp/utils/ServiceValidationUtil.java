@@ -3,26 +3,295 @@ package com.secureauthenticationapp.authenticationapp.utils;
 import com.secureauthenticationapp.authenticationapp.domain.exception.EmailAlreadyExistException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.UsernameAlreadyTakenException;
 import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Username and email availability checks backed by a Bloom filter of every registered username
+ * and email, so that the common "definitely free" answer never reaches the database. A possible
+ * hit is confirmed with an {@code existsBy} query.
+ * <p>
+ * The filter is built from the user table on a background thread once the application has started;
+ * until it is ready, and while it is being rebuilt after outgrowing its planned size, every check
+ * goes to the database. Registrations are added as they happen. A registration that later rolls
+ * back only leaves a false positive behind, which costs one extra query.
+ * <p>
+ * Users written elsewhere, by other nodes or the bulk import, are picked up by a refresh every
+ * {@code auth.users.availability.refresh-interval} (default 30s) that reads the rows above the
+ * highest id seen so far, minus a margin for inserts that commit out of id order. Those users may
+ * be reported as available for up to one refresh interval; a row committed further out of order is
+ * picked up by the full rebuild every {@code auth.users.availability.rebuild-interval} (default 6h).
+ * The unique keys on the user table still reject a registration of a taken name, and
+ * {@link #recordRegistration} is called for the rejected values as well.
+ */
 @Component
 @Slf4j
-@AllArgsConstructor
-public class ServiceValidationUtil {
+public class ServiceValidationUtil implements MeterBinder {
+
+    private static final int WARM_UP_PAGE_SIZE = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long REFRESH_OVERLAP_IDS = 1_000;
 
     private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final Duration refreshInterval;
+    private final Duration rebuildInterval;
+    private final Object registrationLock = new Object();
+    private final List<String> pendingKeys = new ArrayList<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final LongAdder filteredLookups = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+
+    private volatile BloomFilter registeredKeys;
+    private long plannedKeys;
+    private long insertedKeys;
+    private long lastSeenId;
+    private ScheduledExecutorService warmUpExecutor;
+
+    @Autowired
+    public ServiceValidationUtil(UserRepository userRepository,
+                                 @Value("${auth.users.availability.expected-users:100000}") long expectedUsers,
+                                 @Value("${auth.users.availability.refresh-interval:30s}") Duration refreshInterval,
+                                 @Value("${auth.users.availability.rebuild-interval:6h}") Duration rebuildInterval) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.refreshInterval = refreshInterval;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    public ServiceValidationUtil(UserRepository userRepository, long expectedUsers) {
+        this(userRepository, expectedUsers, Duration.ofSeconds(30), Duration.ofHours(6));
+    }
+
+    /**
+     * Starts building the filter once the application is ready, because querying repositories
+     * while other beans are still being created can deadlock with the lazily initialized
+     * repository metrics.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        warmUpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-availability-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuild();
+        warmUpExecutor.scheduleWithFixedDelay(this::refreshSafely, refreshInterval.toMillis(),
+                refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        warmUpExecutor.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(),
+                rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (warmUpExecutor != null) {
+            warmUpExecutor.shutdownNow();
+        }
+    }
 
     public void checkIfUserNameExists(String userName) {
-        if (userRepository.findByUsername(userName.trim().toLowerCase()).isPresent()) {
+        if (!isUsernameAvailable(userName)) {
             throw new UsernameAlreadyTakenException("Username already taken");
         }
     }
 
     public void checkIfEmailExists(String email) {
-        if (userRepository.findByEmail(email.trim().toLowerCase()).isPresent()) {
+        if (!isEmailAvailable(email)) {
             throw new EmailAlreadyExistException("Email already exists");
         }
     }
+
+    public boolean isUsernameAvailable(String userName) {
+        String username = normalize(userName);
+        if (definitelyAbsent(usernameKey(username))) {
+            return true;
+        }
+        databaseLookups.increment();
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String emailAddress) {
+        String email = normalize(emailAddress);
+        if (definitelyAbsent(emailKey(email))) {
+            return true;
+        }
+        databaseLookups.increment();
+        return !userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Adds a newly registered user to the filter. Call it once the row has been written.
+     */
+    public void recordRegistration(String userName, String email) {
+        String usernameKey = usernameKey(normalize(userName));
+        String emailKey = emailKey(normalize(email));
+        boolean outgrown;
+        synchronized (registrationLock) {
+            if (rebuilding.get()) {
+                pendingKeys.add(usernameKey);
+                pendingKeys.add(emailKey);
+            }
+            if (registeredKeys != null) {
+                registeredKeys.put(usernameKey);
+                registeredKeys.put(emailKey);
+                insertedKeys += 2;
+            }
+            outgrown = registeredKeys != null && insertedKeys > plannedKeys;
+        }
+        if (outgrown) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Adds users written since the last refresh, by this node or any other, and returns how many
+     * new ones were found. Does nothing until the filter has been built or while it is rebuilt.
+     */
+    public int refresh() {
+        if (registeredKeys == null || rebuilding.get()) {
+            return 0;
+        }
+        long seen;
+        synchronized (registrationLock) {
+            seen = lastSeenId;
+        }
+        long afterId = Math.max(0, seen - REFRESH_OVERLAP_IDS);
+        int added = 0;
+        boolean outgrown;
+        List<UserRepository.UserKeys> page;
+        do {
+            page = userRepository.findKeysAfter(afterId, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+            synchronized (registrationLock) {
+                for (UserRepository.UserKeys user : page) {
+                    registeredKeys.put(usernameKey(normalize(user.getUsername())));
+                    registeredKeys.put(emailKey(normalize(user.getEmail())));
+                    if (user.getUserId() > lastSeenId) {
+                        lastSeenId = user.getUserId();
+                        insertedKeys += 2;
+                        added++;
+                    }
+                    afterId = user.getUserId();
+                }
+            }
+        } while (page.size() == WARM_UP_PAGE_SIZE);
+        synchronized (registrationLock) {
+            outgrown = insertedKeys > plannedKeys;
+        }
+        if (outgrown) {
+            rebuild();
+        }
+        return added;
+    }
+
+    public boolean isFilterReady() {
+        return registeredKeys != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.users.availability.lookups", filteredLookups, LongAdder::sum)
+                .description("Availability checks answered without the database")
+                .tag("source", "filter")
+                .register(registry);
+        FunctionCounter.builder("auth.users.availability.lookups", databaseLookups, LongAdder::sum)
+                .description("Availability checks that queried the database")
+                .tag("source", "database")
+                .register(registry);
+    }
+
+    private boolean definitelyAbsent(String key) {
+        BloomFilter filter = registeredKeys;
+        if (filter != null && !filter.mightContain(key)) {
+            filteredLookups.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void rebuild() {
+        if (rebuilding.compareAndSet(false, true)) {
+            warmUpExecutor.execute(this::warmUp);
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            int added = refresh();
+            if (added > 0) {
+                log.debug("Availability filter picked up {} users written elsewhere", added);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh availability filter: {}", e.getMessage());
+        }
+    }
+
+    private void warmUp() {
+        try {
+            long startedAt = System.nanoTime();
+            long planned = Math.max(expectedUsers, userRepository.count() * 2) * 2;
+            BloomFilter filter = new BloomFilter(planned, FALSE_POSITIVE_RATE);
+            long inserted = 0;
+            long afterId = 0;
+            List<UserRepository.UserKeys> page;
+            do {
+                page = userRepository.findKeysAfter(afterId, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+                for (UserRepository.UserKeys user : page) {
+                    filter.put(usernameKey(normalize(user.getUsername())));
+                    filter.put(emailKey(normalize(user.getEmail())));
+                    inserted += 2;
+                    afterId = user.getUserId();
+                }
+            } while (page.size() == WARM_UP_PAGE_SIZE);
+            synchronized (registrationLock) {
+                for (String key : pendingKeys) {
+                    filter.put(key);
+                }
+                inserted += pendingKeys.size();
+                pendingKeys.clear();
+                plannedKeys = planned;
+                insertedKeys = inserted;
+                lastSeenId = afterId;
+                registeredKeys = filter;
+                rebuilding.set(false);
+            }
+            log.info("Availability filter loaded {} keys in {} ms", inserted, (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (RuntimeException e) {
+            synchronized (registrationLock) {
+                pendingKeys.clear();
+                rebuilding.set(false);
+            }
+            log.warn("Failed to load availability filter, checks will use the database: {}", e.getMessage());
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username;
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email;
+    }
 }
@@ -0,0 +1,169 @@
+package com.secureauthenticationapp.authenticationapp.validation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Membership test against a corpus of breached passwords stored as sorted 8-byte SHA-1 prefixes
+ * (see {@link BreachedPasswordIndexGenerator}). The file is memory-mapped, so the heap cost and
+ * the startup time do not depend on the corpus size; SHA-1 prefixes are uniformly distributed,
+ * which lets an interpolation search find an entry in a handful of probes.
+ * <p>
+ * With 64-bit prefixes the chance that a password is wrongly reported as breached is about
+ * {@code n / 2^64}, negligible even for billions of entries.
+ */
+@Slf4j
+@Component
+public class BreachedPasswordIndex {
+
+    static final int MAGIC = 0x50574958;
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRIES_PER_CHUNK = 1 << 27;
+    private static final int INTERPOLATION_STEPS = 8;
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    });
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    @Autowired
+    public BreachedPasswordIndex(ResourceLoader resourceLoader,
+                                 @Value("${auth.password.breached-index:classpath:owaspCommonPassword/common-passwords.idx}") String location) {
+        this(localFile(resourceLoader.getResource(location)));
+    }
+
+    public BreachedPasswordIndex(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalStateException("Not a breached password index: " + path);
+            }
+            this.size = header.getLong(8);
+            if (channel.size() != HEADER_SIZE + size * Long.BYTES) {
+                throw new IllegalStateException("Truncated breached password index: " + path);
+            }
+            this.chunks = new MappedByteBuffer[(int) ((size + ENTRIES_PER_CHUNK - 1) / ENTRIES_PER_CHUNK)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i * ENTRIES_PER_CHUNK;
+                long entries = Math.min(ENTRIES_PER_CHUNK, size - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * Long.BYTES,
+                        entries * Long.BYTES);
+                chunks[i].order(ByteOrder.BIG_ENDIAN);
+            }
+            log.info("Mapped breached password index {} with {} entries", path, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map breached password index " + path, e);
+        }
+    }
+
+    public boolean contains(String password) {
+        return containsPrefix(prefixOf(password));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    boolean containsPrefix(long prefix) {
+        long key = prefix ^ Long.MIN_VALUE;
+        long low = 0;
+        long high = size - 1;
+        for (int step = 0; step < INTERPOLATION_STEPS && low <= high; step++) {
+            long lowValue = entry(low);
+            long highValue = entry(high);
+            if (key < lowValue || key > highValue) {
+                return false;
+            }
+            if (lowValue == highValue) {
+                return key == lowValue;
+            }
+            long probe = low + (long) (((double) key - lowValue) / ((double) highValue - lowValue) * (high - low));
+            probe = Math.max(low, Math.min(high, probe));
+            long value = entry(probe);
+            if (value == key) {
+                return true;
+            }
+            if (value < key) {
+                low = probe + 1;
+            } else {
+                high = probe - 1;
+            }
+        }
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long value = entry(middle);
+            if (value == key) {
+                return true;
+            }
+            if (value < key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Entry {@code index} with its sign bit flipped, so signed comparison follows the unsigned
+     * order the file is sorted in.
+     */
+    private long entry(long index) {
+        return chunks[(int) (index / ENTRIES_PER_CHUNK)].getLong((int) (index % ENTRIES_PER_CHUNK) * Long.BYTES)
+                ^ Long.MIN_VALUE;
+    }
+
+    static long prefixOf(String password) {
+        byte[] digest = SHA1.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            prefix = (prefix << 8) | (digest[i] & 0xFF);
+        }
+        return prefix;
+    }
+
+    /**
+     * Index files inside a packaged jar cannot be mapped directly and are copied out once;
+     * large corpora should be configured as a {@code file:} location instead.
+     */
+    private static Path localFile(Resource resource) {
+        try {
+            if (resource.isFile()) {
+                return resource.getFile().toPath();
+            }
+            Path copy = Files.createTempFile("breached-passwords", ".idx");
+            copy.toFile().deleteOnExit();
+            try (InputStream input = resource.getInputStream()) {
+                Files.copy(input, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Breached password index not found: " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.secureauthenticationapp.authenticationapp.validation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Builds the file read by {@link BreachedPasswordIndex}: a 16-byte header followed by the sorted,
+ * de-duplicated first 8 bytes of the SHA-1 of every password, as big-endian longs.
+ * <p>
+ * Input lines are either plain passwords or {@code SHA1HEX[:count]} as published by breach
+ * corpora, so a large corpus never has to exist in clear text. The prefixes are sorted in memory,
+ * which needs about 8 bytes of heap per input line.
+ * <pre>
+ * java -cp target/classes com.secureauthenticationapp.authenticationapp.validation.BreachedPasswordIndexGenerator \
+ *     passwords.txt breached-passwords.idx
+ * </pre>
+ */
+public final class BreachedPasswordIndexGenerator {
+
+    private BreachedPasswordIndexGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: BreachedPasswordIndexGenerator <input> <output>");
+        }
+        long started = System.nanoTime();
+        long count = generate(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.printf("Wrote %,d password hashes to %s in %d ms%n", count, args[1],
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public static long generate(Path input, Path output) throws IOException {
+        long[] prefixes = new long[1024];
+        int size = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (size == prefixes.length) {
+                    prefixes = Arrays.copyOf(prefixes, size * 2);
+                }
+                prefixes[size++] = isSha1Line(line)
+                        ? Long.parseUnsignedLong(line.substring(0, 16), 16)
+                        : BreachedPasswordIndex.prefixOf(line);
+            }
+        }
+        // Sort in unsigned order: flipping the sign bit maps it onto the signed order.
+        for (int i = 0; i < size; i++) {
+            prefixes[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(prefixes, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || prefixes[i] != prefixes[unique - 1]) {
+                prefixes[unique++] = prefixes[i];
+            }
+        }
+
+        if (output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(BreachedPasswordIndex.MAGIC).putInt(BreachedPasswordIndex.FORMAT_VERSION).putLong(unique);
+            for (int i = 0; i < unique; i++) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putLong(prefixes[i] ^ Long.MIN_VALUE);
+            }
+            writeFully(channel, buffer);
+        }
+        return unique;
+    }
+
+    private static boolean isSha1Line(String line) {
+        if (line.length() < 40 || (line.length() > 40 && line.charAt(40) != ':')) {
+            return false;
+        }
+        for (int i = 0; i < 40; i++) {
+            if (Character.digit(line.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,29 +1,45 @@
 package com.secureauthenticationapp.authenticationapp.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CachedBlog;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CursorPage;
 import com.secureauthenticationapp.authenticationapp.domain.bean.HttpResponse;
 import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
 import com.secureauthenticationapp.authenticationapp.domain.exception.BlogNotFoundException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.BlogVersionConflictException;
 import com.secureauthenticationapp.authenticationapp.domain.service.BlogService;
-import jakarta.transaction.Transactional;
+import com.secureauthenticationapp.authenticationapp.utils.EntityTags;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/blog")
 @AllArgsConstructor
 public class BlogController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String FIELDS_FULL = "full";
+    private static final String FIELDS_SUMMARY = "summary";
+
     private final BlogService blogService;
     private final ObjectMapper objectMapper;
 
@@ -59,14 +75,14 @@ public class BlogController {
     }
 
     @PutMapping("/update/{id}")
-    @Transactional
     public ResponseEntity<HttpResponse> updateBlog(
             @PathVariable Long id,
             @RequestPart("blog") String blogJson,
-            @RequestPart(value = "imageFile", required = false) MultipartFile imageFile) {
+            @RequestPart(value = "imageFile", required = false) MultipartFile imageFile,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             BlogEntity blogEntity = objectMapper.readValue(blogJson, BlogEntity.class);
-            BlogEntity updatedBlog = blogService.updateBlog(id, blogEntity, imageFile);
+            BlogEntity updatedBlog = blogService.updateBlog(id, blogEntity, imageFile, ifMatch);
             HttpResponse response = HttpResponse.builder()
                     .timeStamp(LocalDateTime.now().toString())
                     .statusCode(HttpStatus.OK.value())
@@ -77,6 +93,8 @@ public class BlogController {
                     .data(Collections.singletonMap("blogId", updatedBlog.getId()))
                     .build();
             return ResponseEntity.ok(response);
+        } catch (BlogVersionConflictException | OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             HttpResponse response = HttpResponse.builder()
                     .timeStamp(LocalDateTime.now().toString())
@@ -90,9 +108,44 @@ public class BlogController {
         }
     }
 
+    /**
+     * Streams the request body, a raw JPEG or PNG, to object storage as the blog's new image. The
+     * body is read once and never buffered whole, so images may exceed the multipart size limit.
+     */
+    @PutMapping(value = "/{id}/image", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE})
+    public ResponseEntity<HttpResponse> replaceBlogImage(
+            @PathVariable Long id,
+            @RequestParam(value = "name", defaultValue = "image") String name,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            HttpServletRequest request) throws IOException {
+        BlogEntity blog = blogService.replaceBlogImage(id, request.getInputStream(),
+                contentType.getType() + "/" + contentType.getSubtype(), name, ifMatch);
+        HttpResponse response = HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(HttpStatus.OK.value())
+                .status(HttpStatus.OK)
+                .reason(HttpStatus.OK.getReasonPhrase())
+                .message("Blog image updated successfully")
+                .developerMessage("Blog image upload processed")
+                .data(Map.of("blogId", blog.getId(), "imageUrl", blog.getImageUrl()))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Revalidation with {@code If-None-Match} reads only the version, from the cache or the
+     * version column, and answers 304 without loading the content.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<HttpResponse> getBlogById(@PathVariable Long id) {
-        BlogEntity blog = blogService.getBlogById(id)
+    public ResponseEntity<HttpResponse> getBlogById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = blogService.getBlogVersion(id);
+            if (version.isPresent() && request.checkNotModified(EntityTags.strong(id, version.get()))) {
+                return null;
+            }
+        }
+        CachedBlog blog = blogService.getCachedBlog(id)
                 .orElseThrow(() -> new BlogNotFoundException("Blog not found with id " + id));
         HttpResponse response = HttpResponse.builder()
                 .timeStamp(LocalDateTime.now().toString())
@@ -103,12 +156,48 @@ public class BlogController {
                 .developerMessage("Blog retrieval processed")
                 .data(Collections.singletonMap("blog", blog))
                 .build();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(blog.getEtag()).body(response);
     }
 
+    /**
+     * Offset pages with a total count by default. Passing {@code cursor} (empty for the first page)
+     * switches to keyset pages that return a {@code nextCursor} instead of counts.
+     * {@code fields=summary} returns only id, title, intro, creation date and image URL. Every
+     * page carries a weak ETag over its ids and versions.
+     */
     @GetMapping("/all-blogs")
-    public ResponseEntity<HttpResponse> getAllBlogs(@PageableDefault(size = 5) Pageable pageable) {
-        Page<BlogEntity> page = blogService.getAllBlogs(pageable);
+    public ResponseEntity<HttpResponse> getAllBlogs(@PageableDefault(size = 5) Pageable pageable,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = FIELDS_FULL) String fields,
+                                                    WebRequest request) {
+        boolean summary = isSummary(fields);
+        int cursorPageSize = Math.min(pageable.getPageSize(), MAX_CURSOR_PAGE_SIZE);
+        Object page;
+        String etag;
+        if (cursor == null && summary) {
+            Page<BlogSummary> blogs = blogService.getBlogSummaries(pageable);
+            etag = EntityTags.weak(blogs.getContent(), BlogSummary::getId, BlogSummary::getVersion,
+                    FIELDS_SUMMARY + blogs.getTotalElements());
+            page = blogs;
+        } else if (cursor == null) {
+            Page<BlogEntity> blogs = blogService.getAllBlogs(pageable);
+            etag = EntityTags.weak(blogs.getContent(), BlogEntity::getId, BlogEntity::getVersion,
+                    FIELDS_FULL + blogs.getTotalElements());
+            page = blogs;
+        } else if (summary) {
+            CursorPage<BlogSummary> blogs = blogService.getBlogSummariesAfter(cursor, cursorPageSize);
+            etag = EntityTags.weak(blogs.getContent(), BlogSummary::getId, BlogSummary::getVersion,
+                    FIELDS_SUMMARY + blogs.getNextCursor());
+            page = blogs;
+        } else {
+            CursorPage<BlogEntity> blogs = blogService.getBlogsAfter(cursor, cursorPageSize);
+            etag = EntityTags.weak(blogs.getContent(), BlogEntity::getId, BlogEntity::getVersion,
+                    FIELDS_FULL + blogs.getNextCursor());
+            page = blogs;
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         HttpResponse response = HttpResponse.builder()
                 .timeStamp(LocalDateTime.now().toString())
                 .statusCode(HttpStatus.OK.value())
@@ -118,12 +207,32 @@ public class BlogController {
                 .developerMessage("Blog retrieval processed")
                 .data(Collections.singletonMap("blogs", page))
                 .build();
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+    /**
+     * Ranked full-text search over title, intro, content and conclusion, returning summaries.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<HttpResponse> searchBlogs(@RequestParam("q") String query,
+                                                    @PageableDefault(size = 10) Pageable pageable) {
+        Page<BlogSummary> blogs = blogService.searchBlogs(query, pageable);
+        HttpResponse response = HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(HttpStatus.OK.value())
+                .status(HttpStatus.OK)
+                .reason(HttpStatus.OK.getReasonPhrase())
+                .message("Blogs found successfully")
+                .developerMessage("Blog search processed")
+                .data(Collections.singletonMap("blogs", blogs))
+                .build();
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<HttpResponse> deleteBlog(@PathVariable Long id) {
-        blogService.deleteBlog(id);
+    public ResponseEntity<HttpResponse> deleteBlog(@PathVariable Long id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        blogService.deleteBlog(id, ifMatch);
         HttpResponse response = HttpResponse.builder()
                 .timeStamp(LocalDateTime.now().toString())
                 .statusCode(HttpStatus.OK.value())
@@ -136,5 +245,13 @@ public class BlogController {
         return ResponseEntity.ok(response);
     }
 
+    private static boolean isSummary(String fields) {
+        if (FIELDS_SUMMARY.equalsIgnoreCase(fields)) {
+            return true;
+        }
+        if (FIELDS_FULL.equalsIgnoreCase(fields)) {
+            return false;
+        }
+        throw new IllegalArgumentException("fields must be '" + FIELDS_SUMMARY + "' or '" + FIELDS_FULL + "'");
+    }
 }
-
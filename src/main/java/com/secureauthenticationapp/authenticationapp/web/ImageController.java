@@ -0,0 +1,29 @@
+package com.secureauthenticationapp.authenticationapp.web;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/v1/blog/images")
+@AllArgsConstructor
+public class ImageController {
+
+    private final StorageService storageService;
+
+    @GetMapping("/{key}")
+    public void getImage(@PathVariable String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        try (StoredObject image = storageService.openImage(key)) {
+            ImageResponseWriter.write(image, request, response);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.secureauthenticationapp.authenticationapp.web;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * Writes a stored image as an HTTP response, honouring {@code If-Modified-Since} and a single
+ * byte {@code Range} (several ranges are answered with the whole image, which HTTP allows).
+ * <p>
+ * Objects never change under a key, so responses may be cached for a year without revalidation,
+ * by shared caches as well: images are served without authentication (see {@code SecurityConfig}).
+ * A local file is handed to Tomcat's sendfile support, which copies it from the page cache to the
+ * socket without passing through user space; elsewhere, such as over TLS, it is sent with
+ * {@link FileChannel#transferTo}. Objects that are not local files are streamed.
+ */
+public final class ImageResponseWriter {
+
+    static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Below this size copying is cheaper than setting up sendfile, the threshold Tomcat's own
+     * static file servlet uses.
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private ImageResponseWriter() {
+    }
+
+    public static void write(StoredObject image, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long lastModified = image.getLastModified() == null ? -1 : image.getLastModified().toEpochMilli();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified(lastModified)) {
+            return;
+        }
+        long length = image.getLength();
+        long start = 0;
+        long end = length - 1;
+        response.setContentType(image.getContentType());
+        if (length >= 0) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            List<HttpRange> ranges = requestedRanges(request, lastModified);
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            response.setContentLengthLong(end - start + 1);
+        }
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (image.getChannel() == null || length < 0) {
+            StreamUtils.copyRange(image.getContent(), response.getOutputStream(), start,
+                    length < 0 ? Long.MAX_VALUE - 1 : end);
+            return;
+        }
+        long count = end - start + 1;
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat reopens the file by name once we return. It was just read, so the cache
+            // would have to admit a full cache size of other objects meanwhile to evict it.
+            request.setAttribute(SENDFILE_FILENAME, image.getFile().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(image.getChannel(), start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private static void transfer(FileChannel file, long position, long count, WritableByteChannel out)
+            throws IOException {
+        while (count > 0) {
+            long sent = file.transferTo(position, count, out);
+            if (sent <= 0) {
+                throw new IOException("Stored file is shorter than its recorded length");
+            }
+            position += sent;
+            count -= sent;
+        }
+    }
+
+    /**
+     * Returns the ranges asked for, or none if there is no usable {@code Range} header or an
+     * {@code If-Range} date shows the client holds another version.
+     */
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            long validator;
+            try {
+                validator = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                return List.of();
+            }
+            if (lastModified < 0 || validator != lastModified / 1000 * 1000) {
+                return List.of();
+            }
+        }
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
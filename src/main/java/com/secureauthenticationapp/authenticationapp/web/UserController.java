@@ -15,6 +15,8 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -70,6 +72,31 @@ public class UserController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @GetMapping("/availability")
+    public ResponseEntity<HttpResponse> checkAvailability(@RequestParam(required = false) String username,
+                                                          @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            throw new IllegalArgumentException("Provide a username or an email to check");
+        }
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", userService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", userService.isEmailAvailable(email));
+        }
+        HttpResponse response = HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(HttpStatus.OK.value())
+                .status(HttpStatus.OK)
+                .reason(HttpStatus.OK.getReasonPhrase())
+                .message("Availability checked")
+                .developerMessage("Availability processed")
+                .data(availability)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/logout")
     public ResponseEntity<HttpResponse> logoutUser(@Valid @RequestHeader("Authorization") String authHeader) {
         final String token = authHeader.substring(7);
@@ -0,0 +1,61 @@
+package com.secureauthenticationapp.authenticationapp.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportSummary;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserImportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams a bulk import: the request body is NDJSON or CSV, and the response is NDJSON with one
+ * line per rejected row followed by a summary line. Requires the access token of a user listed in
+ * {@code auth.admin.usernames}, since imported rows may carry ready-made password hashes, and is
+ * only mapped when {@code auth.users.import.enabled=true}.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/users")
+@ConditionalOnProperty(name = "auth.users.import.enabled", havingValue = "true")
+@AllArgsConstructor
+public class UserImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/import", consumes = {NDJSON, CSV}, produces = NDJSON)
+    public void importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body,
+                            HttpServletResponse response) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        OutputStream output = response.getOutputStream();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON);
+        UserImportSummary summary = userImportService.importUsers(body, format, error -> writeLine(output, error));
+        writeLine(output, summary);
+    }
+
+    private void writeLine(OutputStream output, Object value) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of serializing a 50-row {@code /all-blogs} page of full {@link BlogEntity} rows
+ * against the same page as {@link BlogSummary} projections. Rows use realistic column lengths and
+ * the setup prints the JSON size of each page.
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.BlogListingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlogListingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private PageImpl<BlogEntity> fullPage;
+    private PageImpl<BlogSummary> summaryPage;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<BlogEntity> blogs = new ArrayList<>();
+        List<BlogSummary> summaries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            BlogEntity blog = BlogEntity.builder()
+                    .id((long) i)
+                    .title("Blog title " + i)
+                    .intro("i".repeat(300))
+                    .content("c".repeat(5800))
+                    .conclusion("d".repeat(450))
+                    .creationDate(now.minusMinutes(i))
+                    .imageUrl("https://bucket.s3.amazonaws.com/" + i + ".jpg")
+                    .build();
+            blogs.add(blog);
+            summaries.add(projections.createProjection(BlogSummary.class, Map.of(
+                    "id", blog.getId(),
+                    "title", blog.getTitle(),
+                    "intro", blog.getIntro(),
+                    "creationDate", blog.getCreationDate(),
+                    "imageUrl", blog.getImageUrl())));
+        }
+        PageRequest pageable = PageRequest.of(0, PAGE_SIZE);
+        fullPage = new PageImpl<>(blogs, pageable, 1000);
+        summaryPage = new PageImpl<>(summaries, pageable, 1000);
+        System.out.printf("%nfull page %,d bytes, summary page %,d bytes%n",
+                objectMapper.writeValueAsBytes(fullPage).length, objectMapper.writeValueAsBytes(summaryPage).length);
+    }
+
+    @Benchmark
+    public byte[] fullPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fullPage);
+    }
+
+    @Benchmark
+    public byte[] summaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaryPage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BlogListingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
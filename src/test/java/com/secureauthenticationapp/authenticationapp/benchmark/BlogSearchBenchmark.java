@@ -0,0 +1,150 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogSearchIndex;
+import com.secureauthenticationapp.authenticationapp.domain.service.LocalBlogInvalidationBroadcast;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds a {@link BlogSearchIndex} from synthetic posts whose words follow a Zipf distribution
+ * over a 50,000 word vocabulary, then reports the index size and the latency of common, rare,
+ * conjunctive, phrase and deep-page queries, e.g.
+ * <pre>
+ * java -Xmx2g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.BlogSearchBenchmark 1000000 300
+ * </pre>
+ * The arguments are the number of posts and the words of content per post.
+ */
+public final class BlogSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 2_000;
+
+    private static String[] words;
+    private static double[] cumulative;
+
+    private BlogSearchBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int contentWords = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        buildVocabulary();
+        Path directory = Files.createTempDirectory("blog-index");
+        BlogSearchIndex index = new BlogSearchIndex(repository(posts, contentWords),
+                new LocalBlogInvalidationBroadcast(), directory, 0, Duration.ofMinutes(1));
+        long started = System.nanoTime();
+        index.open();
+        index.rebuild();
+        while (index.isRebuilding()) {
+            Thread.sleep(100);
+        }
+        System.out.printf("indexed %,d posts in %.1f s, %,d bytes on disk%n", index.documentCount(),
+                (System.nanoTime() - started) / 1e9, size(directory));
+
+        measure(index, "common term", random -> words[random.nextInt(10)], 0);
+        measure(index, "mid-frequency term", random -> words[1_000 + random.nextInt(1_000)], 0);
+        measure(index, "rare term", random -> words[40_000 + random.nextInt(10_000)], 0);
+        measure(index, "two terms", random -> words[random.nextInt(500)] + " " + words[random.nextInt(500)], 0);
+        measure(index, "phrase", random -> "\"" + words[random.nextInt(50)] + " " + words[random.nextInt(50)] + "\"", 0);
+        measure(index, "common term, page 50", random -> words[random.nextInt(10)], 500);
+
+        index.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void measure(BlogSearchIndex index, String name, QueryGenerator generator, int offset) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(generator.next(random), offset, 10);
+        }
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String query = generator.next(random);
+            long started = System.nanoTime();
+            hits += index.search(query, offset, 10).totalHits();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-22s p50 %7.3f ms  p99 %7.3f ms  avg hits %,d%n", name,
+                nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6, hits / QUERIES);
+    }
+
+    private static BlogRepository repository(int posts, int contentWords) {
+        return (BlogRepository) Proxy.newProxyInstance(BlogRepository.class.getClassLoader(),
+                new Class<?>[]{BlogRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findMaxId" -> (long) posts;
+                    case "findByIdRange" -> posts((long) args[0], (long) args[1], contentWords);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<BlogEntity> posts(long afterId, long toId, int contentWords) {
+        List<BlogEntity> blogs = new ArrayList<>((int) (toId - afterId));
+        for (long id = afterId + 1; id <= toId; id++) {
+            SplittableRandom random = new SplittableRandom(id);
+            blogs.add(BlogEntity.builder()
+                    .id(id)
+                    .title(text(random, 6))
+                    .intro(text(random, 40))
+                    .content(text(random, contentWords))
+                    .conclusion(text(random, 30))
+                    .build());
+        }
+        return blogs;
+    }
+
+    private static String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length * 8);
+        for (int i = 0; i < length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            text.append(words[Math.min(VOCABULARY - 1, rank < 0 ? -rank - 1 : rank)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static void buildVocabulary() {
+        words = new String[VOCABULARY];
+        cumulative = new double[VOCABULARY];
+        SplittableRandom random = new SplittableRandom(42);
+        double total = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            char[] word = new char[4 + random.nextInt(6)];
+            for (int c = 0; c < word.length; c++) {
+                word[c] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < VOCABULARY; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    @FunctionalInterface
+    private interface QueryGenerator {
+        String next(SplittableRandom random);
+    }
+}
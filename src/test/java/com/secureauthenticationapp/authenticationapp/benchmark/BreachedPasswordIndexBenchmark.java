@@ -0,0 +1,80 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.validation.BreachedPasswordIndex;
+import com.secureauthenticationapp.authenticationapp.validation.BreachedPasswordIndexGenerator;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+
+/**
+ * Builds a synthetic breach corpus of random SHA-1 lines, then measures how long the index takes
+ * to open, the heap it retains and the cost of a lookup, e.g.
+ * <pre>
+ * java -Xmx3g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.BreachedPasswordIndexBenchmark 100000000
+ * </pre>
+ */
+public final class BreachedPasswordIndexBenchmark {
+
+    private static final int LOOKUPS = 1_000_000;
+
+    private BreachedPasswordIndexBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = Files.createTempDirectory("breached");
+        Path corpus = directory.resolve("corpus.txt");
+        Path index = directory.resolve("breached.idx");
+        SplittableRandom random = new SplittableRandom(42);
+        HexFormat hex = HexFormat.of().withUpperCase();
+        byte[] hash = new byte[20];
+        try (BufferedWriter writer = Files.newBufferedWriter(corpus, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < entries; i++) {
+                random.nextBytes(hash);
+                writer.write(hex.formatHex(hash));
+                writer.write(":1\n");
+            }
+        }
+        long generateStarted = System.nanoTime();
+        BreachedPasswordIndexGenerator.generate(corpus, index);
+        System.out.printf("generated %,d entries in %d ms%n", entries, (System.nanoTime() - generateStarted) / 1_000_000);
+        Files.delete(corpus);
+
+        // Load the index and logging classes first so they are not counted below.
+        new BreachedPasswordIndex(index);
+        System.gc();
+        long heapBefore = usedHeap();
+        long openStarted = System.nanoTime();
+        BreachedPasswordIndex breachedPasswords = new BreachedPasswordIndex(index);
+        long openNanos = System.nanoTime() - openStarted;
+        System.gc();
+        System.out.printf("opened in %.2f ms, %,d bytes of heap retained%n", openNanos / 1e6, usedHeap() - heapBefore);
+
+        for (int round = 0; round < 3; round++) {
+            int found = 0;
+            long started = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (breachedPasswords.contains("candidate-password-" + i)) {
+                    found++;
+                }
+            }
+            System.out.printf("%,d lookups in %d ms (%.0f ns each, %d found)%n", LOOKUPS,
+                    (System.nanoTime() - started) / 1_000_000, (System.nanoTime() - started) / (double) LOOKUPS, found);
+        }
+        if (breachedPasswords.size() != entries) {
+            System.out.println("unexpected size " + breachedPasswords.size());
+        }
+        Files.delete(index);
+        Files.delete(directory);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
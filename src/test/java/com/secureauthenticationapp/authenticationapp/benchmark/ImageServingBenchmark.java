@@ -0,0 +1,185 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.LocalStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import com.secureauthenticationapp.authenticationapp.web.ImageResponseWriter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves local images from an embedded Tomcat three ways and reports throughput and the heap
+ * allocated by the request threads: through {@link ImageResponseWriter} with sendfile, through it
+ * with sendfile hidden so it falls back to {@code FileChannel.transferTo}, and by reading each
+ * file into a {@code byte[]} and writing that, e.g.
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.ImageServingBenchmark 2048 8 10
+ * </pre>
+ * The arguments are the image size in kilobytes, the number of concurrent clients and the
+ * seconds spent on each variant. The clients run in the same process over loopback.
+ */
+public final class ImageServingBenchmark {
+
+    private static final int IMAGES = 32;
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+    private ImageServingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 2048) * 1024;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+
+        Path directory = Files.createTempDirectory("image-serving");
+        LocalStorageBackend store = new LocalStorageBackend(directory, "/", Long.MAX_VALUE);
+        store.start();
+        byte[] image = new byte[size];
+        image[0] = (byte) 0xFF;
+        image[1] = (byte) 0xD8;
+        image[2] = (byte) 0xFF;
+        for (int i = 0; i < IMAGES; i++) {
+            image[3] = (byte) i;
+            store.put(key(i), new ByteArrayInputStream(image), size, "image/jpeg");
+        }
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        tomcat.setPort(0);
+        Context context = tomcat.addContext("", null);
+        addServlet(context, "sendfile", (request, response, key) -> {
+            try (StoredObject object = store.get(key)) {
+                ImageResponseWriter.write(object, request, response);
+            }
+        });
+        addServlet(context, "transfer", (request, response, key) -> {
+            try (StoredObject object = store.get(key)) {
+                ImageResponseWriter.write(object, new WithoutSendfile(request), response);
+            }
+        });
+        addServlet(context, "heap", (request, response, key) -> {
+            byte[] body = Files.readAllBytes(directory.resolve(key));
+            response.setContentType("image/jpeg");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        });
+        tomcat.getConnector();
+        tomcat.start();
+        int port = tomcat.getConnector().getLocalPort();
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(clients)).build();
+        System.out.printf("%d images of %d KB, %d clients, %d s each%n", IMAGES, size >> 10, clients, seconds);
+        try {
+            for (int round = 0; round < 2; round++) {
+                for (String variant : List.of("sendfile", "transfer", "heap")) {
+                    run(variant, client, port, clients, seconds);
+                }
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+        System.exit(0);
+    }
+
+    private static void run(String variant, HttpClient client, int port, int clients, long seconds) throws Exception {
+        LongAdder bytes = new LongAdder();
+        LongAdder requests = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long allocatedBefore = requestThreadAllocation();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long started = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int first = c;
+            workers.add(executor.submit(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                for (int i = first; System.nanoTime() < deadline; i++) {
+                    HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + port + "/" + variant + "/" + key(i % IMAGES))).build();
+                    HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    try (InputStream body = response.body()) {
+                        for (int read; (read = body.read(buffer)) > 0; ) {
+                            bytes.add(read);
+                        }
+                    }
+                    requests.increment();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        long allocated = requestThreadAllocation() - allocatedBefore;
+        System.out.printf("%-9s %,7.0f MB/s, %,6.0f req/s, %,8.1f KB allocated per request%n", variant,
+                bytes.sum() / 1048576.0 / elapsed, requests.sum() / elapsed, allocated / 1024.0 / requests.sum());
+    }
+
+    /**
+     * Bytes allocated so far by Tomcat's request threads.
+     */
+    private static long requestThreadAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("http-nio-")) {
+                total += Math.max(0, threads.getThreadAllocatedBytes(info.getThreadId()));
+            }
+        }
+        return total;
+    }
+
+    private static String key(int i) {
+        return "image-" + i + ".jpg";
+    }
+
+    private static void addServlet(Context context, String name, Handler handler) {
+        Tomcat.addServlet(context, name, new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                handler.handle(request, response, request.getPathInfo().substring(1));
+            }
+        });
+        context.addServletMappingDecoded("/" + name + "/*", name);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response, String key) throws IOException;
+    }
+
+    private static final class WithoutSendfile extends HttpServletRequestWrapper {
+        WithoutSendfile(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return SENDFILE_SUPPORTED.equals(name) ? null : super.getAttribute(name);
+        }
+    }
+}
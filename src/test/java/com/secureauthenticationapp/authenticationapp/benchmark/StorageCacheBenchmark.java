@@ -0,0 +1,175 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.CachingStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.LocalStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads images with Zipf-distributed popularity from a remote store that adds a fixed round-trip
+ * delay to every read, once directly and once through a {@link CachingStorageBackend} holding a
+ * fraction of them, and reports throughput, latency percentiles and the hit ratio. Both stores
+ * live in temporary directories, so nothing leaves the machine, e.g.
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.StorageCacheBenchmark 2000 200 100 20
+ * </pre>
+ * The arguments are the number of images, the size of each in kilobytes, the cache size in
+ * megabytes and the simulated round trip in milliseconds.
+ */
+public final class StorageCacheBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int READS = 20_000;
+
+    private StorageCacheBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int images = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int size = (args.length > 1 ? Integer.parseInt(args[1]) : 200) * 1024;
+        long cacheBytes = (args.length > 2 ? Long.parseLong(args[2]) : 100) << 20;
+        long roundTripMillis = args.length > 3 ? Long.parseLong(args[3]) : 20;
+
+        LocalStorageBackend store = new LocalStorageBackend(Files.createTempDirectory("storage-remote"),
+                "https://bucket/", Long.MAX_VALUE);
+        store.start();
+        byte[] image = new byte[size];
+        for (int i = 0; i < images; i++) {
+            image[0] = (byte) i;
+            store.put(key(i), new ByteArrayInputStream(image), size, "image/jpeg");
+        }
+        StorageBackend remote = new SlowBackend(store, roundTripMillis);
+        Path cacheDirectory = Files.createTempDirectory("storage-cache");
+        CachingStorageBackend cache = new CachingStorageBackend(remote, cacheDirectory, cacheBytes);
+        cache.start();
+        double[] zipf = zipf(images);
+        System.out.printf("%,d images of %d KB, cache %d MB (%.0f%% of them), round trip %d ms%n", images,
+                size >> 10, cacheBytes >> 20, 100.0 * cacheBytes / ((long) images * size), roundTripMillis);
+
+        run("remote", remote, zipf);
+        run("cached", cache, zipf);
+        run("cached", cache, zipf);
+    }
+
+    private static void run(String name, StorageBackend backend, double[] zipf) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long[] latencies = new long[READS];
+        long started = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int first = t;
+            workers.add(executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(first);
+                byte[] buffer = new byte[64 * 1024];
+                for (int i = first; i < READS; i += THREADS) {
+                    long begin = System.nanoTime();
+                    try (StoredObject object = backend.get(key(pick(zipf, random.nextDouble())));
+                         InputStream content = object.getContent()) {
+                        while (content.read(buffer) > 0) {
+                            // drain
+                        }
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        Arrays.sort(latencies);
+        String cached = backend instanceof CachingStorageBackend cache
+                ? String.format(", %d MB cached", cache.getCachedBytes() >> 20) : "";
+        System.out.printf("%-7s %,.0f reads/s, p50 %.2f ms, p99 %.2f ms%s%n", name, READS / seconds,
+                latencies[READS / 2] / 1e6, latencies[READS * 99 / 100] / 1e6, cached);
+    }
+
+    private static String key(int i) {
+        return "image-" + i + ".jpg";
+    }
+
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+
+    /**
+     * Delays every read by a fixed round trip, standing in for a remote object store.
+     */
+    private static final class SlowBackend implements StorageBackend {
+        private final StorageBackend delegate;
+        private final long roundTripMillis;
+
+        SlowBackend(StorageBackend delegate, long roundTripMillis) {
+            this.delegate = delegate;
+            this.roundTripMillis = roundTripMillis;
+        }
+
+        @Override
+        public long put(String key, InputStream content, long length, String contentType) {
+            return delegate.put(key, content, length, contentType);
+        }
+
+        @Override
+        public StoredObject get(String key) {
+            try {
+                Thread.sleep(roundTripMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StoredObject object = delegate.get(key);
+            return object == null ? null : new StoredObject(object.getContent(), object.getLength(),
+                    object.getContentType(), object.getLastModified());
+        }
+
+        @Override
+        public boolean exists(String key) {
+            return delegate.exists(key);
+        }
+
+        @Override
+        public void move(String sourceKey, String targetKey) {
+            delegate.move(sourceKey, targetKey);
+        }
+
+        @Override
+        public void delete(String key) {
+            delegate.delete(key);
+        }
+
+        @Override
+        public String url(String key) {
+            return delegate.url(key);
+        }
+    }
+}
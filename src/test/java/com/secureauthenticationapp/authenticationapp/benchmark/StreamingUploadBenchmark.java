@@ -0,0 +1,235 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.secureauthenticationapp.authenticationapp.domain.service.S3StreamingUploader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uploads several large objects at once to a minimal in-process S3 stand-in through the real SDK
+ * client, once through {@link S3StreamingUploader} and once by reading each body into memory
+ * first as the multipart path does, and reports throughput and peak heap, e.g.
+ * <pre>
+ * java -Xmx1g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.StreamingUploadBenchmark 8 40
+ * </pre>
+ * The arguments are the number of concurrent uploads and the size of each in megabytes. The same
+ * client settings work against a local MinIO by changing the endpoint.
+ */
+public final class StreamingUploadBenchmark {
+
+    private static final String BUCKET = "blog-images";
+
+    private StreamingUploadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int uploads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long size = (args.length > 1 ? Long.parseLong(args[1]) : 40) * 1024 * 1024;
+        FakeS3 s3 = new FakeS3();
+        AmazonS3 client = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("key", "secret")))
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3.endpoint(), "us-east-1"))
+                .withPathStyleAccessEnabled(true)
+                .disableChunkedEncoding()
+                .build();
+        S3StreamingUploader uploader = new S3StreamingUploader(S3StreamingUploader.MIN_PART_SIZE, 16, 4, 8,
+                Long.MAX_VALUE, Duration.ofMinutes(1));
+        try {
+            for (int round = 0; round < 2; round++) {
+                run("streamed", uploads, size, s3, key -> uploader.upload(client, BUCKET, key,
+                        new GeneratedStream(size), "image/jpeg"));
+                run("buffered", uploads, size, s3, key -> {
+                    byte[] body = new GeneratedStream(size).readAllBytes();
+                    ObjectMetadata metadata = new ObjectMetadata();
+                    metadata.setContentType("image/jpeg");
+                    metadata.setContentLength(body.length);
+                    client.putObject(new PutObjectRequest(BUCKET, key, new ByteArrayInputStream(body), metadata));
+                    return body.length;
+                });
+            }
+        } finally {
+            uploader.stop();
+            client.shutdown();
+            s3.stop();
+        }
+    }
+
+    private static void run(String name, int uploads, long size, FakeS3 s3, Upload upload) throws Exception {
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+        long received = s3.received.sum();
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        long started = System.nanoTime();
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                String key = name + "-" + UUID.randomUUID();
+                results.add(executor.submit(() -> upload.upload(key)));
+            }
+            for (Future<Long> result : results) {
+                result.get();
+            }
+        } catch (Exception e) {
+            System.out.printf("%-9s failed: %s%n", name, e.getCause() == null ? e : e.getCause());
+            return;
+        } finally {
+            executor.shutdownNow();
+            sampler.interrupt();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long stored = s3.received.sum() - received;
+        System.out.printf("%-9s %d x %d MB in %.2f s (%.0f MB/s), stored %d MB, peak heap +%d MB%n", name, uploads,
+                size >> 20, seconds, stored / 1048576.0 / seconds, stored >> 20, (peak.get() - baseline) >> 20);
+    }
+
+    @FunctionalInterface
+    private interface Upload {
+        long upload(String key) throws Exception;
+    }
+
+    /**
+     * A JPEG-looking stream of the given length that is generated on the fly, standing in for a
+     * request body.
+     */
+    private static final class GeneratedStream extends InputStream {
+        private final long length;
+        private long position;
+
+        GeneratedStream(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return position < length ? (int) (position++ * 31 & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) {
+            if (position >= length) {
+                return -1;
+            }
+            int n = (int) Math.min(count, length - position);
+            for (int i = 0; i < n; i++) {
+                buffer[offset + i] = (byte) ((position + i) * 31);
+            }
+            position += n;
+            return n;
+        }
+    }
+
+    /**
+     * Just enough of the S3 REST API for single puts and multipart uploads, addressed path-style.
+     * Bodies are digested and counted but not kept.
+     */
+    private static final class FakeS3 {
+        private final HttpServer server;
+        private final LongAdder received = new LongAdder();
+
+        FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+            server.setExecutor(Executors.newFixedThreadPool(16));
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        String endpoint() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getRawQuery() == null ? "" : exchange.getRequestURI().getRawQuery();
+            String method = exchange.getRequestMethod();
+            try (exchange) {
+                if ("POST".equals(method) && query.startsWith("uploads")) {
+                    drain(exchange.getRequestBody());
+                    xml(exchange, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>k</Key><UploadId>"
+                            + UUID.randomUUID() + "</UploadId></InitiateMultipartUploadResult>");
+                } else if ("POST".equals(method) && query.contains("uploadId")) {
+                    drain(exchange.getRequestBody());
+                    xml(exchange, "<CompleteMultipartUploadResult><Location>" + endpoint() + "</Location><Bucket>"
+                            + BUCKET + "</Bucket><Key>k</Key><ETag>\"done-1\"</ETag></CompleteMultipartUploadResult>");
+                } else if ("PUT".equals(method)) {
+                    String etag = drain(exchange.getRequestBody());
+                    exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    drain(exchange.getRequestBody());
+                    exchange.sendResponseHeaders(204, -1);
+                }
+            }
+        }
+
+        private String drain(InputStream body) throws IOException {
+            try {
+                MessageDigest md5 = MessageDigest.getInstance("MD5");
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                for (int read; (read = body.read(buffer)) > 0; ) {
+                    md5.update(buffer, 0, read);
+                    total += read;
+                }
+                received.add(total);
+                return HexFormat.of().formatHex(md5.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void xml(HttpExchange exchange, String body) throws IOException {
+            byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
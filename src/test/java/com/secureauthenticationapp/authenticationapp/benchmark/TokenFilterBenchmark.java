@@ -0,0 +1,185 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.config.CustomTokenAuthenticationFilter;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.AccessTokenService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.OpaqueAccessTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.GenericFilterBean;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link CustomTokenAuthenticationFilter} against the filter it replaced, for an
+ * authenticated blog request, an excluded {@code /api/v1/users} request and an invalid token.
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.TokenFilterBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFilterBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    private GenericFilterBean legacyFilter;
+    private GenericFilterBean filter;
+    private MockHttpServletRequest blogRequest;
+    private MockHttpServletRequest userRequest;
+    private MockHttpServletRequest invalidRequest;
+
+    @Setup
+    public void setUp() {
+        ExpiringTokenStore tokenStore = new ExpiringTokenStore(Duration.ofHours(8), Duration.ofMinutes(30),
+                Duration.ofSeconds(1), 4096, Clock.systemUTC());
+        for (int i = 0; i < 100_000; i++) {
+            tokenStore.issue("user" + (i % 10_000));
+        }
+        AccessTokenService accessTokenService = new OpaqueAccessTokenService(tokenStore);
+        legacyFilter = new LegacyTokenFilter(accessTokenService);
+        filter = new CustomTokenAuthenticationFilter(accessTokenService);
+
+        String token = tokenStore.issue("benchmarkUser");
+        blogRequest = request("/api/v1/blog/all-blogs", "Bearer " + token);
+        userRequest = request("/api/v1/users/login", null);
+        invalidRequest = request("/api/v1/blog/all-blogs", "Bearer 00000000-0000-0000-0000-000000000000");
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void legacyAuthenticated() throws Exception {
+        legacyFilter.doFilter(blogRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    @Benchmark
+    public void authenticated() throws Exception {
+        filter.doFilter(blogRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    @Benchmark
+    public void legacyExcludedPath() throws Exception {
+        legacyFilter.doFilter(userRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    @Benchmark
+    public void excludedPath() throws Exception {
+        filter.doFilter(userRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    @Benchmark
+    public void legacyInvalidToken() throws Exception {
+        legacyFilter.doFilter(invalidRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    @Benchmark
+    public void invalidToken() throws Exception {
+        filter.doFilter(invalidRequest, new MockHttpServletResponse(), CHAIN);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static MockHttpServletRequest request(String path, String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+
+    /**
+     * The filter as it was before principal caching: pattern array and AntPathMatcher per request,
+     * a substring of the header, a fresh mutable authentication and a concatenated error body.
+     */
+    private static final class LegacyTokenFilter extends GenericFilterBean {
+        private final AccessTokenService accessTokenService;
+        private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+        private LegacyTokenFilter(AccessTokenService accessTokenService) {
+            this.accessTokenService = accessTokenService;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+                throws IOException, ServletException {
+            HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+            HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            String[] excludePaths = {"/api/v1/users/**"};
+            boolean skip = false;
+            for (String path : excludePaths) {
+                if (pathMatcher.match(path, httpServletRequest.getServletPath())) {
+                    skip = true;
+                    break;
+                }
+            }
+            if (!skip) {
+                String header = httpServletRequest.getHeader("Authorization");
+                if (header != null && header.startsWith("Bearer ")) {
+                    String username = accessTokenService.resolveUsername(header, 7);
+                    if (username == null) {
+                        String message = "Invalid or expired token.";
+                        httpServletResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                        httpServletResponse.setContentType("application/json");
+                        httpServletResponse.getWriter().write("{\"error\": \"" + message + "\"}");
+                        return;
+                    }
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new LegacyAuthentication(header.substring(7), username));
+                }
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static final class LegacyAuthentication extends AbstractAuthenticationToken {
+        private final Object principal;
+        private final String token;
+
+        private LegacyAuthentication(String token, Object principal) {
+            super(null);
+            this.principal = principal;
+            this.token = token;
+            super.setAuthenticated(true);
+        }
+
+        @Override
+        public Object getCredentials() {
+            return token;
+        }
+
+        @Override
+        public Object getPrincipal() {
+            return principal;
+        }
+    }
+}
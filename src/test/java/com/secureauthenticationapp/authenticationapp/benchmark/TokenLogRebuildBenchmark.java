@@ -0,0 +1,57 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.MappedFileTokenStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Measures how long {@link MappedFileTokenStore} takes to rebuild its index from the log after a
+ * restart, e.g.
+ * <pre>
+ * java -Xmx2g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.TokenLogRebuildBenchmark 3000000
+ * </pre>
+ */
+public final class TokenLogRebuildBenchmark {
+
+    private static final int DISTINCT_USERS = 100_000;
+
+    private TokenLogRebuildBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        Path directory = Files.createTempDirectory("token-log");
+        Path logPath = directory.resolve("tokens.log");
+
+        MappedFileTokenStore writer = open(logPath);
+        for (int i = 0; i < sessions; i++) {
+            writer.issue("user" + (i % DISTINCT_USERS));
+        }
+        writer.close();
+
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            MappedFileTokenStore reader = open(logPath);
+            long elapsed = System.nanoTime() - started;
+            System.out.printf("rebuilt %,d sessions from %,d log bytes in %d ms%n",
+                    reader.size(), reader.logSize(), elapsed / 1_000_000);
+            reader.close();
+        }
+        Files.delete(logPath);
+        Files.delete(directory);
+    }
+
+    private static MappedFileTokenStore open(Path logPath) {
+        ExpiringTokenStore index = new ExpiringTokenStore(Duration.ofHours(8), Duration.ofMinutes(30),
+                Duration.ofSeconds(1), 4096, Clock.systemUTC());
+        MappedFileTokenStore store = new MappedFileTokenStore(index, logPath, Duration.ofMinutes(10),
+                Duration.ofMinutes(1), Clock.systemUTC());
+        store.open();
+        return store;
+    }
+}
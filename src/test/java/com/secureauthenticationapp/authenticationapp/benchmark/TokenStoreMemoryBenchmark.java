@@ -0,0 +1,80 @@
+package com.secureauthenticationapp.authenticationapp.benchmark;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures retained heap per live session for the token store against the former
+ * {@code ConcurrentHashMap<String, String>} keyed by UUID strings.
+ * <p>
+ * Run one implementation per JVM so the numbers do not interfere, e.g.
+ * <pre>
+ * java -Xmx4g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     com.secureauthenticationapp.authenticationapp.benchmark.TokenStoreMemoryBenchmark store 1000000
+ * </pre>
+ * where {@code cp.txt} comes from {@code mvn dependency:build-classpath -Dmdep.outputFile=cp.txt}.
+ */
+public final class TokenStoreMemoryBenchmark {
+
+    private static final int DISTINCT_USERS = 100_000;
+
+    private TokenStoreMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        String implementation = args.length > 0 ? args[0] : "store";
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        long before = usedHeap();
+        Object retained = switch (implementation) {
+            case "map" -> fillMap(sessions);
+            case "store" -> fillStore(sessions);
+            default -> throw new IllegalArgumentException("Unknown implementation: " + implementation);
+        };
+        long after = usedHeap();
+
+        System.out.printf("%s: %,d sessions, %,d bytes retained, %.1f bytes/session%n",
+                implementation, sessions, after - before, (after - before) / (double) sessions);
+        System.out.println(retained.hashCode() != 0 ? "" : " ");
+    }
+
+    private static Map<String, String> fillMap(int sessions) {
+        Map<String, String> tokenStore = new ConcurrentHashMap<>();
+        for (int i = 0; i < sessions; i++) {
+            // Each login loads the user row again, so every session held its own username String.
+            tokenStore.put(UUID.randomUUID().toString(), new String(username(i)));
+        }
+        return tokenStore;
+    }
+
+    private static ExpiringTokenStore fillStore(int sessions) {
+        ExpiringTokenStore tokenStore = new ExpiringTokenStore(
+                Duration.ofHours(8), Duration.ofMinutes(30), Duration.ofSeconds(1), 4096, Clock.systemUTC());
+        for (int i = 0; i < sessions; i++) {
+            tokenStore.issue(username(i));
+        }
+        return tokenStore;
+    }
+
+    private static String username(int session) {
+        return "user" + (session % DISTINCT_USERS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,8 +1,12 @@
 package com.secureauthenticationapp.authenticationapp.unitTest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CachedBlog;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CursorPage;
 import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
 import com.secureauthenticationapp.authenticationapp.domain.exception.BlogOperationException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.BlogVersionConflictException;
 import com.secureauthenticationapp.authenticationapp.domain.service.BlogService;
 import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
 import com.secureauthenticationapp.authenticationapp.web.BlogController;
@@ -17,21 +21,33 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -140,7 +156,8 @@ class BlogControllerTest {
         MockMultipartFile imagePart = new MockMultipartFile("imageFile", "updated_image.jpg",
                 "image/jpeg", new byte[]{});
 
-        when(blogService.updateBlog(eq(blogId), any(BlogEntity.class), any(MultipartFile.class))).thenReturn(updatedBlogEntity);
+        when(blogService.updateBlog(eq(blogId), any(BlogEntity.class), any(MultipartFile.class), isNull()))
+                .thenReturn(updatedBlogEntity);
 
         mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/blog/update/{id}", blogId)
                         .file(blogPart)
@@ -153,6 +170,24 @@ class BlogControllerTest {
                 .andExpect(jsonPath("$.message").value("Blog updated successfully"));
     }
 
+    @Test
+    void replaceBlogImage_streamsRequestBody() throws Exception {
+        byte[] image = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x01};
+        BlogEntity updated = BlogEntity.builder().id(1L).imageUrl("https://bucket/1-cover.jpg").build();
+        when(blogService.replaceBlogImage(eq(1L), any(InputStream.class), eq("image/jpeg"), eq("cover.jpg"), isNull()))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(image, invocation.<InputStream>getArgument(1).readAllBytes());
+                    return updated;
+                });
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/blog/{id}/image", 1L)
+                        .param("name", "cover.jpg")
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(image))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imageUrl").value("https://bucket/1-cover.jpg"));
+    }
+
     @Test
     void getBlogById_success() throws Exception {
         Long blogId = 1L;
@@ -161,14 +196,102 @@ class BlogControllerTest {
         blogEntity.setTitle("Test Blog");
         blogEntity.setContent("This is a test blog.");
 
-        when(blogService.getBlogById(blogId)).thenReturn(Optional.of(blogEntity));
+        when(blogService.getCachedBlog(blogId))
+                .thenReturn(Optional.of(new CachedBlog(blogId, 0L, objectMapper.writeValueAsString(blogEntity))));
 
         mockMvc.perform(get("/api/v1/blog/{id}", blogId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.blog.id").value(blogId))
+                .andExpect(jsonPath("$.data.blog.title").value("Test Blog"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""))
                 .andExpect(jsonPath("$.message").value("Blog found successfully"));
     }
 
+    @Test
+    void getBlogById_notFound_returnsNotFound() throws Exception {
+        when(blogService.getCachedBlog(9L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/blog/{id}", 9L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getBlogById_ifNoneMatchCurrentVersion_returnsNotModifiedWithoutLoading() throws Exception {
+        when(blogService.getBlogVersion(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/v1/blog/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+
+        verify(blogService, never()).getCachedBlog(any());
+    }
+
+    @Test
+    void getBlogById_ifNoneMatchOldVersion_returnsBlog() throws Exception {
+        BlogEntity blogEntity = BlogEntity.builder().id(1L).title("Test Blog").version(4L).build();
+        when(blogService.getBlogVersion(1L)).thenReturn(Optional.of(4L));
+        when(blogService.getCachedBlog(1L))
+                .thenReturn(Optional.of(new CachedBlog(1L, 4L, objectMapper.writeValueAsString(blogEntity))));
+
+        mockMvc.perform(get("/api/v1/blog/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andExpect(jsonPath("$.data.blog.version").doesNotExist());
+    }
+
+    @Test
+    void updateBlog_concurrentEditorCommittedFirst_returnsPreconditionFailed() throws Exception {
+        MockMultipartFile blogPart = new MockMultipartFile("blog", "", "application/json",
+                objectMapper.writeValueAsBytes(BlogEntity.builder().title("Edited").build()));
+        when(blogService.updateBlog(eq(1L), any(BlogEntity.class), any(), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(BlogEntity.class, 1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/blog/update/{id}", 1L)
+                        .file(blogPart)
+                        .with(request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        }))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errorCode").value(10010));
+    }
+
+    @Test
+    void updateBlog_staleIfMatch_returnsPreconditionFailed() throws Exception {
+        MockMultipartFile blogPart = new MockMultipartFile("blog", "", "application/json",
+                objectMapper.writeValueAsBytes(BlogEntity.builder().title("Edited").build()));
+        when(blogService.updateBlog(eq(1L), any(BlogEntity.class), any(), eq("\"1-2\"")))
+                .thenThrow(new BlogVersionConflictException("Blog 1 was modified since it was read"));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/blog/update/{id}", 1L)
+                        .file(blogPart)
+                        .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                        .with(request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        }))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void getAllBlogs_ifNoneMatchSamePage_returnsNotModified() throws Exception {
+        Pageable pageable = PageRequest.of(0, 5);
+        List<BlogEntity> blogList = List.of(BlogEntity.builder().id(1L).title("Test Blog 1").version(2L).build());
+        when(blogService.getAllBlogs(pageable)).thenReturn(new PageImpl<>(blogList, pageable, 1));
+
+        String etag = mockMvc.perform(get("/api/v1/blog/all-blogs").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertTrue(etag.startsWith("W/"));
+        mockMvc.perform(get("/api/v1/blog/all-blogs")
+                        .param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void getAllBlogs_success() throws Exception {
         Pageable pageable = PageRequest.of(0, 5);
@@ -190,5 +313,83 @@ class BlogControllerTest {
                 .andExpect(jsonPath("$.message").value("Blogs found successfully"));
     }
 
-}
+    @Test
+    void getAllBlogs_cursorMode_returnsNextCursorWithoutCount() throws Exception {
+        List<BlogEntity> blogList = List.of(BlogEntity.builder().id(7L).title("Test Blog 7").intro("Intro 7")
+                .content("Content 7").creationDate(LocalDateTime.now()).build());
+
+        when(blogService.getBlogsAfter("", 5)).thenReturn(new CursorPage<>(blogList, "next"));
+
+        mockMvc.perform(get("/api/v1/blog/all-blogs")
+                        .param("cursor", "")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.blogs.content[0].id").value(7L))
+                .andExpect(jsonPath("$.data.blogs.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.blogs.totalElements").doesNotExist());
+    }
 
+    @Test
+    void getAllBlogs_summaryFields_omitsContent() throws Exception {
+        Pageable pageable = PageRequest.of(0, 5);
+        BlogSummary summary = new SpelAwareProxyProjectionFactory().createProjection(BlogSummary.class,
+                Map.of("id", 1L, "title", "Test Blog 1", "intro", "Intro 1", "imageUrl", "image1.jpg"));
+
+        when(blogService.getBlogSummaries(pageable)).thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+
+        mockMvc.perform(get("/api/v1/blog/all-blogs")
+                        .param("size", "5")
+                        .param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.blogs.content[0].id").value(1L))
+                .andExpect(jsonPath("$.data.blogs.content[0].title").value("Test Blog 1"))
+                .andExpect(jsonPath("$.data.blogs.content[0].content").doesNotExist())
+                .andExpect(jsonPath("$.data.blogs.content[0].conclusion").doesNotExist());
+    }
+
+    @Test
+    void getAllBlogs_summaryFieldsInCursorMode_usesSummaryKeyset() throws Exception {
+        BlogSummary summary = new SpelAwareProxyProjectionFactory().createProjection(BlogSummary.class,
+                Map.of("id", 7L, "title", "Test Blog 7", "intro", "Intro 7"));
+
+        when(blogService.getBlogSummariesAfter("", 5)).thenReturn(new CursorPage<>(List.of(summary), "next"));
+
+        mockMvc.perform(get("/api/v1/blog/all-blogs")
+                        .param("cursor", "")
+                        .param("size", "5")
+                        .param("fields", "SUMMARY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.blogs.content[0].id").value(7L))
+                .andExpect(jsonPath("$.data.blogs.nextCursor").value("next"));
+    }
+
+    @Test
+    void getAllBlogs_unknownFields_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/all-blogs")
+                        .param("fields", "title"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchBlogs_returnsRankedSummaries() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        BlogSummary summary = new SpelAwareProxyProjectionFactory().createProjection(BlogSummary.class,
+                Map.of("id", 4L, "title", "Tuning the garbage collector"));
+        when(blogService.searchBlogs("garbage collector", pageable))
+                .thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+
+        mockMvc.perform(get("/api/v1/blog/search").param("q", "garbage collector"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.blogs.content[0].id").value(4L))
+                .andExpect(jsonPath("$.data.blogs.totalElements").value(1));
+    }
+
+    @Test
+    void searchBlogs_blankQuery_returnsBadRequest() throws Exception {
+        when(blogService.searchBlogs(eq(""), any(Pageable.class)))
+                .thenThrow(new IllegalArgumentException("Search query must not be empty"));
+
+        mockMvc.perform(get("/api/v1/blog/search").param("q", ""))
+                .andExpect(status().isBadRequest());
+    }
+}
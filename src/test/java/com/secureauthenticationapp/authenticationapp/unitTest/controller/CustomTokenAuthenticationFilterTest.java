@@ -0,0 +1,115 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.controller;
+
+import com.secureauthenticationapp.authenticationapp.config.CustomTokenAuthenticationFilter;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.AccessTokenService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.TokenPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CustomTokenAuthenticationFilterTest {
+
+    private static final TokenPrincipal PRINCIPAL = new TokenPrincipal("testUser");
+
+    private AccessTokenService accessTokenService;
+    private CustomTokenAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        accessTokenService = mock(AccessTokenService.class);
+        filter = new CustomTokenAuthenticationFilter(accessTokenService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_validToken_setsCachedPrincipal() throws Exception {
+        when(accessTokenService.resolvePrincipal("Bearer valid", 7)).thenReturn(PRINCIPAL);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/v1/blog/all-blogs", "Bearer valid"), new MockHttpServletResponse(), chain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertSame(PRINCIPAL, authentication.getPrincipal());
+        assertEquals("testUser", authentication.getName());
+        assertTrue(authentication.isAuthenticated());
+        assertThrows(IllegalArgumentException.class, () -> authentication.setAuthenticated(true));
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_configuredAdmin_grantedAdminRole() throws Exception {
+        filter = new CustomTokenAuthenticationFilter(accessTokenService, List.of(" Root "));
+        when(accessTokenService.resolvePrincipal("Bearer admin", 7)).thenReturn(new TokenPrincipal("root"));
+        when(accessTokenService.resolvePrincipal("Bearer valid", 7)).thenReturn(PRINCIPAL);
+
+        filter.doFilter(request("/api/v1/admin/users/import", "Bearer admin"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertEquals(List.of("ROLE_ADMIN"), authorities());
+
+        filter.doFilter(request("/api/v1/admin/users/import", "Bearer valid"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertEquals(List.of(), authorities());
+    }
+
+    @Test
+    void doFilter_invalidToken_returnsUnauthorized() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/v1/blog/all-blogs", "Bearer invalid"), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertEquals("{\"error\": \"Invalid or expired token.\"}", response.getContentAsString());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_excludedPath_skipsTokenLookup() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/v1/users/login", "Bearer invalid"), new MockHttpServletResponse(), chain);
+        filter.doFilter(request("/api/v1/users", "Bearer invalid"), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(accessTokenService, never()).resolvePrincipal(any(), anyInt());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_pathSharingExcludedPrefix_isAuthenticated() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/v1/usersettings", "Bearer invalid"), response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+    }
+
+    private static List<String> authorities() {
+        return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    private static MockHttpServletRequest request(String path, String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", authorization);
+        return request;
+    }
+}
@@ -0,0 +1,73 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.controller;
+
+import com.secureauthenticationapp.authenticationapp.config.SecurityConfig;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import com.secureauthenticationapp.authenticationapp.web.ImageController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ImageController.class)
+@Import(SecurityConfig.class)
+class ImageControllerSecurityTest {
+
+    private static final String KEY = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.png";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private UserService userService;
+
+    private final byte[] image = {1, 2, 3, 4};
+
+    @BeforeEach
+    void setUp() {
+        when(storageService.openImage(KEY)).thenAnswer(invocation ->
+                new StoredObject(new ByteArrayInputStream(image), image.length, "image/png", Instant.EPOCH));
+    }
+
+    @Test
+    void getImage_withoutToken_isServedForSharedCaches() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    void getImage_expiredToken_isStillServed() throws Exception {
+        // Tomcat maps the dispatcher servlet at "/", so the servlet path is the whole path
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY)
+                        .servletPath("/api/v1/blog/images/" + KEY)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer expired"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void otherMethodsOnImages_withoutToken_areForbidden() throws Exception {
+        mockMvc.perform(delete("/api/v1/blog/images/" + KEY))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,136 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.controller;
+
+import com.secureauthenticationapp.authenticationapp.domain.exception.ImageNotFoundException;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import com.secureauthenticationapp.authenticationapp.web.ImageController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ImageController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+class ImageControllerTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-03-01T10:00:00Z");
+    private static final String KEY = "1-cover.jpg";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private UserService userService;
+
+    @TempDir
+    Path directory;
+
+    private final byte[] image = new byte[64 * 1024];
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) (i * 31);
+        }
+        file = Files.write(directory.resolve(KEY), image);
+        when(storageService.openImage(KEY)).thenAnswer(invocation ->
+                StoredObject.ofFile(FileChannel.open(file, StandardOpenOption.READ), file, "image/jpeg", MODIFIED));
+    }
+
+    @Test
+    void getImage_localFile_sendsWholeImageWithImmutableCaching() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(image))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, image.length))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, MODIFIED.toEpochMilli()));
+    }
+
+    @Test
+    void getImage_range_returnsPartialContent() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/" + image.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(image, 100, 200)));
+
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(image, image.length - 10, image.length)));
+    }
+
+    @Test
+    void getImage_rangeBeyondEnd_isNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY).header(HttpHeaders.RANGE, "bytes=70000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + image.length));
+    }
+
+    @Test
+    void getImage_notModifiedSince_returnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 01 Mar 2024 10:00:00 GMT"))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getImage_sendfileSupported_handsFileToContainer() throws Exception {
+        mockMvc.perform(get("/api/v1/blog/images/" + KEY)
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+                        .header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 1000L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", (long) image.length))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getImage_remoteObject_streamsRequestedRange() throws Exception {
+        when(storageService.openImage("2-remote.png")).thenAnswer(invocation ->
+                new StoredObject(new ByteArrayInputStream(image), image.length, "image/png", MODIFIED));
+
+        mockMvc.perform(get("/api/v1/blog/images/2-remote.png").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(Arrays.copyOfRange(image, 10, 20)));
+    }
+
+    @Test
+    void getImage_missing_returnsNotFound() throws Exception {
+        when(storageService.openImage("missing.jpg")).thenThrow(new ImageNotFoundException("Image not found: missing.jpg"));
+
+        mockMvc.perform(get("/api/v1/blog/images/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
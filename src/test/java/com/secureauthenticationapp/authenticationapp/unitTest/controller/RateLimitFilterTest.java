@@ -0,0 +1,210 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.controller;
+
+import com.secureauthenticationapp.authenticationapp.config.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private AtomicLong nanos;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nanos = new AtomicLong();
+        filter = new RateLimitFilter(nanos::get);
+        filter.getRoutes().put("login", new RateLimitFilter.Route("POST", "/api/v1/users/login",
+                new RateLimitFilter.Limit(6, Duration.ofMinutes(1), 3),
+                new RateLimitFilter.Limit(2, Duration.ofMinutes(1), 2)));
+        filter.afterPropertiesSet();
+    }
+
+    @Test
+    void doFilter_ipOverBurst_returnsTooManyRequestsUntilRefilled() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, login("10.0.0.1", "user" + i).getStatus());
+        }
+
+        MockHttpServletResponse rejected = login("10.0.0.1", "other");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("10", rejected.getHeader("Retry-After"));
+        assertEquals(200, login("10.0.0.2", "other").getStatus());
+
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(200, login("10.0.0.1", "other").getStatus());
+    }
+
+    @Test
+    void doFilter_usernameOverBurst_rejectedFromEveryAddress() throws Exception {
+        assertEquals(200, login("10.0.0.1", "victim").getStatus());
+        assertEquals(200, login("10.0.0.2", "Victim").getStatus());
+
+        assertEquals(429, login("10.0.0.3", "VICTIM").getStatus());
+        assertEquals(200, login("10.0.0.3", "someoneElse").getStatus());
+    }
+
+    @Test
+    void doFilter_paddedUsername_sharesBucketWithAccount() throws Exception {
+        assertEquals(200, login("10.0.0.1", "victim").getStatus());
+        assertEquals(200, login("10.0.0.2", " victim").getStatus());
+
+        assertEquals(429, login("10.0.0.3", "Victim  ").getStatus());
+    }
+
+    @Test
+    void doFilter_admittedRequest_replaysBodyToChain() throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "testUser");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        String body = StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8);
+        assertEquals(new String(request.getContentAsByteArray(), StandardCharsets.UTF_8), body);
+    }
+
+    @Test
+    void doFilter_paddedBodyOverLimit_rejectedWithoutReachingChain() throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "victim");
+        request.setContent(("{\"username\":\"victim\"" + " ".repeat(5000) + ",\"password\":\"secret\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_duplicateUsernameField_rejected() throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "victim");
+        request.setContent("{\"username\":\"x\",\"password\":\"secret\",\"username\":\"victim\"}"
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_numericUsername_limitedAsBound() throws Exception {
+        assertEquals(200, login("10.0.0.1", "123").getStatus());
+        assertEquals(200, login("10.0.0.2", "123").getStatus());
+
+        MockHttpServletRequest request = loginRequest("10.0.0.3", "ignored");
+        request.setContent("{\"username\":123,\"password\":\"secret\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void doFilter_keyLimitReached_evictsKeysInsteadOfRejectingNewOnes() throws Exception {
+        filter = new RateLimitFilter(nanos::get);
+        filter.getRoutes().put("login", new RateLimitFilter.Route("POST", "/api/v1/users/login", null,
+                new RateLimitFilter.Limit(2, Duration.ofMinutes(1), 2)));
+        filter.setMaxKeys(2);
+        filter.afterPropertiesSet();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(200, login("10.0.0.1", "spray" + i).getStatus());
+        }
+
+        assertEquals(200, login("10.0.0.2", "victim").getStatus());
+        assertTrue(registry.get("auth.ratelimit.keys").tags("route", "login", "key", "username")
+                .gauge().value() <= 2);
+    }
+
+    @Test
+    void doFilter_admittedRequest_notifiesReadListener() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("10.0.0.1", "testUser"), new MockHttpServletResponse(), chain);
+        ServletInputStream body = chain.getRequest().getInputStream();
+        List<String> events = new ArrayList<>();
+
+        body.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                while (body.isReady() && !body.isFinished()) {
+                    body.read(new byte[16]);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+    }
+
+    @Test
+    void doFilter_unlimitedRoute_passesThrough() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/blog/all-blogs");
+            request.setServletPath("/api/v1/blog/all-blogs");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertSame(request, chain.getRequest());
+        }
+    }
+
+    @Test
+    void bindTo_rejectedRequests_counted() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        for (int i = 0; i < 5; i++) {
+            login("10.0.0.1", "user" + i);
+        }
+
+        assertEquals(2.0, registry.get("auth.ratelimit.rejected")
+                .tags("route", "login", "key", "ip").functionCounter().count());
+    }
+
+    private MockHttpServletResponse login(String address, String username) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(address, username), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String address, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/users/login");
+        request.setServletPath("/api/v1/users/login");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(("{\"password\":\"secret\",\"username\":\"" + username + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -1,16 +1,12 @@
 package com.secureauthenticationapp.authenticationapp.unitTest.controller;
 
-import com.amazonaws.AmazonServiceException;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
 import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StorageBackend;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,17 +14,25 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class StorageServiceTest {
 
+    private static final String URL_PREFIX = "https://bucketname.s3.region.amazonaws.com/";
+
     @Mock
-    private AmazonS3 s3Client;
+    private StorageBackend storageBackend;
 
     @InjectMocks
     private StorageService storageService;
@@ -38,14 +42,15 @@ class StorageServiceTest {
     @BeforeEach
     void setUp() {
         file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "test image content".getBytes());
-        ReflectionTestUtils.setField(storageService, "bucketName", "bucketname");
-        ReflectionTestUtils.setField(storageService, "region", "region");
+        lenient().when(storageBackend.url(anyString()))
+                .thenAnswer(invocation -> URL_PREFIX + invocation.getArgument(0));
     }
 
     @Test
     void uploadFile_success() throws IOException {
         String actualFileUrl = storageService.uploadFile(file);
-        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class));
+        verify(storageBackend, times(1)).put(eq(actualFileUrl.substring(URL_PREFIX.length())), any(InputStream.class),
+                eq(file.getSize()), eq("image/jpeg"));
         assertTrue(actualFileUrl.matches("https://bucketname\\.s3\\.region\\.amazonaws\\.com/\\d+-test\\.jpg"));
     }
 
@@ -62,34 +67,67 @@ class StorageServiceTest {
         assertThrows(CustomFileUploadException.class, () -> storageService.uploadFile(largeFile));
     }
 
+    @Test
+    void uploadStream_matchingSignature_streamsWholeBody() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3};
+        String fileUrl = storageService.newFileUrl("my cover.png");
+        when(storageBackend.put(anyString(), any(), eq(-1L), eq("image/png")))
+                .thenAnswer(invocation -> (long) invocation.<InputStream>getArgument(1).readAllBytes().length);
+
+        assertEquals(URL_PREFIX + sha256(png) + ".png",
+                storageService.uploadStream(new ByteArrayInputStream(png), "image/png", fileUrl));
+
+        assertTrue(fileUrl.matches("https://bucketname\\.s3\\.region\\.amazonaws\\.com/\\d+-my_cover\\.png"));
+        verify(storageBackend).put(eq(fileUrl.substring(fileUrl.lastIndexOf('/') + 1)), any(), eq(-1L), eq("image/png"));
+    }
+
+    @Test
+    void uploadStream_signatureNotMatchingDeclaredType_throwsException() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3};
+        String fileUrl = storageService.newFileUrl("cover.jpg");
+
+        assertThrows(CustomFileUploadException.class,
+                () -> storageService.uploadStream(new ByteArrayInputStream(png), "image/jpeg", fileUrl));
+        verify(storageBackend, never()).put(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void contentFileUrl_namesFileAfterItsContent() throws Exception {
+        MultipartFile renamed = new MockMultipartFile("file", "other.jpg", "image/jpeg", "test image content".getBytes());
+
+        String fileUrl = storageService.contentFileUrl(file);
+
+        assertEquals(URL_PREFIX + sha256("test image content".getBytes()) + ".jpg", fileUrl);
+        assertEquals(fileUrl, storageService.contentFileUrl(renamed));
+        verify(storageBackend, never()).put(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void newFileUrl_publicBaseUrl_pointsAtImageEndpoint() {
+        ReflectionTestUtils.setField(storageService, "publicBaseUrl", "/api/v1/blog/images");
+
+        assertTrue(storageService.newFileUrl("cover.png").matches("/api/v1/blog/images/\\d+-cover\\.png"));
+        verify(storageBackend, never()).url(anyString());
+    }
+
     @Test
     void deleteFile_success() {
         String fileUrl = "https://bucketname.s3.region.amazonaws.com/test.jpg";
         storageService.deleteFile(fileUrl);
 
-        ArgumentCaptor<DeleteObjectRequest> argumentCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
-        verify(s3Client).deleteObject(argumentCaptor.capture());
-        DeleteObjectRequest capturedRequest = argumentCaptor.getValue();
-
-        assertEquals("bucketname", capturedRequest.getBucketName());
-        assertEquals("test.jpg", capturedRequest.getKey());
+        verify(storageBackend).delete("test.jpg");
     }
 
     @Test
     void deleteFile_failure_throwsException() {
-        ArgumentCaptor<DeleteObjectRequest> argumentCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
-
-        doThrow(new AmazonServiceException("Error deleting file"))
-                .when(s3Client)
-                .deleteObject(argumentCaptor.capture());
+        doThrow(new FileDeleteException("Error deleting file from S3")).when(storageBackend).delete("test.jpg");
 
         String fileUrl = "https://bucketname.s3.region.amazonaws.com/test.jpg";
 
         assertThrows(FileDeleteException.class, () -> storageService.deleteFile(fileUrl));
+    }
 
-        DeleteObjectRequest capturedRequest = argumentCaptor.getValue();
-        assertEquals("bucketname", capturedRequest.getBucketName());
-        assertEquals("test.jpg", capturedRequest.getKey());
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
     }
 }
-
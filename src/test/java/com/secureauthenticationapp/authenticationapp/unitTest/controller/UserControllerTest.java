@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.secureauthenticationapp.authenticationapp.domain.bean.AuthenticationRequest;
 import com.secureauthenticationapp.authenticationapp.domain.bean.UserRegistration;
 import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.PasswordHashingBusyException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.UserAuthenticationException;
 import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
 import com.secureauthenticationapp.authenticationapp.web.UserController;
@@ -22,7 +23,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -128,6 +131,42 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.message").value("Account is locked. Please try again later."));
     }
 
+    @Test
+    void authenticateUser_hashingSaturated_returnsServiceUnavailable() throws Exception {
+        AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+        authenticationRequest.setUsername("testUser");
+        authenticationRequest.setPassword("password");
+
+        when(userService.authenticateUser(any(AuthenticationRequest.class)))
+                .thenThrow(new PasswordHashingBusyException("Too many login requests. Please try again shortly.", 2));
+
+        mockMvc.perform(post("/api/v1/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authenticationRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").value("Too many login requests. Please try again shortly."));
+    }
+
+    @Test
+    void checkAvailability_usernameAndEmail_returnsBoth() throws Exception {
+        when(userService.isUsernameAvailable("newUser")).thenReturn(true);
+        when(userService.isEmailAvailable("taken@example.com")).thenReturn(false);
+
+        mockMvc.perform(get("/api/v1/users/availability")
+                        .param("username", "newUser")
+                        .param("email", "taken@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.username").value(true))
+                .andExpect(jsonPath("$.data.email").value(false));
+    }
+
+    @Test
+    void checkAvailability_noParameters_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/users/availability"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void logoutUser_success() throws Exception {
         String token = "Bearer testToken";
@@ -0,0 +1,88 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.controller;
+
+import com.secureauthenticationapp.authenticationapp.config.CustomTokenAuthentication;
+import com.secureauthenticationapp.authenticationapp.config.SecurityConfig;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportSummary;
+import com.secureauthenticationapp.authenticationapp.domain.exception.UserImportInProgressException;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserImportService;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.TokenPrincipal;
+import com.secureauthenticationapp.authenticationapp.web.UserImportController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserImportController.class)
+@Import(SecurityConfig.class)
+@TestPropertySource(properties = "auth.users.import.enabled=true")
+class UserImportControllerTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String BODY = "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"Secret_pass1\"}\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    @Test
+    void importUsers_ordinaryToken_isForbidden() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/users/import")
+                        .with(authentication(new CustomTokenAuthentication(new TokenPrincipal("someone"))))
+                        .contentType(NDJSON)
+                        .content(BODY))
+                .andExpect(status().isForbidden());
+
+        verify(userImportService, never()).importUsers(any(), any(), any());
+    }
+
+    @Test
+    void importUsers_adminToken_streamsSummary() throws Exception {
+        when(userImportService.importUsers(any(), any(), any())).thenReturn(new UserImportSummary(1, 0, 5));
+
+        mockMvc.perform(post("/api/v1/admin/users/import")
+                        .with(authentication(admin()))
+                        .contentType(NDJSON)
+                        .content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void importUsers_importAlreadyRunning_returnsConflict() throws Exception {
+        when(userImportService.importUsers(any(), any(), any()))
+                .thenThrow(new UserImportInProgressException("A user import is already running."));
+
+        mockMvc.perform(post("/api/v1/admin/users/import")
+                        .with(authentication(admin()))
+                        .contentType(NDJSON)
+                        .content(BODY))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value(10013));
+    }
+
+    private static CustomTokenAuthentication admin() {
+        return new CustomTokenAuthentication(new TokenPrincipal("root"),
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+}
@@ -0,0 +1,138 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CachedBlog;
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogCache;
+import com.secureauthenticationapp.authenticationapp.domain.service.LocalBlogInvalidationBroadcast;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlogCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<Long, BlogEntity> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private LocalBlogInvalidationBroadcast broadcast;
+    private BlogCache blogCache;
+
+    @BeforeEach
+    void setUp() {
+        rows.put(1L, BlogEntity.builder().id(1L).title("First").content("Content").build());
+        broadcast = new LocalBlogInvalidationBroadcast();
+        blogCache = cache(id -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(rows.get(id));
+        });
+    }
+
+    @Test
+    void get_repeatedReads_loadOnceAndReturnJson() throws Exception {
+        CachedBlog first = blogCache.get(1L).orElseThrow();
+        CachedBlog second = blogCache.get(1L).orElseThrow();
+
+        assertSame(first, second);
+        assertSame(first, blogCache.peek(1L).orElseThrow());
+        assertEquals("\"1-0\"", first.getEtag());
+        assertEquals(1, loads.get());
+        assertEquals("First", objectMapper.readTree(objectMapper.writeValueAsString(first)).get("title").asText());
+    }
+
+    @Test
+    void get_missingBlog_isNotCached() {
+        assertTrue(blogCache.get(2L).isEmpty());
+
+        rows.put(2L, BlogEntity.builder().id(2L).title("Second").build());
+
+        assertTrue(blogCache.get(2L).isPresent());
+    }
+
+    @Test
+    void get_concurrentMisses_collapseIntoOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlogCache slowCache = cache(id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.ofNullable(rows.get(id));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> leader = executor.submit(() -> slowCache.get(1L));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<?>[] followers = new Future<?>[3];
+            for (int i = 0; i < followers.length; i++) {
+                followers[i] = executor.submit(() -> slowCache.get(1L));
+            }
+            release.countDown();
+            leader.get(5, TimeUnit.SECONDS);
+            for (Future<?> follower : followers) {
+                follower.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_insideTransaction_waitsForCommit() {
+        blogCache.get(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            blogCache.invalidateAfterCommit(1L);
+            blogCache.get(1L);
+            assertEquals(1, loads.get());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        blogCache.get(1L);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_sharedBroadcast_invalidatesOtherInstances() throws Exception {
+        BlogCache otherInstance = cache(id -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(rows.get(id));
+        });
+        blogCache.get(1L);
+        otherInstance.get(1L);
+
+        rows.put(1L, BlogEntity.builder().id(1L).title("Edited").build());
+        blogCache.invalidateAfterCommit(1L);
+
+        assertEquals(0, blogCache.size());
+        assertTrue(objectMapper.writeValueAsString(otherInstance.get(1L).orElseThrow()).contains("Edited"));
+        assertEquals(3, loads.get());
+    }
+
+    private BlogCache cache(Function<Long, Optional<BlogEntity>> loader) {
+        return new BlogCache(loader, objectMapper, broadcast, 100, Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,208 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogCache;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogImageVariants;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageOutbox;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.LocalStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BlogImageVariantsTest {
+
+    private static final String BASE_URL = "http://localhost/images/";
+
+    @TempDir
+    Path directory;
+
+    private StorageService storageService;
+    private StorageOutbox storageOutbox;
+    private BlogRepository blogRepository;
+    private BlogCache blogCache;
+    private BlogImageVariants variants;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalStorageBackend backend = new LocalStorageBackend(directory, BASE_URL, 10_000_000);
+        backend.start();
+        storageService = new StorageService(backend);
+        storageOutbox = mock(StorageOutbox.class);
+        when(storageOutbox.stageGenerated(anyString(), anyString(), any())).thenAnswer(this::storeGenerated);
+        blogRepository = mock(BlogRepository.class);
+        when(blogRepository.updateImageVariants(anyLong(), anyString(), anyString())).thenReturn(1);
+        blogCache = mock(BlogCache.class);
+        variants = new BlogImageVariants(storageService, storageOutbox, blogRepository, blogCache,
+                TransactionOperations.withoutTransaction(), new int[]{640, 320, 1280}, 1, 4, 0.8f, 10_000_000);
+        variants.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        variants.stop();
+    }
+
+    @Test
+    void generate_storesNarrowerWidthsAndRecordsSrcset() throws Exception {
+        String imageUrl = store("1-cover.jpg", image(1000, 500, false), "jpg");
+
+        variants.generate(7L, imageUrl).get(10, TimeUnit.SECONDS);
+
+        String small = BASE_URL + "1-cover-320w.jpg";
+        String medium = BASE_URL + "1-cover-640w.jpg";
+        verify(blogRepository).updateImageVariants(7L, imageUrl, small + " 320w, " + medium + " 640w");
+        verify(storageOutbox).claim(small);
+        verify(storageOutbox).claim(medium);
+        verify(blogCache).invalidateAfterCommit(7L);
+        assertFalse(Files.exists(directory.resolve("1-cover-1280w.jpg")));
+        BufferedImage scaled = ImageIO.read(directory.resolve("1-cover-320w.jpg").toFile());
+        assertEquals(320, scaled.getWidth());
+        assertEquals(160, scaled.getHeight());
+        assertEquals(List.of(small, medium), BlogImageVariants.urls(small + " 320w, " + medium + " 640w"));
+    }
+
+    @Test
+    void generate_sameImageWhileQueued_rendersOnceForEveryBlog() throws Exception {
+        String imageUrl = store("1-shared.jpg", image(700, 700, false), "jpg");
+        CountDownLatch staging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            staging.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return storeGenerated(invocation);
+        }).when(storageOutbox).stageGenerated(anyString(), anyString(), any());
+
+        var first = variants.generate(1L, imageUrl);
+        assertTrue(staging.await(5, TimeUnit.SECONDS));
+        var second = variants.generate(2L, imageUrl);
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        verify(storageOutbox, times(2)).stageGenerated(anyString(), anyString(), any());
+        verify(blogRepository).updateImageVariants(eq(1L), eq(imageUrl), anyString());
+        verify(blogRepository).updateImageVariants(eq(2L), eq(imageUrl), anyString());
+    }
+
+    @Test
+    void generate_imageReplacedMeanwhile_discardsVariants() throws Exception {
+        String imageUrl = store("1-old.jpg", image(400, 300, false), "jpg");
+        when(blogRepository.updateImageVariants(anyLong(), anyString(), anyString())).thenReturn(0);
+
+        variants.generate(3L, imageUrl).get(10, TimeUnit.SECONDS);
+
+        verify(storageOutbox).discard(BASE_URL + "1-old-320w.jpg");
+        verifyNoInteractions(blogCache);
+    }
+
+    @Test
+    void generate_transparentPng_staysPng() throws Exception {
+        String imageUrl = store("1-logo.png", image(800, 400, true), "png");
+
+        variants.generate(4L, imageUrl).get(10, TimeUnit.SECONDS);
+
+        verify(storageOutbox).stageGenerated(eq(BASE_URL + "1-logo-640w.png"), eq("image/png"), any());
+        BufferedImage scaled = ImageIO.read(directory.resolve("1-logo-320w.png").toFile());
+        assertTrue(scaled.getColorModel().hasAlpha());
+        assertEquals(0, scaled.getRGB(0, 0) >>> 24);
+    }
+
+    @Test
+    void generate_tooManyPixels_failsWithoutDecoding() throws Exception {
+        variants.stop();
+        variants = new BlogImageVariants(storageService, storageOutbox, blogRepository, blogCache,
+                TransactionOperations.withoutTransaction(), new int[]{320}, 1, 4, 0.8f, 100_000);
+        variants.start();
+        String imageUrl = store("1-huge.jpg", image(1000, 1000, false), "jpg");
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> variants.generate(5L, imageUrl).get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        verify(storageOutbox, never()).stageGenerated(anyString(), anyString(), any());
+        verifyNoInteractions(blogRepository);
+    }
+
+    @Test
+    void generate_secondBlogWithSameImage_retainsVariantsWithoutDecoding() throws Exception {
+        String imageUrl = store("1-cover.jpg", image(1000, 500, false), "jpg");
+        variants.generate(1L, imageUrl).get(10, TimeUnit.SECONDS);
+        reset(storageOutbox);
+        when(storageOutbox.stageGenerated(anyString(), anyString(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        variants.generate(2L, imageUrl).get(10, TimeUnit.SECONDS);
+
+        verify(storageOutbox, times(2)).stageGenerated(anyString(), anyString(), any());
+        verify(storageOutbox).claim(BASE_URL + "1-cover-320w.jpg");
+        verify(blogRepository).updateImageVariants(eq(2L), eq(imageUrl), anyString());
+    }
+
+    @Test
+    void generate_severalBlogsAtOnce_eachHoldsReference() throws Exception {
+        String imageUrl = store("1-shared.jpg", image(400, 400, false), "jpg");
+        CountDownLatch staging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            staging.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return storeGenerated(invocation);
+        }).when(storageOutbox).stageGenerated(anyString(), anyString(), any());
+
+        var first = variants.generate(1L, imageUrl);
+        assertTrue(staging.await(5, TimeUnit.SECONDS));
+        variants.generate(2L, imageUrl);
+        var third = variants.generate(3L, imageUrl);
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        third.get(10, TimeUnit.SECONDS);
+
+        verify(storageOutbox).claim(BASE_URL + "1-shared-320w.jpg");
+        verify(storageOutbox, times(2)).retain(BASE_URL + "1-shared-320w.jpg");
+    }
+
+    private String storeGenerated(InvocationOnMock invocation) {
+        Supplier<byte[]> content = invocation.getArgument(2);
+        return storageService.storeFile(content.get(), invocation.getArgument(1), invocation.getArgument(0));
+    }
+
+    private String store(String key, BufferedImage image, String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return storageService.storeFile(out.toByteArray(), "png".equals(format) ? "image/png" : "image/jpeg",
+                BASE_URL + key);
+    }
+
+    private static BufferedImage image(int width, int height, boolean alpha) {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        graphics.dispose();
+        return image;
+    }
+}
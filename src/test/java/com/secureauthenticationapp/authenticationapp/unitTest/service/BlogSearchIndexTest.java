@@ -0,0 +1,227 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogSearchIndex;
+import com.secureauthenticationapp.authenticationapp.domain.service.LocalBlogInvalidationBroadcast;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BlogSearchIndexTest {
+
+    @TempDir
+    Path indexPath;
+
+    private final List<BlogEntity> blogs = new ArrayList<>();
+    private BlogRepository blogRepository;
+    private LocalBlogInvalidationBroadcast broadcast;
+    private BlogSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blogs.add(blog(1L, "Tuning the garbage collector", "Pauses and heaps", "Young generation sizing"));
+        blogs.add(blog(2L, "Spring Boot tips", "Configuration", "The garbage collector is rarely the bottleneck"));
+        blogs.add(blog(3L, "Baking bread", "Flour and water", "Knead the dough"));
+        blogRepository = mock(BlogRepository.class);
+        broadcast = new LocalBlogInvalidationBroadcast();
+        when(blogRepository.findTotals()).thenAnswer(invocation -> totals(blogs));
+        when(blogRepository.findMaxId()).thenReturn(3L);
+        when(blogRepository.findByIdRange(anyLong(), anyLong())).thenAnswer(invocation -> blogs.stream()
+                .filter(blog -> blog.getId() > (long) invocation.getArgument(0)
+                        && blog.getId() <= (long) invocation.getArgument(1))
+                .toList());
+        searchIndex = startIndex();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        searchIndex.stop();
+    }
+
+    @Test
+    void start_emptyIndex_rebuildsFromRepositoryAndRanksTitleMatchesFirst() {
+        BlogSearchIndex.SearchHits hits = searchIndex.search("garbage collector", 0, 10);
+
+        assertEquals(List.of(1L, 2L), hits.ids());
+        assertEquals(2, hits.totalHits());
+        assertEquals(List.of(3L), searchIndex.search("kneading", 0, 10).ids());
+    }
+
+    @Test
+    void index_updateAndDelete_areSearchableImmediately() {
+        searchIndex.index(blog(3L, "Sourdough garbage", "Flour", "Starter"));
+        searchIndex.index(blog(4L, "Collector's edition", "Vinyl", "Records"));
+        searchIndex.delete(1L);
+
+        assertEquals(List.of(3L, 2L), searchIndex.search("garbage", 0, 10).ids());
+        assertTrue(searchIndex.search("dough", 0, 10).ids().isEmpty());
+        assertEquals(List.of(4L), searchIndex.search("vinyl", 0, 10).ids());
+    }
+
+    @Test
+    void start_existingIndexMatchingRepository_reusesItWithoutRebuild() throws Exception {
+        searchIndex.stop();
+        clearInvocations(blogRepository);
+
+        searchIndex = startIndex();
+
+        verify(blogRepository, never()).findMaxId();
+        assertEquals(List.of(3L), searchIndex.search("bread", 0, 10).ids());
+    }
+
+    @Test
+    void start_blogUpdatedWhileDown_rebuilds() throws Exception {
+        searchIndex.stop();
+        blogs.set(2, blog(3L, 1L, "Baking sourdough", "Flour and water", "Knead the dough"));
+
+        searchIndex = startIndex();
+
+        assertEquals(List.of(3L), searchIndex.search("sourdough", 0, 10).ids());
+    }
+
+    @Test
+    void broadcast_changedAndDeletedBlogs_areReadBackFromRepository() {
+        when(blogRepository.findById(3L)).thenReturn(Optional.of(blog(3L, 1L, "Sourdough", "Flour", "Starter")));
+        when(blogRepository.findById(1L)).thenReturn(Optional.empty());
+
+        broadcast.publish(3L);
+        broadcast.publish(1L);
+
+        assertEquals(List.of(3L), searchIndex.search("sourdough", 0, 10).ids());
+        assertEquals(List.of(2L), searchIndex.search("garbage", 0, 10).ids());
+        assertEquals(2, searchIndex.documentCount());
+    }
+
+    @Test
+    void broadcast_failedRead_isRetried() {
+        when(blogRepository.findById(3L))
+                .thenThrow(new IllegalStateException("Connection reset"))
+                .thenReturn(Optional.of(blog(3L, 1L, "Sourdough", "Flour", "Starter")));
+
+        broadcast.publish(3L);
+        assertTrue(searchIndex.search("sourdough", 0, 10).ids().isEmpty());
+        searchIndex.retryFailed();
+
+        assertEquals(List.of(3L), searchIndex.search("sourdough", 0, 10).ids());
+        searchIndex.retryFailed();
+        verify(blogRepository, times(2)).findById(3L);
+    }
+
+    @Test
+    void search_pagesThroughRankedHits() {
+        for (long id = 4; id <= 25; id++) {
+            searchIndex.index(blog(id, "Post " + id, "garbage", "Body"));
+        }
+
+        BlogSearchIndex.SearchHits second = searchIndex.search("garbage", 10, 10);
+
+        assertEquals(10, second.ids().size());
+        assertEquals(24, second.totalHits());
+        assertEquals(4, searchIndex.search("garbage", 20, 10).ids().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> searchIndex.search("garbage", BlogSearchIndex.MAX_RESULT_WINDOW, 10));
+    }
+
+    @Test
+    void index_duringRebuild_isReadBackFromRepositoryAfterwards() throws Exception {
+        blogs.add(blog(5L, "Late arrival", "Intro", "Body"));
+        when(blogRepository.findById(5L)).thenReturn(Optional.of(blogs.get(3)));
+        searchIndex.stop();
+        searchIndex = newIndex();
+        BlogSearchIndex rebuilding = searchIndex;
+        when(blogRepository.findMaxId()).thenAnswer(invocation -> {
+            rebuilding.index(blog(5L, "Stale title", "Intro", "Body"));
+            return 5L;
+        });
+
+        start(searchIndex);
+
+        assertEquals(List.of(5L), searchIndex.search("arrival", 0, 10).ids());
+        assertTrue(searchIndex.search("stale", 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    void rebuild_failedChunk_keepsLastCommittedIndex() throws Exception {
+        blogs.add(blog(1500L, "Unreachable", "Intro", "Body"));
+        searchIndex.stop();
+        searchIndex = newIndex();
+        BlogSearchIndex rebuilding = searchIndex;
+        when(blogRepository.findMaxId()).thenAnswer(invocation -> {
+            rebuilding.index(blog(6L, "Deferred", "Intro", "Body"));
+            return 1500L;
+        });
+        when(blogRepository.findByIdRange(0L, 1000L)).thenThrow(new IllegalStateException("Connection reset"));
+
+        start(searchIndex);
+        searchIndex.index(blog(7L, "After the failure", "Intro", "Body"));
+
+        assertEquals(4, searchIndex.documentCount());
+        assertEquals(List.of(3L), searchIndex.search("bread", 0, 10).ids());
+        assertEquals(List.of(7L), searchIndex.search("failure", 0, 10).ids());
+        verify(blogRepository, never()).findById(anyLong());
+        searchIndex.retryFailed();
+        verify(blogRepository).findById(6L);
+        searchIndex.stop();
+
+        searchIndex = newIndex();
+        searchIndex.open();
+        assertEquals(4, searchIndex.documentCount());
+    }
+
+    private BlogSearchIndex startIndex() throws Exception {
+        return start(newIndex());
+    }
+
+    private BlogSearchIndex newIndex() {
+        return new BlogSearchIndex(blogRepository, broadcast, indexPath, 2, Duration.ofMinutes(1));
+    }
+
+    private static BlogSearchIndex start(BlogSearchIndex index) throws Exception {
+        index.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (index.isRebuilding() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(index.isRebuilding());
+        return index;
+    }
+
+    private static BlogEntity blog(Long id, String title, String intro, String content) {
+        return blog(id, 0L, title, intro, content);
+    }
+
+    private static BlogEntity blog(Long id, long version, String title, String intro, String content) {
+        return BlogEntity.builder().id(id).version(version).title(title).intro(intro).content(content).build();
+    }
+
+    private static BlogRepository.BlogTotals totals(List<BlogEntity> blogs) {
+        return new BlogRepository.BlogTotals() {
+            @Override
+            public Long getBlogs() {
+                return (long) blogs.size();
+            }
+
+            @Override
+            public Long getIdSum() {
+                return blogs.stream().mapToLong(BlogEntity::getId).sum();
+            }
+
+            @Override
+            public Long getVersionSum() {
+                return blogs.stream().mapToLong(BlogEntity::getVersion).sum();
+            }
+        };
+    }
+}
@@ -2,29 +2,47 @@ package com.secureauthenticationapp.authenticationapp.unitTest.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
+import com.secureauthenticationapp.authenticationapp.domain.bean.BlogSummary;
+import com.secureauthenticationapp.authenticationapp.domain.bean.CursorPage;
 import com.secureauthenticationapp.authenticationapp.domain.entity.BlogEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.BlogVersionConflictException;
 import com.secureauthenticationapp.authenticationapp.domain.repository.BlogRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogCache;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogImageVariants;
+import com.secureauthenticationapp.authenticationapp.domain.service.BlogSearchIndex;
 import com.secureauthenticationapp.authenticationapp.domain.service.BlogService;
-import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageOutbox;
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.Optional;
 
 
@@ -34,7 +52,19 @@ class BlogServiceTest {
     private BlogRepository blogRepository;
 
     @Mock
-    private StorageService storageService;
+    private BlogCache blogCache;
+
+    @Mock
+    private BlogSearchIndex blogSearchIndex;
+
+    @Mock
+    private StorageOutbox storageOutbox;
+
+    @Mock
+    private BlogImageVariants blogImageVariants;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
 
     @InjectMocks
     private BlogService blogService;
@@ -46,13 +76,27 @@ class BlogServiceTest {
         BlogEntity blogEntity = new BlogEntity();
         MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
 
-        when(storageService.uploadFile(any(MultipartFile.class))).thenReturn("imageUrl");
+        when(storageOutbox.stageUpload(any(MultipartFile.class))).thenReturn("imageUrl");
         when(blogRepository.save(any(BlogEntity.class))).thenReturn(blogEntity);
 
         BlogEntity result = blogService.createBlog(blogEntity, imageFile);
 
         assertNotNull(result);
         assertEquals("imageUrl", result.getImageUrl());
+        verify(storageOutbox).claim("imageUrl");
+        verify(transactionOperations).execute(any());
+        verify(blogImageVariants).generateAfterCommit(null, "imageUrl");
+    }
+
+    @Test
+    void createBlog_saveFails_discardsStagedImage() {
+        MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
+        when(storageOutbox.stageUpload(any(MultipartFile.class))).thenReturn("imageUrl");
+        when(blogRepository.save(any(BlogEntity.class))).thenThrow(new IllegalStateException("Connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> blogService.createBlog(new BlogEntity(), imageFile));
+        verify(storageOutbox).discard("imageUrl");
+        verify(blogCache, times(0)).invalidateAfterCommit(any());
     }
 
     @Test
@@ -61,13 +105,115 @@ class BlogServiceTest {
         MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
 
         when(blogRepository.findById(any(Long.class))).thenReturn(Optional.of(blogEntity));
-        when(storageService.uploadFile(any(MultipartFile.class))).thenReturn("imageUrl");
+        when(storageOutbox.stageUpload(any(MultipartFile.class))).thenReturn("imageUrl");
         when(blogRepository.save(any(BlogEntity.class))).thenReturn(blogEntity);
 
         BlogEntity result = blogService.updateBlog(1L, blogEntity, imageFile);
 
         assertNotNull(result);
         assertEquals("imageUrl", result.getImageUrl());
+        verify(blogCache).invalidateAfterCommit(1L);
+    }
+
+    @Test
+    void updateBlog_newImage_claimsItAndQueuesReplacedImage() {
+        BlogEntity stored = BlogEntity.builder().id(1L).title("Stored").imageUrl("oldUrl")
+                .imageVariants("oldUrl-320w 320w, oldUrl-640w 640w").build();
+        MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
+        when(blogRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(storageOutbox.stageUpload(imageFile)).thenReturn("newUrl");
+        when(blogRepository.save(stored)).thenReturn(stored);
+
+        blogService.updateBlog(1L, BlogEntity.builder().title("Edited").build(), imageFile);
+
+        assertEquals("newUrl", stored.getImageUrl());
+        assertNull(stored.getImageVariants());
+        verify(storageOutbox).claim("newUrl");
+        verify(storageOutbox).deleteLater("oldUrl");
+        verify(storageOutbox).deleteLater("oldUrl-320w");
+        verify(storageOutbox).deleteLater("oldUrl-640w");
+        verify(storageOutbox, times(0)).discard(any());
+        verify(blogImageVariants).generateAfterCommit(1L, "newUrl");
+    }
+
+    @Test
+    void updateBlog_sameImageAgain_keepsVariants() {
+        BlogEntity stored = BlogEntity.builder().id(1L).title("Stored").imageUrl("sameUrl")
+                .imageVariants("sameUrl-320w 320w").build();
+        MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
+        when(blogRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(storageOutbox.stageUpload(imageFile)).thenReturn("sameUrl");
+        when(blogRepository.save(stored)).thenReturn(stored);
+
+        blogService.updateBlog(1L, BlogEntity.builder().title("Edited").build(), imageFile);
+
+        assertEquals("sameUrl-320w 320w", stored.getImageVariants());
+        verify(storageOutbox).claim("sameUrl");
+        verify(storageOutbox).deleteLater("sameUrl");
+        verify(storageOutbox, times(0)).deleteLater("sameUrl-320w");
+        verify(blogImageVariants, times(0)).generateAfterCommit(any(), any());
+    }
+
+    @Test
+    void updateBlog_staleIfMatch_discardsStagedImage() {
+        BlogEntity stored = BlogEntity.builder().id(1L).title("Stored").version(3L).build();
+        MultipartFile imageFile = new MockMultipartFile("imagefile", "Hello, World!".getBytes());
+        when(blogRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(storageOutbox.stageUpload(imageFile)).thenReturn("newUrl");
+
+        assertThrows(BlogVersionConflictException.class,
+                () -> blogService.updateBlog(1L, BlogEntity.builder().title("Edited").build(), imageFile, "\"1-2\""));
+        verify(storageOutbox).discard("newUrl");
+        verify(storageOutbox, times(0)).claim(any());
+    }
+
+    @Test
+    void updateBlog_staleIfMatch_throwsConflictWithoutSaving() {
+        BlogEntity stored = BlogEntity.builder().id(1L).title("Stored").version(3L).build();
+        when(blogRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        assertThrows(BlogVersionConflictException.class,
+                () -> blogService.updateBlog(1L, BlogEntity.builder().title("Edited").build(), null, "\"1-2\""));
+        verify(blogRepository, times(0)).save(any(BlogEntity.class));
+
+        when(blogRepository.save(stored)).thenReturn(stored);
+        assertEquals("Edited", blogService.updateBlog(1L, BlogEntity.builder().title("Edited").build(), null,
+                "\"1-2\", \"1-3\"").getTitle());
+    }
+
+    @Test
+    void replaceBlogImage_staleIfMatch_rejectedBeforeUploading() {
+        when(blogCache.peek(1L)).thenReturn(Optional.empty());
+        when(blogRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(BlogVersionConflictException.class, () -> blogService.replaceBlogImage(1L,
+                new ByteArrayInputStream(new byte[]{1}), "image/jpeg", "cover.jpg", "\"1-2\""));
+        verify(storageOutbox, times(0)).stageUpload(any(InputStream.class), any(), any());
+    }
+
+    @Test
+    void replaceBlogImage_storesStreamedImageAndQueuesOldOne() {
+        BlogEntity stored = BlogEntity.builder().id(1L).imageUrl("oldUrl").version(3L).build();
+        InputStream body = new ByteArrayInputStream(new byte[]{1});
+        when(blogCache.peek(1L)).thenReturn(Optional.empty());
+        when(blogRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+        when(blogRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(storageOutbox.stageUpload(body, "image/jpeg", "cover.jpg")).thenReturn("newUrl");
+        when(blogRepository.save(stored)).thenReturn(stored);
+
+        assertEquals("newUrl", blogService.replaceBlogImage(1L, body, "image/jpeg", "cover.jpg", "\"1-3\"").getImageUrl());
+        verify(storageOutbox).claim("newUrl");
+        verify(storageOutbox).deleteLater("oldUrl");
+        verify(blogCache).invalidateAfterCommit(1L);
+    }
+
+    @Test
+    void getBlogVersion_notCached_readsVersionColumnOnly() {
+        when(blogCache.peek(1L)).thenReturn(Optional.empty());
+        when(blogRepository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+        assertEquals(Optional.of(5L), blogService.getBlogVersion(1L));
+        verify(blogRepository, times(0)).findById(any(Long.class));
     }
 
     @Test
@@ -93,6 +239,73 @@ class BlogServiceTest {
     assertNotNull(result);
    }
 
+    @Test
+    void getBlogsAfter_fullPage_returnsCursorOfLastRow() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+        List<BlogEntity> blogs = List.of(
+                BlogEntity.builder().id(3L).creationDate(now).build(),
+                BlogEntity.builder().id(2L).creationDate(now).build(),
+                BlogEntity.builder().id(1L).creationDate(now.minusDays(1)).build());
+        when(blogRepository.findNewest(PageRequest.of(0, 3))).thenReturn(blogs);
+        when(blogRepository.findOlderThan(now, 2L, PageRequest.of(0, 3))).thenReturn(blogs.subList(2, 3));
+
+        CursorPage<BlogEntity> first = blogService.getBlogsAfter("", 2);
+        CursorPage<BlogEntity> second = blogService.getBlogsAfter(first.getNextCursor(), 2);
+
+        assertEquals(2, first.getContent().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(blogs.get(2)), second.getContent());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getBlogSummariesAfter_fullPage_usesSummaryQueries() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<BlogSummary> blogs = List.of(
+                projections.createProjection(BlogSummary.class, Map.of("id", 2L, "creationDate", now)),
+                projections.createProjection(BlogSummary.class, Map.of("id", 1L, "creationDate", now)));
+        when(blogRepository.findNewestSummaries(PageRequest.of(0, 2))).thenReturn(blogs);
+        when(blogRepository.findSummariesOlderThan(now, 2L, PageRequest.of(0, 2))).thenReturn(blogs.subList(1, 2));
+
+        CursorPage<BlogSummary> first = blogService.getBlogSummariesAfter(null, 1);
+        CursorPage<BlogSummary> second = blogService.getBlogSummariesAfter(first.getNextCursor(), 1);
+
+        assertEquals(List.of(blogs.get(0)), first.getContent());
+        assertEquals(List.of(blogs.get(1)), second.getContent());
+        assertNull(second.getNextCursor());
+        verify(blogRepository, times(0)).findNewest(any(Pageable.class));
+    }
+
+    @Test
+    void searchBlogs_keepsIndexRankingAndSkipsDeletedRows() {
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        BlogSummary first = projections.createProjection(BlogSummary.class, Map.of("id", 7L));
+        BlogSummary second = projections.createProjection(BlogSummary.class, Map.of("id", 3L));
+        when(blogSearchIndex.search("garbage", 10, 10))
+                .thenReturn(new BlogSearchIndex.SearchHits(List.of(7L, 9L, 3L), 25));
+        when(blogRepository.findSummariesByIdIn(List.of(7L, 9L, 3L))).thenReturn(List.of(second, first));
+
+        Page<BlogSummary> result = blogService.searchBlogs("garbage", PageRequest.of(1, 10));
+
+        assertEquals(List.of(first, second), result.getContent());
+        assertEquals(25, result.getTotalElements());
+        assertThrows(IllegalArgumentException.class, () -> blogService.searchBlogs(" ", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void getBlogsAfter_malformedCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> blogService.getBlogsAfter("not-a-cursor", 5));
+    }
+
+    @Test
+    void getBlogsAfter_cursorWithOutOfRangeTimestamp_throwsIllegalArgument() {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(20)
+                .putLong(Long.MAX_VALUE).putInt(0).putLong(1L).array());
+
+        assertThrows(IllegalArgumentException.class, () -> blogService.getBlogsAfter(cursor, 5));
+    }
+
     @Test
     void testDeleteBlog() {
     BlogEntity blogEntity = new BlogEntity();
@@ -102,8 +315,9 @@ class BlogServiceTest {
 
     blogService.deleteBlog(1L);
 
-    verify(storageService, times(1)).deleteFile("imageUrl");
+    verify(storageOutbox).deleteLater("imageUrl");
     verify(blogRepository, times(1)).deleteById(1L);
+    verify(blogCache).invalidateAfterCommit(1L);
     }
 
 }
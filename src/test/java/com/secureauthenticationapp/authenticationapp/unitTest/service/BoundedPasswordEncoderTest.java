@@ -0,0 +1,76 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.config.BoundedPasswordEncoder;
+import com.secureauthenticationapp.authenticationapp.domain.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void matches_delegatesToEncoderOnHashingThread() {
+        passwordEncoder = new BoundedPasswordEncoder(new ThreadRecordingEncoder(), 1, 1, Duration.ofSeconds(1));
+        release.countDown();
+
+        assertEquals("password-hashing-1", passwordEncoder.encode("password"));
+        assertTrue(passwordEncoder.matches("password", "password-hashing-1"));
+    }
+
+    @Test
+    void encode_queueFull_rejectsImmediatelyWithRetryAfter() throws Exception {
+        passwordEncoder = new BoundedPasswordEncoder(new ThreadRecordingEncoder(), 1, 1, Duration.ofSeconds(3));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        while (passwordEncoder.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingBusyException exception = assertThrows(PasswordHashingBusyException.class,
+                () -> passwordEncoder.encode("third"));
+
+        assertEquals(3, exception.getRetryAfterSeconds());
+        release.countDown();
+        assertEquals("password-hashing-1", running.get(5, TimeUnit.SECONDS));
+        assertEquals("password-hashing-1", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Encodes to the name of the thread it ran on and blocks until released.
+     */
+    private final class ThreadRecordingEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return Thread.currentThread().getName().equals(encodedPassword);
+        }
+    }
+}
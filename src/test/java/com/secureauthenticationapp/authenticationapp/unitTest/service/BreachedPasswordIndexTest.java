@@ -0,0 +1,67 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.validation.BreachedPasswordIndex;
+import com.secureauthenticationapp.authenticationapp.validation.BreachedPasswordIndexGenerator;
+import com.secureauthenticationapp.authenticationapp.validation.PasswordValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreachedPasswordIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void contains_plainAndSha1Entries_foundAndOthersAbsent() throws IOException {
+        Path input = directory.resolve("passwords.txt");
+        // SHA-1 of "P@ssw0rd!2024" as a breach corpus would list it.
+        Files.write(input, List.of("password123", "letmein", "",
+                "FF58A1EBBAB69AA8538F408F7608AD29F8995CEA:17", "letmein"));
+        Path output = directory.resolve("breached.idx");
+
+        assertEquals(3, BreachedPasswordIndexGenerator.generate(input, output));
+        BreachedPasswordIndex index = new BreachedPasswordIndex(output);
+
+        assertEquals(3, index.size());
+        assertTrue(index.contains("password123"));
+        assertTrue(index.contains("letmein"));
+        assertTrue(index.contains("P@ssw0rd!2024"));
+        assertFalse(index.contains("correct horse battery staple"));
+        assertFalse(index.contains(""));
+    }
+
+    @Test
+    void contains_everyBundledCommonPassword_isFound() throws IOException {
+        Path source = Paths.get("src/main/resources/owaspCommonPassword/10000mostCommonPassword.txt");
+        Path output = directory.resolve("common.idx");
+        BreachedPasswordIndexGenerator.generate(source, output);
+        BreachedPasswordIndex index = new BreachedPasswordIndex(output);
+
+        for (String password : Files.readAllLines(source)) {
+            assertTrue(index.contains(password), password);
+        }
+        assertFalse(index.contains("Tr0ub4dor&3-horse"));
+    }
+
+    @Test
+    void validatePassword_breachedPassword_isRejected() throws IOException {
+        Path input = directory.resolve("passwords.txt");
+        Files.write(input, List.of("password123"));
+        Path output = directory.resolve("breached.idx");
+        BreachedPasswordIndexGenerator.generate(input, output);
+        PasswordValidator passwordValidator = new PasswordValidator(new BreachedPasswordIndex(output));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> passwordValidator.validatePassword("password123"));
+        assertEquals("Password is too common.", exception.getMessage());
+        assertDoesNotThrow(() -> passwordValidator.validatePassword("Tr0ub4dor&3-horse"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.CachingStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.LocalStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingStorageBackendTest {
+
+    @TempDir
+    Path remoteDirectory;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private StorageBackend remote;
+    private CachingStorageBackend cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalStorageBackend store = new LocalStorageBackend(remoteDirectory, "https://bucket/", Long.MAX_VALUE);
+        store.start();
+        remote = spy(store);
+        for (int i = 1; i <= 4; i++) {
+            store.put("image-" + i, new ByteArrayInputStream(new byte[100]), 100, "image/jpeg");
+        }
+        cache = startCache(250);
+    }
+
+    @Test
+    void get_secondRead_isServedFromLocalFile() throws Exception {
+        read("image-1");
+        try (StoredObject object = cache.get("image-1")) {
+            assertEquals(100, object.getContent().readAllBytes().length);
+            assertEquals(cacheDirectory.toAbsolutePath().resolve("image-1"), object.getFile());
+        }
+
+        verify(remote, times(1)).get("image-1");
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void get_beyondCapacity_evictsLeastRecentlyRead() throws Exception {
+        read("image-1");
+        read("image-2");
+        read("image-1");
+        read("image-3");
+
+        assertEquals(200, cache.getCachedBytes());
+        assertTrue(Files.exists(cacheDirectory.resolve("image-1")));
+        assertFalse(Files.exists(cacheDirectory.resolve("image-2")));
+
+        read("image-1");
+        read("image-2");
+        verify(remote, times(1)).get("image-1");
+        verify(remote, times(2)).get("image-2");
+    }
+
+    @Test
+    void get_concurrentMisses_downloadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(remote).get(anyString());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                reads.add(executor.submit(() -> read("image-4")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Integer> read : reads) {
+                assertEquals(100, read.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(remote, times(1)).get("image-4");
+    }
+
+    @Test
+    void delete_dropsCachedCopy() throws Exception {
+        read("image-1");
+
+        cache.delete("image-1");
+
+        assertFalse(Files.exists(cacheDirectory.resolve("image-1")));
+        assertEquals(0, cache.getCachedBytes());
+        assertNull(cache.get("image-1"));
+    }
+
+    @Test
+    void start_keepsFilesFromPreviousRun() throws Exception {
+        read("image-1");
+        read("image-2");
+        Files.writeString(cacheDirectory.resolve(".download-123"), "partial");
+
+        CachingStorageBackend restarted = startCache(250);
+
+        assertEquals(200, restarted.getCachedBytes());
+        assertFalse(Files.exists(cacheDirectory.resolve(".download-123")));
+        restarted.get("image-1").close();
+        verify(remote, times(1)).get("image-1");
+    }
+
+    private CachingStorageBackend startCache(long maxBytes) throws Exception {
+        CachingStorageBackend started = new CachingStorageBackend(remote, cacheDirectory, maxBytes);
+        started.start();
+        return started;
+    }
+
+    private int read(String key) throws Exception {
+        try (StoredObject object = cache.get(key)) {
+            return object.getContent().readAllBytes().length;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringTokenStoreTest {
+
+    private static final String TOKEN = "3f2b8c1e-6a4d-4f0e-9b7a-2c5d8e1f0a3b";
+    private static final String OTHER_TOKEN = "9c1d7e3a-2b6f-4a8e-8d0c-5e7f1a2b3c4d";
+
+    private MutableClock clock;
+    private ExpiringTokenStore tokenStore;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        tokenStore = new ExpiringTokenStore(Duration.ofMinutes(60), Duration.ofMinutes(10),
+                Duration.ofSeconds(1), 64, clock);
+    }
+
+    @Test
+    void getUsername_knownToken_returnsUsername() {
+        tokenStore.put(TOKEN, "testUser");
+
+        assertEquals("testUser", tokenStore.getUsername(TOKEN));
+        assertEquals(1, tokenStore.size());
+    }
+
+    @Test
+    void issue_returnsTokenResolvableFromBearerHeader() {
+        String token = tokenStore.issue("testUser");
+
+        assertEquals(36, token.length());
+        assertEquals("testUser", tokenStore.getUsername("Bearer " + token, 7));
+        assertEquals("testUser", tokenStore.getUsername(token.toUpperCase()));
+    }
+
+    @Test
+    void getUsername_malformedToken_returnsNull() {
+        tokenStore.put(TOKEN, "testUser");
+
+        assertNull(tokenStore.getUsername(TOKEN.substring(1)));
+        assertNull(tokenStore.getUsername(TOKEN.replace('-', 'x')));
+        assertNull(tokenStore.getUsername("Bearer " + TOKEN + " ", 7));
+    }
+
+    @Test
+    void remove_keepsRemainingTokensReachableAcrossResize() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            tokens.add(tokenStore.issue("user" + (i % 50)));
+        }
+        for (int i = 0; i < tokens.size(); i += 2) {
+            assertTrue(tokenStore.remove(tokens.get(i)));
+        }
+
+        assertEquals(30_000, tokenStore.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String expected = i % 2 == 0 ? null : "user" + (i % 50);
+            assertEquals(expected, tokenStore.getUsername(tokens.get(i)));
+        }
+    }
+
+    @Test
+    void getUsername_idleTimeoutElapsed_returnsNull() {
+        tokenStore.put(TOKEN, "testUser");
+        clock.advance(Duration.ofMinutes(10));
+
+        assertNull(tokenStore.getUsername(TOKEN));
+        assertEquals(0, tokenStore.size());
+        assertEquals(1, tokenStore.getExpiredCount());
+    }
+
+    @Test
+    void getUsername_activityExtendsIdleTimeout() {
+        tokenStore.put(TOKEN, "testUser");
+        clock.advance(Duration.ofMinutes(8));
+        assertEquals("testUser", tokenStore.getUsername(TOKEN));
+
+        clock.advance(Duration.ofMinutes(8));
+        assertEquals("testUser", tokenStore.getUsername(TOKEN));
+    }
+
+    @Test
+    void getUsername_ttlElapsedDespiteActivity_returnsNull() {
+        tokenStore.put(TOKEN, "testUser");
+        for (int i = 0; i < 12; i++) {
+            clock.advance(Duration.ofMinutes(5));
+            tokenStore.getUsername(TOKEN);
+        }
+
+        assertNull(tokenStore.getUsername(TOKEN));
+    }
+
+    @Test
+    void expireEntries_evictsIdleSessionsWithoutLookup() {
+        tokenStore.put(TOKEN, "idleUser");
+        tokenStore.put(OTHER_TOKEN, "activeUser");
+        tokenStore.expireEntries();
+
+        for (int i = 0; i < 4; i++) {
+            clock.advance(Duration.ofMinutes(4));
+            tokenStore.getUsername(OTHER_TOKEN);
+            tokenStore.expireEntries();
+        }
+
+        assertEquals(1, tokenStore.size());
+        assertEquals(1, tokenStore.getExpiredCount());
+        assertEquals("activeUser", tokenStore.getUsername(OTHER_TOKEN));
+    }
+
+    @Test
+    void remove_knownToken_countsRevocation() {
+        tokenStore.put(TOKEN, "testUser");
+
+        assertTrue(tokenStore.remove(TOKEN));
+        assertFalse(tokenStore.remove(TOKEN));
+        assertEquals(1, tokenStore.getRevokedCount());
+        assertNull(tokenStore.getUsername(TOKEN));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.SessionTokenEntity;
+import com.secureauthenticationapp.authenticationapp.domain.repository.SessionTokenRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.JdbcTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JdbcTokenStoreTest {
+
+    private static final String TOKEN = "3f2b8c1e-6a4d-4f0e-9b7a-2c5d8e1f0a3b";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String INSERT_SQL =
+            "insert into sessionToken (tokenHash, username, createdAt, lastAccess, expiresAt) values (?, ?, ?, ?, ?)";
+
+    private SessionTokenRepository repository;
+    private JdbcOperations jdbcOperations;
+    private JdbcTokenStore tokenStore;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SessionTokenRepository.class);
+        jdbcOperations = mock(JdbcOperations.class);
+        tokenStore = new JdbcTokenStore(repository, jdbcOperations, INSERT_SQL, Duration.ofHours(8),
+                Duration.ofMinutes(30), Duration.ofMinutes(1), Duration.ofMinutes(5), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void put_storesDigestInsteadOfToken() {
+        SessionTokenEntity session = put(TOKEN);
+
+        assertEquals(64, session.getTokenHash().length());
+        assertFalse(session.getTokenHash().contains(TOKEN.substring(0, 8)));
+        assertEquals("testUser", session.getUsername());
+        assertEquals(NOW.plus(Duration.ofHours(8)), session.getExpiresAt());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void size_countsRowsOnlyWhenCleanupRuns() {
+        when(repository.count()).thenReturn(3L, 2L);
+
+        tokenStore.start();
+        assertEquals(3, tokenStore.size());
+        assertEquals(3, tokenStore.size());
+        tokenStore.deleteExpired();
+        assertEquals(2, tokenStore.size());
+
+        tokenStore.stop();
+        verify(repository, times(2)).count();
+    }
+
+    @Test
+    void getUsername_looksUpByDigestRegardlessOfCase() {
+        SessionTokenEntity session = put(TOKEN);
+        when(repository.findById(session.getTokenHash())).thenReturn(Optional.of(session));
+
+        assertEquals("testUser", tokenStore.getUsername(TOKEN));
+        assertEquals("testUser", tokenStore.getUsername("Bearer " + TOKEN.toUpperCase(), 7));
+        verify(repository, never()).findById(TOKEN);
+    }
+
+    @Test
+    void remove_deletesByDigest() {
+        SessionTokenEntity session = put(TOKEN);
+        when(repository.deleteByTokenHash(session.getTokenHash())).thenReturn(1);
+
+        assertTrue(tokenStore.remove(TOKEN, 0));
+        verify(repository, never()).deleteByTokenHash(TOKEN);
+    }
+
+    @Test
+    void getUsername_idleSession_deletesRow() {
+        SessionTokenEntity session = put(TOKEN);
+        session.setLastAccess(NOW.minus(Duration.ofMinutes(31)));
+        when(repository.findById(anyString())).thenReturn(Optional.of(session));
+
+        assertNull(tokenStore.getUsername(TOKEN));
+        verify(repository).deleteByTokenHash(session.getTokenHash());
+    }
+
+    private SessionTokenEntity put(String token) {
+        tokenStore.put(token, "testUser");
+        ArgumentCaptor<Object> arguments = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcOperations).update(eq(INSERT_SQL), arguments.capture(), arguments.capture(), arguments.capture(),
+                arguments.capture(), arguments.capture());
+        List<Object> values = arguments.getAllValues();
+        return SessionTokenEntity.builder()
+                .tokenHash((String) values.get(0))
+                .username((String) values.get(1))
+                .createdAt(((Timestamp) values.get(2)).toInstant())
+                .lastAccess(((Timestamp) values.get(3)).toInstant())
+                .expiresAt(((Timestamp) values.get(4)).toInstant())
+                .build();
+    }
+}
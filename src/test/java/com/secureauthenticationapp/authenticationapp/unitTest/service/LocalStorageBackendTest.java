@@ -0,0 +1,73 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.LocalStorageBackend;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStorageBackendTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3};
+
+    @TempDir
+    Path directory;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new LocalStorageBackend(directory, "http://localhost/images", 64);
+        backend.start();
+    }
+
+    @Test
+    void putAndGet_roundTripsContentWithDetectedType() throws Exception {
+        assertEquals(PNG.length, backend.put("1-cover.png", new ByteArrayInputStream(PNG), -1, "image/png"));
+
+        try (StoredObject object = backend.get("1-cover.png")) {
+            assertArrayEquals(PNG, object.getContent().readAllBytes());
+            assertEquals(PNG.length, object.getLength());
+            assertEquals("image/png", object.getContentType());
+            assertEquals(directory.toAbsolutePath().resolve("1-cover.png"), object.getFile());
+        }
+        assertTrue(backend.exists("1-cover.png"));
+        assertEquals("http://localhost/images/1-cover.png", backend.url("1-cover.png"));
+    }
+
+    @Test
+    void put_exceedingMaximumSize_leavesNothingBehind() throws Exception {
+        assertThrows(CustomFileUploadException.class,
+                () -> backend.put("1-big.png", new ByteArrayInputStream(new byte[100]), 100, "image/png"));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void keysOutsideDirectory_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> backend.get("../secret"));
+        assertThrows(IllegalArgumentException.class, () -> backend.delete(".upload-123"));
+        assertThrows(IllegalArgumentException.class,
+                () -> backend.put("a/b.png", new ByteArrayInputStream(PNG), -1, "image/png"));
+    }
+
+    @Test
+    void delete_removesObjectAndToleratesMissingOne() {
+        backend.put("1-cover.png", new ByteArrayInputStream(PNG), -1, "image/png");
+
+        backend.delete("1-cover.png");
+        backend.delete("1-cover.png");
+
+        assertNull(backend.get("1-cover.png"));
+        assertFalse(backend.exists("1-cover.png"));
+    }
+}
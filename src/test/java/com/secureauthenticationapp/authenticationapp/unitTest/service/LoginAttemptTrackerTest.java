@@ -0,0 +1,263 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.LoginAttemptTracker;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserCredentialCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginAttemptTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private UserRepository userRepository;
+    private UserCredentialCache userCredentialCache;
+    private LoginAttemptTracker loginAttemptTracker;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userCredentialCache = mock(UserCredentialCache.class);
+        loginAttemptTracker = tracker(Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void flush_coalescesUsersWithTheSameState() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.isLocked("bob", 0, null);
+        loginAttemptTracker.recordFailure("alice");
+        loginAttemptTracker.recordFailure("alice");
+        loginAttemptTracker.recordFailure("bob");
+        loginAttemptTracker.recordFailure("bob");
+
+        loginAttemptTracker.flush();
+
+        verify(userRepository, times(1)).raiseFailedLoginAttempts(
+                argThat(usernames -> Set.copyOf(usernames).equals(Set.of("alice", "bob"))), eq(2));
+        verify(userRepository).findLoginStates(argThat(usernames -> Set.copyOf(usernames).equals(Set.of("alice", "bob"))));
+        verifyNoMoreInteractions(userRepository);
+        verify(userCredentialCache).invalidateAll(argThat(usernames -> Set.copyOf(usernames).equals(Set.of("alice", "bob"))));
+    }
+
+    @Test
+    void flush_cleanSuccessfulLogin_writesNothing() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.recordSuccess("alice");
+
+        loginAttemptTracker.flush();
+
+        verifyNoInteractions(userRepository);
+        assertEquals(0, loginAttemptTracker.size());
+    }
+
+    @Test
+    void flush_resetAfterFailures_writesOnce() {
+        loginAttemptTracker.isLocked("alice", 3, null);
+        loginAttemptTracker.recordSuccess("alice");
+        loginAttemptTracker.recordSuccess("alice");
+
+        loginAttemptTracker.flush();
+        loginAttemptTracker.flush();
+
+        verify(userRepository, times(1)).resetLoginState(List.of("alice"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void recordFailure_reachingLimit_locksUntilLockDurationElapses() {
+        loginAttemptTracker.isLocked("alice", 4, null);
+
+        assertTrue(loginAttemptTracker.recordFailure("alice"));
+        assertTrue(loginAttemptTracker.isLocked("alice"));
+        loginAttemptTracker.flush();
+        verify(userRepository).lockAccounts(List.of("alice"), 5, Date.from(NOW));
+
+        LoginAttemptTracker later = tracker(Clock.fixed(NOW.plus(Duration.ofMinutes(31)), ZoneOffset.UTC));
+        assertFalse(later.isLocked("alice", 5, Date.from(NOW)));
+    }
+
+    @Test
+    void flush_databaseFailure_retriesOnNextRun() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.recordFailure("alice");
+        when(userRepository.raiseFailedLoginAttempts(anyCollection(), anyInt()))
+                .thenThrow(new RuntimeException("Database error"))
+                .thenReturn(1);
+
+        loginAttemptTracker.flush();
+        loginAttemptTracker.flush();
+
+        verify(userRepository, times(2)).raiseFailedLoginAttempts(List.of("alice"), 1);
+    }
+
+    @Test
+    void flush_databaseFailure_retriesReset() {
+        loginAttemptTracker.isLocked("alice", 3, null);
+        loginAttemptTracker.recordSuccess("alice");
+        when(userRepository.resetLoginState(anyCollection()))
+                .thenThrow(new RuntimeException("Database error"))
+                .thenReturn(1);
+
+        loginAttemptTracker.flush();
+        loginAttemptTracker.flush();
+
+        verify(userRepository, times(2)).resetLoginState(List.of("alice"));
+    }
+
+    @Test
+    void flush_failureAfterSuccess_resetsBeforeRaisingTheCount() {
+        loginAttemptTracker.isLocked("alice", 3, null);
+        loginAttemptTracker.recordSuccess("alice");
+        loginAttemptTracker.recordFailure("alice");
+
+        loginAttemptTracker.flush();
+
+        var inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).resetLoginState(List.of("alice"));
+        inOrder.verify(userRepository).raiseFailedLoginAttempts(List.of("alice"), 1);
+        verify(userRepository, never()).lockAccounts(anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void flush_rowLockedByAnotherNode_adoptsTheLock() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.recordFailure("alice");
+        when(userRepository.findLoginStates(anyCollection()))
+                .thenReturn(List.of(loginState("Alice", 5, Date.from(NOW.minusSeconds(10)))));
+
+        loginAttemptTracker.flush();
+
+        assertTrue(loginAttemptTracker.isLocked("alice"));
+        assertEquals(5, loginAttemptTracker.getFailedAttempts("alice"));
+    }
+
+    @Test
+    void flush_rowWithMoreFailures_raisesTheLocalCount() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.recordFailure("alice");
+        when(userRepository.findLoginStates(anyCollection())).thenReturn(List.of(loginState("alice", 3, null)));
+
+        loginAttemptTracker.flush();
+
+        assertFalse(loginAttemptTracker.isLocked("alice"));
+        assertEquals(3, loginAttemptTracker.getFailedAttempts("alice"));
+    }
+
+    @Test
+    void isLocked_rowShowsNewerLock_refreshesTrackedEntry() {
+        loginAttemptTracker.isLocked("alice", 0, null);
+        loginAttemptTracker.recordFailure("alice");
+
+        assertTrue(loginAttemptTracker.isLocked("alice", 5, Date.from(NOW.minusSeconds(10))));
+        assertTrue(loginAttemptTracker.isLocked("alice"));
+        assertEquals(5, loginAttemptTracker.getFailedAttempts("alice"));
+    }
+
+    @Test
+    void isLocked_rowLockedBeforeSuccessfulLogin_staysUnlocked() {
+        loginAttemptTracker.isLocked("alice", 2, null);
+        loginAttemptTracker.recordSuccess("alice");
+
+        assertFalse(loginAttemptTracker.isLocked("alice", 5, Date.from(NOW.minusSeconds(10))));
+        assertEquals(0, loginAttemptTracker.getFailedAttempts("alice"));
+    }
+
+    @Test
+    void flush_evictsEntriesIdleForTheLockDuration() {
+        MutableClock clock = new MutableClock(NOW);
+        LoginAttemptTracker tracker = tracker(clock);
+        tracker.isLocked("alice", 0, null);
+        tracker.recordFailure("alice");
+        tracker.isLocked("bob", 0, null);
+        for (int i = 0; i < 5; i++) {
+            tracker.recordFailure("bob");
+        }
+        tracker.flush();
+
+        clock.advance(Duration.ofMinutes(10));
+        tracker.flush();
+        assertEquals(2, tracker.size());
+
+        clock.advance(Duration.ofMinutes(20));
+        tracker.flush();
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void flush_keepsLockedEntries() {
+        MutableClock clock = new MutableClock(NOW);
+        LoginAttemptTracker tracker = tracker(clock);
+        tracker.isLocked("alice", 5, Date.from(NOW.minus(Duration.ofMinutes(29))));
+        clock.advance(Duration.ofSeconds(30));
+
+        tracker.flush();
+
+        assertEquals(1, tracker.size());
+        assertTrue(tracker.isLocked("alice"));
+    }
+
+    private static UserRepository.LoginState loginState(String username, int failedLoginAttempts, Date lockTime) {
+        return new UserRepository.LoginState() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public Integer getFailedLoginAttempts() {
+                return failedLoginAttempts;
+            }
+
+            @Override
+            public Date getLockTime() {
+                return lockTime;
+            }
+        };
+    }
+
+    private LoginAttemptTracker tracker(Clock clock) {
+        return new LoginAttemptTracker(userRepository, userCredentialCache, TransactionOperations.withoutTransaction(), 5,
+                Duration.ofMinutes(30), Duration.ofSeconds(1), clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
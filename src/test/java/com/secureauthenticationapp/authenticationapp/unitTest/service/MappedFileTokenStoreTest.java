@@ -0,0 +1,206 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.MappedFileTokenStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileTokenStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock();
+    private MappedFileTokenStore tokenStore;
+
+    @AfterEach
+    void tearDown() {
+        if (tokenStore != null) {
+            tokenStore.close();
+        }
+    }
+
+    @Test
+    void open_afterRestart_restoresLiveSessions() {
+        tokenStore = open();
+        String kept = tokenStore.issue("testUser");
+        String loggedOut = tokenStore.issue("otherUser");
+        assertTrue(tokenStore.remove(loggedOut));
+        tokenStore.close();
+
+        tokenStore = open();
+
+        assertEquals("testUser", tokenStore.getUsername(kept));
+        assertNull(tokenStore.getUsername(loggedOut));
+        assertEquals(1, tokenStore.size());
+    }
+
+    @Test
+    void open_afterTtl_dropsExpiredSessions() {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        tokenStore.close();
+
+        clock.advance(Duration.ofHours(2));
+        tokenStore = open();
+
+        assertNull(tokenStore.getUsername(token));
+        assertEquals(0, tokenStore.size());
+    }
+
+    @Test
+    void open_afterIdleTimeout_dropsIdleSessions() {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        tokenStore.close();
+
+        clock.advance(Duration.ofMinutes(20));
+        tokenStore = open();
+
+        assertNull(tokenStore.getUsername(token));
+        assertEquals(0, tokenStore.size());
+    }
+
+    @Test
+    void open_afterRestart_keepsIdleTimeoutFromLastAccess() {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        clock.advance(Duration.ofMinutes(8));
+        assertEquals("testUser", tokenStore.getUsername(token));
+        tokenStore.close();
+
+        clock.advance(Duration.ofMinutes(8));
+        tokenStore = open();
+
+        assertEquals("testUser", tokenStore.getUsername(token));
+    }
+
+    @Test
+    void compact_keepsLastAccessOfLiveSessions() {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        clock.advance(Duration.ofMinutes(8));
+        assertEquals("testUser", tokenStore.getUsername(token));
+        tokenStore.compact();
+        tokenStore.close();
+
+        clock.advance(Duration.ofMinutes(8));
+        tokenStore = open();
+        assertEquals("testUser", tokenStore.getUsername(token));
+        tokenStore.close();
+
+        clock.advance(Duration.ofMinutes(12));
+        tokenStore = open();
+        assertNull(tokenStore.getUsername(token));
+    }
+
+    @Test
+    void compact_keepsOnlyLiveSessionsAndAcceptsNewWrites() {
+        tokenStore = open();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tokens.add(tokenStore.issue("user" + i));
+        }
+        for (int i = 0; i < 90; i++) {
+            tokenStore.remove(tokens.get(i));
+        }
+        long before = tokenStore.logSize();
+
+        tokenStore.compact();
+        String afterCompaction = tokenStore.issue("lateUser");
+        tokenStore.close();
+        tokenStore = open();
+
+        assertTrue(tokenStore.logSize() < before);
+        assertEquals(11, tokenStore.size());
+        assertEquals("user95", tokenStore.getUsername(tokens.get(95)));
+        assertNull(tokenStore.getUsername(tokens.get(5)));
+        assertEquals("lateUser", tokenStore.getUsername(afterCompaction));
+    }
+
+    @Test
+    void compact_failedSwap_keepsLiveLogWritable() throws IOException {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        // A non-empty directory in place of the log makes the final move fail.
+        Files.delete(logPath());
+        Files.createDirectories(logPath().resolve("blocker"));
+
+        tokenStore.compact();
+
+        String afterFailure = tokenStore.issue("otherUser");
+        assertEquals("testUser", tokenStore.getUsername(token));
+        assertEquals("otherUser", tokenStore.getUsername(afterFailure));
+        assertTrue(tokenStore.remove(afterFailure));
+    }
+
+    @Test
+    void open_tornTail_replaysIntactPrefix() throws IOException {
+        tokenStore = open();
+        String token = tokenStore.issue("testUser");
+        String torn = tokenStore.issue("otherUser");
+        long end = tokenStore.logSize();
+        tokenStore.close();
+        try (FileChannel channel = FileChannel.open(logPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), end - 8);
+        }
+
+        tokenStore = open();
+
+        assertEquals("testUser", tokenStore.getUsername(token));
+        assertNull(tokenStore.getUsername(torn));
+    }
+
+    private MappedFileTokenStore open() {
+        ExpiringTokenStore index = new ExpiringTokenStore(Duration.ofHours(1), Duration.ofMinutes(10),
+                Duration.ofSeconds(1), 64, clock);
+        MappedFileTokenStore store = new MappedFileTokenStore(index, logPath(), Duration.ofMinutes(10),
+                Duration.ofMinutes(1), clock);
+        store.open();
+        return store;
+    }
+
+    private Path logPath() {
+        return directory.resolve("tokens.log");
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
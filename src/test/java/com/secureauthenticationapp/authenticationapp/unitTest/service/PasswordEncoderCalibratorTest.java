@@ -0,0 +1,41 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.config.PasswordEncoderCalibrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderCalibratorTest {
+
+    @Test
+    void calibrateStrength_staysWithinBounds() {
+        assertEquals(4, PasswordEncoderCalibrator.calibrateStrength(Duration.ofNanos(1), 4, 12));
+        assertEquals(12, PasswordEncoderCalibrator.calibrateStrength(Duration.ofHours(1), 4, 12));
+    }
+
+    @Test
+    void calibratedEncoder_acceptsLegacyHashAndFlagsItForUpgrade() {
+        PasswordEncoder passwordEncoder = PasswordEncoderCalibrator.calibratedEncoder(5, Duration.ofMillis(50), 4, 12);
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(passwordEncoder.matches("password", legacyHash));
+        assertTrue(passwordEncoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void calibratedEncoder_flagsOnlyHashesBelowCurrentStrength() {
+        PasswordEncoder weaker = PasswordEncoderCalibrator.calibratedEncoder(4, Duration.ofMillis(50), 4, 12);
+        PasswordEncoder current = PasswordEncoderCalibrator.calibratedEncoder(5, Duration.ofMillis(50), 4, 12);
+        String weakHash = weaker.encode("password");
+        String currentHash = current.encode("password");
+
+        assertTrue(currentHash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(current.matches("password", weakHash));
+        assertTrue(current.upgradeEncoding(weakHash));
+        assertFalse(current.upgradeEncoding(currentHash));
+    }
+}
@@ -0,0 +1,130 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
+import com.secureauthenticationapp.authenticationapp.domain.service.S3StreamingUploader;
+import com.secureauthenticationapp.authenticationapp.domain.service.storage.S3StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3StorageBackendTest {
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    @Mock
+    private S3StreamingUploader streamingUploader;
+
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new S3StorageBackend(s3Client, streamingUploader, "bucketname",
+                "https://bucketname.s3.region.amazonaws.com/");
+    }
+
+    @Test
+    void put_knownLength_sendsSinglePutWithMetadata() {
+        InputStream content = new ByteArrayInputStream(new byte[10]);
+
+        assertEquals(10, backend.put("1-test.jpg", content, 10, "image/jpeg"));
+
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(request.capture());
+        assertEquals("bucketname", request.getValue().getBucketName());
+        assertEquals("1-test.jpg", request.getValue().getKey());
+        assertEquals(10, request.getValue().getMetadata().getContentLength());
+        assertEquals("image/jpeg", request.getValue().getMetadata().getContentType());
+        verifyNoInteractions(streamingUploader);
+    }
+
+    @Test
+    void move_copiesWithinBucketThenDeletesSource() {
+        backend.move("1-big.jpg", "9f86d081.jpg");
+
+        var order = inOrder(s3Client);
+        order.verify(s3Client).copyObject("bucketname", "1-big.jpg", "bucketname", "9f86d081.jpg");
+        ArgumentCaptor<DeleteObjectRequest> delete = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        order.verify(s3Client).deleteObject(delete.capture());
+        assertEquals("1-big.jpg", delete.getValue().getKey());
+    }
+
+    @Test
+    void put_unknownLength_streamsThroughUploader() {
+        InputStream content = new ByteArrayInputStream(new byte[10]);
+        when(streamingUploader.upload(s3Client, "bucketname", "1-test.png", content, "image/png")).thenReturn(10L);
+
+        assertEquals(10, backend.put("1-test.png", content, -1, "image/png"));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class));
+    }
+
+    @Test
+    void get_missingObject_returnsNull() {
+        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(404);
+        when(s3Client.getObject("bucketname", "missing.jpg")).thenThrow(notFound);
+
+        assertNull(backend.get("missing.jpg"));
+    }
+
+    @Test
+    void delete_success() {
+        backend.delete("test.jpg");
+
+        ArgumentCaptor<DeleteObjectRequest> argumentCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client).deleteObject(argumentCaptor.capture());
+        assertEquals("bucketname", argumentCaptor.getValue().getBucketName());
+        assertEquals("test.jpg", argumentCaptor.getValue().getKey());
+    }
+
+    @Test
+    void delete_failure_throwsException() {
+        doThrow(new AmazonServiceException("Error deleting file")).when(s3Client).deleteObject(any(DeleteObjectRequest.class));
+
+        assertThrows(FileDeleteException.class, () -> backend.delete("test.jpg"));
+    }
+
+    @Test
+    void deleteAll_sendsChunksOfAThousandAndReturnsFailedKeys() {
+        List<String> keys = IntStream.range(0, 1500).mapToObj(i -> i + ".jpg").toList();
+        MultiObjectDeleteException.DeleteError error = new MultiObjectDeleteException.DeleteError();
+        error.setKey("1200.jpg");
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenReturn(null)
+                .thenThrow(new MultiObjectDeleteException(List.of(error), List.of()));
+
+        assertEquals(List.of("1200.jpg"), backend.deleteAll(keys));
+
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(requests.capture());
+        assertEquals(1000, requests.getAllValues().get(0).getKeys().size());
+        assertEquals("1000.jpg", requests.getAllValues().get(1).getKeys().get(0).getKey());
+        assertEquals(500, requests.getAllValues().get(1).getKeys().size());
+        assertTrue(requests.getAllValues().get(0).getQuiet());
+    }
+
+    @Test
+    void url_appendsKeyToPrefix() {
+        assertEquals("https://bucketname.s3.region.amazonaws.com/test.jpg", backend.url("test.jpg"));
+    }
+}
@@ -0,0 +1,225 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.StorageBusyException;
+import com.secureauthenticationapp.authenticationapp.domain.service.S3StreamingUploader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class S3StreamingUploaderTest {
+
+    private static final int PART_SIZE = 1024;
+
+    private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private AmazonS3 s3Client;
+    private S3StreamingUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(AmazonS3.class);
+        uploader = new S3StreamingUploader(PART_SIZE, 4, 2, 4, 10 * PART_SIZE, Duration.ofMillis(200));
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                parts.put(request.getPartNumber(), request.getInputStream().readAllBytes());
+                UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag-" + request.getPartNumber());
+                return result;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploader.stop();
+    }
+
+    @Test
+    void upload_smallObject_usesSinglePut() {
+        assertEquals(100, uploader.upload(s3Client, "bucket", "key", new ByteArrayInputStream(bytes(100)), "image/png"));
+
+        ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(put.capture());
+        assertEquals(100, put.getValue().getMetadata().getContentLength());
+        assertEquals("image/png", put.getValue().getMetadata().getContentType());
+        verify(s3Client, never()).initiateMultipartUpload(any());
+        assertEquals(0, uploader.getBuffersInUse());
+    }
+
+    @Test
+    void upload_largeObject_sendsOrderedPartsWithBoundedParallelism() throws Exception {
+        byte[] content = bytes(5 * PART_SIZE + 300);
+
+        assertEquals(content.length, uploader.upload(s3Client, "bucket", "key", new ByteArrayInputStream(content), "image/jpeg"));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals(6, complete.getValue().getPartETags().size());
+        for (int i = 0; i < 6; i++) {
+            PartETag etag = complete.getValue().getPartETags().get(i);
+            assertEquals(i + 1, etag.getPartNumber());
+            assertEquals("etag-" + (i + 1), etag.getETag());
+        }
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (int i = 1; i <= 6; i++) {
+            reassembled.write(parts.get(i));
+        }
+        assertArrayEquals(content, reassembled.toByteArray());
+        assertTrue(maxInFlight.get() <= 2);
+        assertEquals(0, uploader.getBuffersInUse());
+    }
+
+    @Test
+    void upload_failedPart_abortsUploadAndReleasesBuffers() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(new IllegalStateException("Connection reset"));
+
+        assertThrows(CustomFileUploadException.class,
+                () -> uploader.upload(s3Client, "bucket", "key", new ByteArrayInputStream(bytes(4 * PART_SIZE)), "image/jpeg"));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any());
+        assertEquals(0, uploader.getBuffersInUse());
+    }
+
+    @Test
+    void upload_exceedingMaximumSize_abortsWithoutReadingFurther() {
+        CountingStream stream = new CountingStream(100 * PART_SIZE);
+
+        assertThrows(CustomFileUploadException.class,
+                () -> uploader.upload(s3Client, "bucket", "key", stream, "image/jpeg"));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertTrue(stream.read <= 11 * PART_SIZE);
+        assertEquals(0, uploader.getBuffersInUse());
+    }
+
+    @Test
+    void upload_allBuffersTaken_isRejectedAsBusy() throws Exception {
+        CountDownLatch reading = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] stalled = new Future<?>[4];
+            for (int i = 0; i < stalled.length; i++) {
+                stalled[i] = executor.submit(() -> uploader.upload(s3Client, "bucket", "key",
+                        new StalledStream(reading, release), "image/jpeg"));
+            }
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertThrows(StorageBusyException.class,
+                    () -> uploader.upload(s3Client, "bucket", "key", new ByteArrayInputStream(bytes(10)), "image/jpeg"));
+
+            release.countDown();
+            for (Future<?> upload : stalled) {
+                upload.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, uploader.getBuffersInUse());
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    private static final class CountingStream extends InputStream {
+        private final long length;
+        private long read;
+
+        CountingStream(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return read < length ? (int) (read++ & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) {
+            if (read >= length) {
+                return -1;
+            }
+            int n = (int) Math.min(count, length - read);
+            read += n;
+            return n;
+        }
+    }
+
+    private static final class StalledStream extends InputStream {
+        private final CountDownLatch reading;
+        private final CountDownLatch release;
+        private boolean done;
+
+        StalledStream(CountDownLatch reading, CountDownLatch release) {
+            this.reading = reading;
+            this.release = release;
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (done) {
+                return -1;
+            }
+            reading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            done = true;
+            buffer[offset] = 1;
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.exception.UsernameAlreadyTakenException;
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.utils.ServiceValidationUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ServiceValidationUtilTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private ServiceValidationUtil serviceValidationUtil;
+
+    @AfterEach
+    void tearDown() {
+        serviceValidationUtil.stop();
+    }
+
+    @Test
+    void isUsernameAvailable_beforeWarmUp_queriesDatabase() {
+        serviceValidationUtil = new ServiceValidationUtil(userRepository, 1000);
+        when(userRepository.existsByUsername("existing")).thenReturn(true);
+
+        assertFalse(serviceValidationUtil.isUsernameAvailable(" Existing "));
+        assertTrue(serviceValidationUtil.isUsernameAvailable("newUser"));
+        verify(userRepository).existsByUsername("newuser");
+    }
+
+    @Test
+    void isUsernameAvailable_afterWarmUp_skipsDatabaseForUnknownNames() throws Exception {
+        when(userRepository.findKeysAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(keys(1L, "Existing", "existing@example.com")));
+        when(userRepository.existsByUsername("existing")).thenReturn(true);
+        startAndAwaitWarmUp();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(serviceValidationUtil.isUsernameAvailable("newUser" + i));
+            assertTrue(serviceValidationUtil.isEmailAvailable("new" + i + "@example.com"));
+        }
+        assertFalse(serviceValidationUtil.isUsernameAvailable("EXISTING"));
+
+        verify(userRepository, atMost(3)).existsByUsername(anyString());
+        verify(userRepository, atMost(2)).existsByEmail(anyString());
+        verify(userRepository).existsByUsername("existing");
+    }
+
+    @Test
+    void checkIfUserNameExists_recordedRegistration_confirmedAgainstDatabase() throws Exception {
+        when(userRepository.findKeysAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        startAndAwaitWarmUp();
+
+        serviceValidationUtil.recordRegistration("NewUser", "new@example.com");
+        when(userRepository.existsByUsername("newuser")).thenReturn(true);
+
+        assertThrows(UsernameAlreadyTakenException.class, () -> serviceValidationUtil.checkIfUserNameExists("newuser"));
+        verify(userRepository).existsByUsername("newuser");
+    }
+
+    @Test
+    void refresh_userWrittenByAnotherNode_noLongerReportedAvailable() throws Exception {
+        when(userRepository.findKeysAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(keys(1L, "Existing", "existing@example.com")));
+        startAndAwaitWarmUp();
+        when(userRepository.findKeysAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(keys(1L, "Existing", "existing@example.com"),
+                        keys(2L, "Remote", "remote@example.com")));
+        when(userRepository.existsByUsername("remote")).thenReturn(true);
+
+        assertEquals(1, serviceValidationUtil.refresh());
+
+        assertFalse(serviceValidationUtil.isUsernameAvailable("remote"));
+        verify(userRepository).existsByUsername("remote");
+        assertEquals(0, serviceValidationUtil.refresh());
+    }
+
+    private void startAndAwaitWarmUp() throws InterruptedException {
+        serviceValidationUtil = new ServiceValidationUtil(userRepository, 1000);
+        serviceValidationUtil.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!serviceValidationUtil.isFilterReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(serviceValidationUtil.isFilterReady());
+    }
+
+    private static UserRepository.UserKeys keys(long userId, String username, String email) {
+        return new UserRepository.UserKeys() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
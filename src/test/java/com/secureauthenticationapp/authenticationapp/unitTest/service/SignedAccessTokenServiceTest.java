@@ -0,0 +1,113 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.service.token.SignedAccessTokenService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedAccessTokenServiceTest {
+
+    private static final byte[] OLD_KEY = filled((byte) 1);
+    private static final byte[] NEW_KEY = filled((byte) 2);
+
+    private Clock clock;
+    private SignedAccessTokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+        tokenService = service(Map.of("k1", OLD_KEY), "k1", clock);
+    }
+
+    @Test
+    void resolveUsername_issuedToken_returnsSubject() {
+        String token = tokenService.issue("testUser");
+
+        assertEquals("testUser", tokenService.resolveUsername(token, 0));
+        assertEquals("testUser", tokenService.resolveUsername("Bearer " + token, 7));
+    }
+
+    @Test
+    void resolveUsername_tamperedToken_returnsNull() {
+        String token = tokenService.issue("testUser");
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertNull(tokenService.resolveUsername(tampered, 0));
+        assertNull(tokenService.resolveUsername("not-a-token", 0));
+    }
+
+    @Test
+    void resolveUsername_expiredToken_returnsNull() {
+        String token = tokenService.issue("testUser");
+        SignedAccessTokenService later = service(Map.of("k1", OLD_KEY), "k1",
+                Clock.offset(clock, Duration.ofMinutes(16)));
+
+        assertNull(later.resolveUsername(token, 0));
+    }
+
+    @Test
+    void resolveUsername_otherNodeWithSameKeys_acceptsToken() {
+        String token = tokenService.issue("testUser");
+        SignedAccessTokenService otherNode = service(Map.of("k1", OLD_KEY), "k1", clock);
+
+        assertEquals("testUser", otherNode.resolveUsername(token, 0));
+    }
+
+    @Test
+    void resolveUsername_afterKeyRotation_acceptsTokensSignedWithPreviousKey() {
+        String oldToken = tokenService.issue("testUser");
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        keys.put("k1", OLD_KEY);
+        keys.put("k2", NEW_KEY);
+        SignedAccessTokenService rotated = service(keys, "k2", clock);
+        String newToken = rotated.issue("testUser");
+
+        assertEquals("testUser", rotated.resolveUsername(oldToken, 0));
+        assertEquals("testUser", rotated.resolveUsername(newToken, 0));
+        assertNull(tokenService.resolveUsername(newToken, 0));
+    }
+
+    @Test
+    void revoke_validToken_rejectsItAfterwards() {
+        String token = tokenService.issue("testUser");
+        String other = tokenService.issue("testUser");
+
+        assertTrue(tokenService.revoke(token, 0));
+        assertFalse(tokenService.revoke(token, 0));
+        assertNull(tokenService.resolveUsername(token, 0));
+        assertEquals("testUser", tokenService.resolveUsername(other, 0));
+    }
+
+    @Test
+    void constructor_noKeys_failsUnlessEphemeralKeyAllowed() {
+        assertThrows(IllegalStateException.class, () -> service(Map.of(), null, clock));
+
+        SignedAccessTokenService ephemeral = new SignedAccessTokenService(Map.of(), null, true, Duration.ofMinutes(15),
+                new TokenRevocationList(300, 1000), clock);
+        String token = ephemeral.issue("testUser");
+        assertEquals("testUser", ephemeral.resolveUsername(token, 0));
+        assertNull(tokenService.resolveUsername(token, 0));
+    }
+
+    private static SignedAccessTokenService service(Map<String, byte[]> keys, String activeKey, Clock clock) {
+        return new SignedAccessTokenService(keys, activeKey, false, Duration.ofMinutes(15),
+                new TokenRevocationList(300, 1000), clock);
+    }
+
+    private static byte[] filled(byte value) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, value);
+        return key;
+    }
+}
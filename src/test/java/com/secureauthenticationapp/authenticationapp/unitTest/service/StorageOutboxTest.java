@@ -0,0 +1,331 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.secureauthenticationapp.authenticationapp.domain.entity.StorageOutboxEntity;
+import com.secureauthenticationapp.authenticationapp.domain.entity.StoredObjectEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.CustomFileUploadException;
+import com.secureauthenticationapp.authenticationapp.domain.exception.FileDeleteException;
+import com.secureauthenticationapp.authenticationapp.domain.repository.StorageOutboxRepository;
+import com.secureauthenticationapp.authenticationapp.domain.repository.StoredObjectRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageOutbox;
+import com.secureauthenticationapp.authenticationapp.domain.service.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageOutboxTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-01T10:00:00Z");
+    private static final String URL = "https://bucket.s3.region.amazonaws.com/9f86d081.jpg";
+    private static final String TEMP_URL = "https://bucket.s3.region.amazonaws.com/1-big.jpg";
+    private static final String KEY = "9f86d081.jpg";
+    private static final String TEMP_KEY = "1-big.jpg";
+
+    @Mock
+    private StorageOutboxRepository repository;
+
+    @Mock
+    private StoredObjectRepository objectRepository;
+
+    @Mock
+    private StorageService storageService;
+
+    private final MultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "image".getBytes());
+    private StorageOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new StorageOutbox(repository, objectRepository, storageService,
+                TransactionOperations.withoutTransaction(), Duration.ofMinutes(15), Duration.ofSeconds(30),
+                Duration.ofMinutes(1), 2, Duration.ofMinutes(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void stageUpload_recordsObjectBeforeUploadingIt() {
+        when(storageService.contentFileUrl(file)).thenReturn(URL);
+        when(storageService.uploadFile(file, URL)).thenReturn(URL);
+
+        assertEquals(URL, outbox.stageUpload(file));
+
+        ArgumentCaptor<StorageOutboxEntity> entry = ArgumentCaptor.forClass(StorageOutboxEntity.class);
+        var order = inOrder(objectRepository, repository, storageService);
+        order.verify(objectRepository).addReference(KEY, NOW);
+        order.verify(repository).save(entry.capture());
+        order.verify(storageService).fileExists(URL);
+        order.verify(storageService).uploadFile(file, URL);
+        assertEquals(KEY, entry.getValue().getObjectKey());
+        assertEquals(NOW.plus(Duration.ofMinutes(15)), entry.getValue().getNextAttemptAt());
+    }
+
+    @Test
+    void stageUpload_sameContentAlreadyStored_skipsUpload() {
+        when(storageService.contentFileUrl(file)).thenReturn(URL);
+        when(storageService.fileExists(URL)).thenReturn(true);
+
+        assertEquals(URL, outbox.stageUpload(file));
+
+        verify(objectRepository).addReference(KEY, NOW);
+        verify(storageService, never()).uploadFile(any(), any());
+    }
+
+    @Test
+    void retain_urlUnderAnotherBaseUrl_countsAgainstSameObject() {
+        outbox.retain(URL);
+        outbox.retain("/api/v1/blog/images/" + KEY);
+
+        verify(objectRepository, times(2)).addReference(KEY, NOW);
+    }
+
+    @Test
+    void stageUpload_objectBeingDeleted_waitsForDeleteThenUploads() {
+        when(storageService.contentFileUrl(file)).thenReturn(URL);
+        when(objectRepository.findDeletingSince(KEY))
+                .thenReturn(Optional.of(NOW))
+                .thenReturn(Optional.of(NOW))
+                .thenReturn(Optional.empty());
+        when(storageService.uploadFile(file, URL)).thenReturn(URL);
+
+        assertEquals(URL, outbox.stageUpload(file));
+
+        verify(objectRepository, times(3)).findDeletingSince(KEY);
+        verify(storageService, never()).fileExists(any());
+        verify(storageService).uploadFile(file, URL);
+    }
+
+    @Test
+    void stageUpload_stream_movesToContentUrlAndReleasesTemporaryObject() {
+        InputStream in = new ByteArrayInputStream(new byte[]{1});
+        when(storageService.newFileUrl("big.jpg")).thenReturn(TEMP_URL);
+        when(storageService.uploadStream(in, "image/jpeg", TEMP_URL)).thenReturn(URL);
+        when(repository.findFirstByObjectKeyAndNextAttemptAtAfter(TEMP_KEY, NOW))
+                .thenReturn(Optional.of(StorageOutboxEntity.builder().id(4L).objectKey(TEMP_KEY).build()));
+
+        assertEquals(URL, outbox.stageUpload(in, "image/jpeg", "big.jpg"));
+
+        verify(storageService).moveFile(TEMP_URL, URL);
+        verify(storageService, never()).fileExists(TEMP_URL);
+        verify(objectRepository).addReference(KEY, NOW);
+        verify(repository).makeDue(4L, NOW);
+    }
+
+    @Test
+    void stageUpload_failedUpload_makesEntryDueAndRethrows() {
+        when(storageService.contentFileUrl(file)).thenReturn(URL);
+        when(storageService.uploadFile(file, URL)).thenThrow(new CustomFileUploadException("Error uploading file"));
+        when(repository.findFirstByObjectKeyAndNextAttemptAtAfter(KEY, NOW))
+                .thenReturn(Optional.of(StorageOutboxEntity.builder().id(5L).objectKey(KEY).build()));
+
+        assertThrows(CustomFileUploadException.class, () -> outbox.stageUpload(file));
+        verify(repository).makeDue(5L, NOW);
+    }
+
+    @Test
+    void stageUpload_insideTransaction_isRejected() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> outbox.stageUpload(file));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verifyNoInteractions(storageService, repository);
+    }
+
+    @Test
+    void processDue_deletesEachBatchAtOnceAndRequeuesFailures() {
+        StorageOutboxEntity first = StorageOutboxEntity.builder().id(1L).objectKey("a").attempts(0).build();
+        StorageOutboxEntity second = StorageOutboxEntity.builder().id(2L).objectKey("b").attempts(3).build();
+        StorageOutboxEntity third = StorageOutboxEntity.builder().id(3L).objectKey("c").attempts(0).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(repository.deleteEntry(anyLong())).thenReturn(1);
+        StoredObjectEntity a = StoredObjectEntity.builder().objectKey("a").referenceCount(1).build();
+        StoredObjectEntity b = StoredObjectEntity.builder().objectKey("b").referenceCount(1).build();
+        when(objectRepository.findForUpdate("a")).thenReturn(Optional.of(a));
+        when(objectRepository.findForUpdate("b")).thenReturn(Optional.of(b));
+        when(objectRepository.findForUpdate("c")).thenReturn(Optional.empty());
+        ArgumentCaptor<Collection<String>> batches = ArgumentCaptor.captor();
+        when(storageService.deleteObjects(batches.capture())).thenReturn(List.of("b")).thenReturn(List.of());
+
+        assertEquals(2, outbox.processDue());
+
+        assertEquals(List.of("a", "b"), List.copyOf(batches.getAllValues().get(0)));
+        assertEquals(List.of("c"), List.copyOf(batches.getAllValues().get(1)));
+        verify(storageService, never()).deleteFile(any());
+        verify(objectRepository).delete(a);
+        assertEquals(1, b.getReferenceCount());
+        assertNull(b.getDeletingSince());
+        ArgumentCaptor<StorageOutboxEntity> retry = ArgumentCaptor.forClass(StorageOutboxEntity.class);
+        verify(repository).save(retry.capture());
+        assertEquals("b", retry.getValue().getObjectKey());
+        assertEquals(4, retry.getValue().getAttempts());
+        assertEquals(NOW.plus(Duration.ofMinutes(8)), retry.getValue().getNextAttemptAt());
+        verify(repository, never()).recordFailure(anyLong(), any());
+    }
+
+    @Test
+    void processDue_failedBatch_backsOffEveryEntry() {
+        StorageOutboxEntity first = StorageOutboxEntity.builder().id(1L).objectKey("a").attempts(0).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class))).thenReturn(List.of(first));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate("a")).thenThrow(new PessimisticLockingFailureException("Lock wait timeout"));
+
+        assertEquals(0, outbox.processDue());
+
+        verify(repository).recordFailure(1L, NOW.plus(Duration.ofMinutes(1)));
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    void processDue_failedDeleteRequest_restoresReferenceAndRequeues() {
+        StoredObjectEntity object = StoredObjectEntity.builder().objectKey(KEY).referenceCount(1).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).createdAt(NOW).build()));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(object));
+        when(storageService.deleteObjects(any())).thenThrow(new FileDeleteException("Error deleting files from S3"));
+
+        assertEquals(0, outbox.processDue());
+
+        assertEquals(1, object.getReferenceCount());
+        assertNull(object.getDeletingSince());
+        ArgumentCaptor<StorageOutboxEntity> retry = ArgumentCaptor.forClass(StorageOutboxEntity.class);
+        verify(repository).save(retry.capture());
+        assertEquals(1, retry.getValue().getAttempts());
+        assertEquals(NOW.plus(Duration.ofMinutes(1)), retry.getValue().getNextAttemptAt());
+        verify(repository, never()).recordFailure(anyLong(), any());
+    }
+
+    @Test
+    void processDue_sharedObject_releasesReferenceWithoutDeleting() {
+        StoredObjectEntity shared = StoredObjectEntity.builder().objectKey(KEY).referenceCount(2).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).build()));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(shared));
+
+        assertEquals(1, outbox.processDue());
+
+        assertEquals(1, shared.getReferenceCount());
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    void processDue_lastReference_deletesObject() {
+        StoredObjectEntity object = StoredObjectEntity.builder().objectKey(KEY).referenceCount(1).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).build()));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(object));
+
+        assertEquals(1, outbox.processDue());
+
+        verify(objectRepository).delete(object);
+        verify(storageService).deleteObjects(Set.of(KEY));
+    }
+
+    @Test
+    void processDue_deletesObjectsOutsideTransaction() {
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        outbox = new StorageOutbox(repository, objectRepository, storageService, new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                inTransaction.set(true);
+                try {
+                    return action.doInTransaction(null);
+                } finally {
+                    inTransaction.set(false);
+                }
+            }
+        }, Duration.ofMinutes(15), Duration.ofSeconds(30), Duration.ofMinutes(1), 2, Duration.ofMinutes(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        StoredObjectEntity object = StoredObjectEntity.builder().objectKey(KEY).referenceCount(1).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).build()));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(object));
+        when(storageService.deleteObjects(Set.of(KEY))).thenAnswer(invocation -> {
+            assertFalse(inTransaction.get());
+            assertEquals(NOW, object.getDeletingSince());
+            return List.of();
+        });
+
+        assertEquals(1, outbox.processDue());
+
+        verify(objectRepository).delete(object);
+    }
+
+    @Test
+    void processDue_objectRevivedWhileDeleting_keepsRow() {
+        StoredObjectEntity object = StoredObjectEntity.builder().objectKey(KEY).referenceCount(1).build();
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).build()));
+        when(repository.deleteEntry(1L)).thenReturn(1);
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(object));
+        when(storageService.deleteObjects(Set.of(KEY))).thenAnswer(invocation -> {
+            object.setReferenceCount(object.getReferenceCount() + 1);
+            return List.of();
+        });
+
+        assertEquals(1, outbox.processDue());
+
+        verify(objectRepository, never()).delete(any(StoredObjectEntity.class));
+        assertEquals(1, object.getReferenceCount());
+        assertNull(object.getDeletingSince());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void processDue_staleDelete_isFinished() {
+        StoredObjectEntity stale = StoredObjectEntity.builder().objectKey(KEY).referenceCount(0)
+                .deletingSince(NOW.minus(Duration.ofMinutes(5))).build();
+        when(objectRepository.findStaleDeletions(eq(NOW.minus(Duration.ofMinutes(1))), any(Pageable.class)))
+                .thenReturn(List.of(stale));
+        when(objectRepository.findForUpdate(KEY)).thenReturn(Optional.of(stale));
+
+        assertEquals(0, outbox.processDue());
+
+        verify(storageService).deleteObjects(Set.of(KEY));
+        verify(objectRepository).delete(stale);
+    }
+
+    @Test
+    void processDue_entryTakenByAnotherNode_isSkipped() {
+        when(repository.findDue(eq(NOW), any(Pageable.class)))
+                .thenReturn(List.of(StorageOutboxEntity.builder().id(1L).objectKey(KEY).build()));
+        when(repository.deleteEntry(1L)).thenReturn(0);
+
+        outbox.processDue();
+
+        verify(objectRepository, never()).findForUpdate(any());
+        verifyNoInteractions(storageService);
+    }
+}
@@ -0,0 +1,174 @@
+package com.secureauthenticationapp.authenticationapp.unitTest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportError;
+import com.secureauthenticationapp.authenticationapp.domain.bean.UserImportSummary;
+import com.secureauthenticationapp.authenticationapp.domain.exception.UserImportInProgressException;
+import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserImportService;
+import com.secureauthenticationapp.authenticationapp.utils.ServiceValidationUtil;
+import com.secureauthenticationapp.authenticationapp.validation.PasswordValidator;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private static final String INSERT_SQL = "insert into user_entity (username, email, password, failed_login_attempts) values (?, ?, ?, 0)";
+    private static final String EXISTING_HASH = "$2a$10$abcdefghijklmnopqrstuvABCDEFGHIJKLMNOPQRSTUVWXYZ01234";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcOperations jdbcOperations = mock(JdbcOperations.class);
+    private final PasswordValidator passwordValidator = mock(PasswordValidator.class);
+    private final ServiceValidationUtil serviceValidationUtil = mock(ServiceValidationUtil.class);
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final List<UserImportError> failures = new ArrayList<>();
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportService(userRepository, jdbcOperations,
+                TransactionOperations.withoutTransaction(), INSERT_SQL, passwordEncoder, passwordValidator,
+                Validation.buildDefaultValidatorFactory().getValidator(), serviceValidationUtil, new ObjectMapper(),
+                100, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+    }
+
+    @Test
+    void importUsers_ndjson_insertsValidRowsAndReportsTheRest() {
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("Existing"));
+        doThrow(new IllegalArgumentException("Password is too common.")).when(passwordValidator).validatePassword("password1");
+        String body = """
+                {"username":"alice","email":"alice@example.com","password":"Secret_pass1"}
+                {"username":"bob","email":"bob@example.com","passwordHash":"%s"}
+
+                {"username":"existing","email":"existing@example.com","password":"Secret_pass1"}
+                {"username":"carol","email":"not-an-email","password":"Secret_pass1"}
+                {"username":"dave","email":"dave@example.com","password":"password1"}
+                not json
+                {"username":"ALICE2","email":"ALICE@example.com","password":"Secret_pass1"}
+                """.formatted(EXISTING_HASH);
+
+        UserImportSummary summary = importUsers(body, UserImportService.Format.NDJSON);
+
+        assertEquals(2, summary.getImported());
+        assertEquals(5, summary.getFailed());
+        assertEquals(List.of(4L, 5L, 6L, 7L), failures.stream().map(UserImportError::getLine).sorted().limit(4).toList());
+        List<Object[]> rows = insertedRows();
+        assertEquals(2, rows.size());
+        assertEquals("alice", rows.get(0)[0]);
+        assertTrue(passwordEncoder.matches("Secret_pass1", (String) rows.get(0)[2]));
+        assertEquals("{bcrypt}" + EXISTING_HASH, rows.get(1)[2]);
+        verify(serviceValidationUtil).recordRegistration("alice", "alice@example.com");
+        verify(serviceValidationUtil).recordRegistration("bob", "bob@example.com");
+    }
+
+    @Test
+    void importUsers_csv_readsColumnsByHeader() {
+        String body = """
+                email,passwordHash,username
+                "erin@example.com","%s",erin
+                frank@example.com,not-a-hash,frank
+                """.formatted(EXISTING_HASH);
+
+        UserImportSummary summary = importUsers(body, UserImportService.Format.CSV);
+
+        assertEquals(1, summary.getImported());
+        assertEquals(1, summary.getFailed());
+        assertEquals(3L, failures.get(0).getLine());
+        assertEquals("passwordHash must be a BCrypt hash", failures.get(0).getMessage());
+        assertEquals("erin", insertedRows().get(0)[0]);
+    }
+
+    @Test
+    void importUsers_batchHitsUniqueKey_retriesRowByRow() {
+        when(jdbcOperations.batchUpdate(eq(INSERT_SQL), anyList())).thenThrow(new DuplicateKeyException("duplicate"));
+        when(jdbcOperations.update(eq(INSERT_SQL), eq("gina"), anyString(), anyString()))
+                .thenThrow(new DuplicateKeyException("duplicate"));
+        String body = """
+                {"username":"gina","email":"gina@example.com","passwordHash":"%1$s"}
+                {"username":"hank","email":"hank@example.com","passwordHash":"%1$s"}
+                """.formatted(EXISTING_HASH);
+
+        UserImportSummary summary = importUsers(body, UserImportService.Format.NDJSON);
+
+        assertEquals(1, summary.getImported());
+        assertEquals(1, summary.getFailed());
+        assertEquals("gina", failures.get(0).getUsername());
+        verify(serviceValidationUtil, never()).recordRegistration(eq("gina"), anyString());
+        verify(serviceValidationUtil).recordRegistration("hank", "hank@example.com");
+    }
+
+    @Test
+    void importUsers_whileAnotherImportRuns_isRejectedAsConflict() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream stalled = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return -1;
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<UserImportSummary> first = executor.submit(() ->
+                    userImportService.importUsers(stalled, UserImportService.Format.NDJSON, failures::add));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertThrows(UserImportInProgressException.class, () -> importUsers("", UserImportService.Format.NDJSON));
+
+            release.countDown();
+            assertEquals(0, first.get(5, TimeUnit.SECONDS).getImported());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UserImportSummary importUsers(String body, UserImportService.Format format) {
+        return userImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                format, failures::add);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> insertedRows() {
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcOperations, atLeastOnce()).batchUpdate(eq(INSERT_SQL), batches.capture());
+        return batches.getAllValues().stream().flatMap(List::stream).toList();
+    }
+}
@@ -3,18 +3,28 @@ package com.secureauthenticationapp.authenticationapp.unitTest.service;
 import com.secureauthenticationapp.authenticationapp.domain.bean.AuthenticationRequest;
 import com.secureauthenticationapp.authenticationapp.domain.bean.UserRegistration;
 import com.secureauthenticationapp.authenticationapp.domain.entity.UserEntity;
+import com.secureauthenticationapp.authenticationapp.domain.exception.EmailAlreadyExistException;
 import com.secureauthenticationapp.authenticationapp.domain.exception.UserAuthenticationException;
 import com.secureauthenticationapp.authenticationapp.domain.repository.UserRepository;
+import com.secureauthenticationapp.authenticationapp.domain.service.LoginAttemptTracker;
+import com.secureauthenticationapp.authenticationapp.domain.service.UserCredentialCache;
 import com.secureauthenticationapp.authenticationapp.domain.service.UserService;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.ExpiringTokenStore;
+import com.secureauthenticationapp.authenticationapp.domain.service.token.OpaqueAccessTokenService;
 import com.secureauthenticationapp.authenticationapp.utils.ServiceValidationUtil;
 import com.secureauthenticationapp.authenticationapp.validation.PasswordValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
@@ -35,6 +45,17 @@ class UserServiceTest {
     private ServiceValidationUtil serviceValidationUtil;
     @Mock
     private PasswordValidator passwordValidator;
+    private final ExpiringTokenStore tokenStore = new ExpiringTokenStore(
+            Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofSeconds(1), 64);
+    @Spy
+    private OpaqueAccessTokenService accessTokenService = new OpaqueAccessTokenService(tokenStore);
+    @Spy
+    private UserCredentialCache userCredentialCache = new UserCredentialCache(
+            username -> userRepository.findByUsername(username), 100, Duration.ofMinutes(10));
+    @Spy
+    private LoginAttemptTracker loginAttemptTracker = new LoginAttemptTracker(mock(UserRepository.class),
+            userCredentialCache, TransactionOperations.withoutTransaction(), MAX_FAILED_ATTEMPTS,
+            Duration.ofMinutes(30), Duration.ofSeconds(1), Clock.systemUTC());
     @InjectMocks
     private UserService userService;
     private UserEntity userEntity;
@@ -44,7 +65,9 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         userEntity = new UserEntity();
+        userEntity.setUserId(1L);
         userEntity.setUsername("testUser");
+        userEntity.setEmail("test@example.com");
         userEntity.setPassword("encodedPassword");
         userEntity.setFailedLoginAttempts(0);
 
@@ -68,6 +91,7 @@ class UserServiceTest {
         assertNotNull(registeredUser);
         assertEquals("testUser", registeredUser.getUsername());
         verify(userRepository, times(1)).save(any(UserEntity.class));
+        verify(serviceValidationUtil).recordRegistration("testUser", "test@example.com");
     }
 
     @Test
@@ -102,6 +126,17 @@ class UserServiceTest {
         assertThrows(UserAuthenticationException.class, () -> userService.registerUser(userRegistration));
     }
 
+    @Test
+    void registerUser_concurrentDuplicateEmail_throwsEmailAlreadyExist() {
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.save(any(UserEntity.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new RuntimeException("Duplicate entry 'test@example.com' for key 'userEntity.UK_email'")));
+
+        assertThrows(EmailAlreadyExistException.class, () -> userService.registerUser(userRegistration));
+        verify(serviceValidationUtil).recordRegistration("testUser", "test@example.com");
+    }
+
     @Test
     void authenticateUser_success() {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(userEntity));
@@ -111,7 +146,34 @@ class UserServiceTest {
 
         assertNotNull(token);
         assertTrue(userService.isTokenValid(token));
-        verify(userRepository, times(1)).save(userEntity);
+        verify(userRepository, never()).save(any(UserEntity.class));
+    }
+
+    @Test
+    void authenticateUser_outdatedHash_rehashesPassword() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(userEntity));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}rehashedPassword");
+
+        userService.authenticateUser(authenticationRequest);
+        userService.authenticateUser(authenticationRequest);
+
+        verify(userRepository, times(2)).updatePassword(1L, "{bcrypt}rehashedPassword");
+        verify(userRepository, times(2)).findByUsername("testuser");
+        verify(userRepository, never()).save(any(UserEntity.class));
+    }
+
+    @Test
+    void authenticateUser_repeatedLogins_readUserRowOnce() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(userEntity));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+
+        userService.authenticateUser(authenticationRequest);
+        authenticationRequest.setUsername("TESTUSER");
+        userService.authenticateUser(authenticationRequest);
+
+        verify(userRepository, times(1)).findByUsername(anyString());
     }
 
     @Test
@@ -129,9 +191,34 @@ class UserServiceTest {
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
 
         assertThrows(UserAuthenticationException.class, () -> userService.authenticateUser(authenticationRequest));
-        assertEquals(MAX_FAILED_ATTEMPTS, userEntity.getFailedLoginAttempts());
-        assertNotNull(userEntity.getLockTime());
-        verify(userRepository, times(1)).save(userEntity);
+        assertEquals(MAX_FAILED_ATTEMPTS, loginAttemptTracker.getFailedAttempts("testUser"));
+        assertTrue(loginAttemptTracker.isLocked("testUser"));
+        assertTrue(loginAttemptTracker.isLocked("TESTUSER"));
+        verify(userRepository, never()).save(any(UserEntity.class));
+    }
+
+    @Test
+    void authenticateUser_lowercaseBeforeAnyCachedLogin_loadsNormalizedUsername() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(userEntity));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        authenticationRequest.setUsername(" testuser");
+
+        assertNotNull(userService.authenticateUser(authenticationRequest));
+
+        verify(userRepository).findByUsername("testuser");
+    }
+
+    @Test
+    void authenticateUser_lockedInMemory_rejectedBeforeDatabaseRead() {
+        userEntity.setFailedLoginAttempts(MAX_FAILED_ATTEMPTS - 1);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(userEntity));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        assertThrows(UserAuthenticationException.class, () -> userService.authenticateUser(authenticationRequest));
+
+        assertThrows(UserAuthenticationException.class, () -> userService.authenticateUser(authenticationRequest));
+
+        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
     }
 
     @Test
@@ -145,7 +232,7 @@ class UserServiceTest {
     @Test
     void logoutUser_success() {
         String token = UUID.randomUUID().toString();
-        userService.getTokenStore().put(token, "testUser");
+        tokenStore.put(token, "testUser");
 
         userService.logoutUser(token);
 
@@ -162,7 +249,7 @@ class UserServiceTest {
     @Test
     void isTokenValid_validToken_returnsTrue() {
         String token = UUID.randomUUID().toString();
-        userService.getTokenStore().put(token, "testUser");
+        tokenStore.put(token, "testUser");
 
         assertTrue(userService.isTokenValid(token));
     }